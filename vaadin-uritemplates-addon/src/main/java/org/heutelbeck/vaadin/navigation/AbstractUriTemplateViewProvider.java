@@ -1,14 +1,12 @@
 package org.heutelbeck.vaadin.navigation;
 
-import org.springframework.web.util.UriTemplate;
-
 @SuppressWarnings("serial")
 public abstract class AbstractUriTemplateViewProvider
         implements UriTemplateViewProvider {
 
     private final String viewName;
-    private UriTemplate template;
-    private int pathLength;
+    private final CompiledUriTemplate template;
+    private final int pathLength;
 
     protected AbstractUriTemplateViewProvider(
             String viewName
@@ -18,9 +16,8 @@ public abstract class AbstractUriTemplateViewProvider
         }
         this.viewName = viewName;
         pathLength = viewName.split("/").length;
-        if (!viewName.isEmpty()) {
-            template = new UriTemplate(viewName);
-        }
+        template = viewName.isEmpty() ? null
+                : new CompiledUriTemplate(viewName);
     }
 
     @Override
@@ -29,13 +26,55 @@ public abstract class AbstractUriTemplateViewProvider
     ) {
         // look for exact match, pattern match, and lastly for prefix match
         if (viewName.equals(viewAndParameters)
-                || (!viewName.isEmpty() && template.matches(viewAndParameters))
-                || viewAndParameters.startsWith(viewName + "/")) {
+                || (template != null && template.matches(viewAndParameters))
+                || isPrefixOf(viewAndParameters)) {
             return viewName;
         }
         return null;
     }
 
+    /**
+     * Match the given navigation state and extract the variables of the template in one pass.
+     * <p>
+     * The state is matched like in {@link #getViewName(String)}. If the template matches, its variables are recorded.
+     * An exact or prefix match of the view name yields no variables.
+     *
+     * @param viewAndParameters
+     *            the navigation state
+     * @param variables
+     *            receives the variables of the template, overwriting a previous match
+     * @return true if the state matches
+     */
+    public boolean match(
+            CharSequence viewAndParameters,
+            UriTemplateVariables variables
+    ) {
+        if (template != null && template.match(viewAndParameters, variables)) {
+            return true;
+        }
+        if (isPrefixOf(viewAndParameters)
+                || viewName.contentEquals(viewAndParameters)) {
+            variables.clear(viewAndParameters);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Match the given navigation state and extract the variables of the template in one pass.
+     *
+     * @param viewAndParameters
+     *            the navigation state
+     * @return the variables of the template or null if the state does not match
+     * @see #match(CharSequence, UriTemplateVariables)
+     */
+    public UriTemplateVariables match(
+            CharSequence viewAndParameters
+    ) {
+        UriTemplateVariables variables = new UriTemplateVariables();
+        return match(viewAndParameters, variables) ? variables : null;
+    }
+
     /**
      * Get the view name for this provider.
      *
@@ -45,9 +84,37 @@ public abstract class AbstractUriTemplateViewProvider
         return viewName;
     }
 
+    /**
+     * Get the compiled template of the view name.
+     *
+     * @return the template or null if the view name is empty
+     */
+    public CompiledUriTemplate getTemplate() {
+        return template;
+    }
+
     @Override
     public int getPathLength() {
         return pathLength;
     }
 
+    /**
+     * Check for {@code viewAndParameters.startsWith(viewName + "/")} without creating the concatenated string.
+     */
+    private boolean isPrefixOf(
+            CharSequence viewAndParameters
+    ) {
+        int length = viewName.length();
+        if (viewAndParameters.length() <= length
+                || viewAndParameters.charAt(length) != '/') {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (viewAndParameters.charAt(i) != viewName.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
 }
@@ -0,0 +1,51 @@
+package org.heutelbeck.vaadin.navigation;
+
+import java.util.concurrent.CompletableFuture;
+
+import com.vaadin.navigator.View;
+
+/**
+ * A view loading its data before it is entered, without holding the lock of the session while loading.
+ * <p>
+ * The {@link UriTemplateNavigator} calls {@link #prepare(UriTemplateViewChangeEvent)} and enters the view with the
+ * prepared data once the returned future completes. With asynchronous navigation enabled, the prepare phase runs on
+ * the executor of the navigator and the view is entered later through {@link com.vaadin.ui.UI#access(Runnable)},
+ * while a placeholder view may be shown meanwhile. Otherwise the navigator waits for the data on the navigating
+ * thread. {@link #enter(com.vaadin.navigator.ViewChangeListener.ViewChangeEvent)} is not called for an
+ * {@link AsyncView}.
+ *
+ * @param <T>
+ *            type of the prepared data
+ * @see UriTemplateNavigator#setAsyncNavigation(java.util.concurrent.Executor, View)
+ */
+public interface AsyncView<T> extends View {
+
+    /**
+     * Load the data for a navigation. With asynchronous navigation enabled, this method is called on a thread of the
+     * executor of the navigator without the session being locked, and must neither modify components nor read state
+     * of the session that is not thread safe. If a later navigation supersedes this one, the returned future is
+     * cancelled.
+     *
+     * @param event
+     *            the event the view will be entered with
+     * @return the future data, not null
+     */
+    CompletableFuture<? extends T> prepare(
+            UriTemplateViewChangeEvent event
+    );
+
+    /**
+     * Enter the view with the prepared data. Called while the session is locked, like
+     * {@link #enter(com.vaadin.navigator.ViewChangeListener.ViewChangeEvent)}.
+     *
+     * @param event
+     *            the event the view was prepared for
+     * @param data
+     *            the prepared data
+     */
+    void enter(
+            UriTemplateViewChangeEvent event,
+            T data
+    );
+
+}
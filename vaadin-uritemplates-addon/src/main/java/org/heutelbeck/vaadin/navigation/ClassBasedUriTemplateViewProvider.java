@@ -1,15 +1,42 @@
 package org.heutelbeck.vaadin.navigation;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+
 import com.vaadin.navigator.View;
 
 @SuppressWarnings("serial")
 public class ClassBasedUriTemplateViewProvider
         extends AbstractUriTemplateViewProvider {
 
+    private static final MethodType DEFAULT_CONSTRUCTOR = MethodType
+            .methodType(View.class);
+    private static final MethodType VARIABLES_CONSTRUCTOR = MethodType
+            .methodType(View.class, UriTemplateVariables.class);
+
+    // the constructors of a view class are shared by all routes to the class
+    private static final ClassValue<Constructors> CONSTRUCTORS = new ClassValue<Constructors>() {
+        @Override
+        protected Constructors computeValue(
+                Class<?> type
+        ) {
+            return new Constructors(type);
+        }
+    };
+
     private final Class<? extends View> viewClass;
 
+    // method handles are not serializable and are resolved again on demand
+    private transient Constructors constructors;
+
     /**
      * Create a new view provider which creates new view instances based on a view class.
+     * <p>
+     * The constructor of the view class is looked up once per class. If the class has a constructor taking
+     * {@link UriTemplateVariables}, views are created with the variables extracted from the navigation state. Otherwise
+     * the constructor taking no arguments is used. Like the class itself, the constructors need not be public.
      *
      * @param viewName
      *            name of the views to create (not null)
@@ -25,6 +52,7 @@ public class ClassBasedUriTemplateViewProvider
             throw new IllegalArgumentException("View class should not be null");
         }
         this.viewClass = viewClass;
+        constructors = CONSTRUCTORS.get(viewClass);
     }
 
     @Override
@@ -32,13 +60,17 @@ public class ClassBasedUriTemplateViewProvider
             String viewName
     ) {
         if (getViewName().equals(viewName)) {
-            try {
-                return viewClass.newInstance();
-            } catch (InstantiationException e) {
-                throw new RuntimeException(e);
-            } catch (IllegalAccessException e) {
-                throw new RuntimeException(e);
-            }
+            return newInstance(null);
+        }
+        return null;
+    }
+
+    @Override
+    public View getView(
+            UriTemplateMatch match
+    ) {
+        if (getViewName().equals(match.getViewName())) {
+            return newInstance(match.getVariables());
         }
         return null;
     }
@@ -52,4 +84,85 @@ public class ClassBasedUriTemplateViewProvider
         return viewClass;
     }
 
+    private View newInstance(
+            UriTemplateVariables variables
+    ) {
+        Constructors constructors = this.constructors;
+        if (constructors == null) {
+            constructors = CONSTRUCTORS.get(viewClass);
+            this.constructors = constructors;
+        }
+        MethodHandle variablesConstructor = constructors.variablesConstructor;
+        MethodHandle defaultConstructor = constructors.defaultConstructor;
+        try {
+            if (variablesConstructor != null) {
+                // invokeExact needs the exact static argument type
+                UriTemplateVariables arguments = variables == null
+                        ? new UriTemplateVariables() : variables;
+                return (View) variablesConstructor.invokeExact(arguments);
+            }
+            if (defaultConstructor != null) {
+                return (View) defaultConstructor.invokeExact();
+            }
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Error e) {
+            throw e;
+        } catch (Throwable e) {
+            // a checked exception thrown by the constructor
+            throw new IllegalStateException(
+                    "Cannot create an instance of " + viewClass.getName(), e);
+        }
+        throw new IllegalStateException("Cannot create an instance of "
+                + viewClass.getName(), constructors.resolutionFailure);
+    }
+
+    private static final class Constructors {
+
+        private final MethodHandle defaultConstructor;
+        private final MethodHandle variablesConstructor;
+        private final Exception resolutionFailure;
+
+        private Constructors(
+                Class<?> viewClass
+        ) {
+            MethodHandle variables;
+            try {
+                variables = unreflect(viewClass, UriTemplateVariables.class)
+                        .asType(VARIABLES_CONSTRUCTOR);
+            } catch (ReflectiveOperationException e) {
+                variables = null;
+            } catch (RuntimeException e) {
+                // not accessible, e.g. in a module which is not open
+                variables = null;
+            }
+            MethodHandle defaults = null;
+            Exception failure = null;
+            try {
+                defaults = unreflect(viewClass).asType(DEFAULT_CONSTRUCTOR);
+            } catch (ReflectiveOperationException e) {
+                failure = e;
+            } catch (RuntimeException e) {
+                failure = e;
+            }
+            this.variablesConstructor = variables;
+            this.defaultConstructor = defaults;
+            this.resolutionFailure = failure;
+        }
+
+        /**
+         * Get a handle of a public or non public constructor of a public or non public class.
+         */
+        private static MethodHandle unreflect(
+                Class<?> viewClass,
+                Class<?>... parameterTypes
+        ) throws ReflectiveOperationException {
+            Constructor<?> constructor = viewClass
+                    .getDeclaredConstructor(parameterTypes);
+            constructor.setAccessible(true);
+            return MethodHandles.lookup().unreflectConstructor(constructor);
+        }
+
+    }
+
 }
@@ -0,0 +1,847 @@
+package org.heutelbeck.vaadin.navigation;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A URI template like {@code apples/{appleId}/cores/{coreId:\d+}}, compiled into a sequence of literals and variables.
+ * <p>
+ * Templates are parsed and matched like the {@code UriTemplate} of Spring: a plain variable {@code {name}} matches any
+ * characters, including slashes, and a variable {@code {name:regex}} matches the given regular expression. Variables
+ * are matched greedily from left to right. Unlike Spring, a template with unbalanced braces is rejected instead of
+ * being matched as an accidental literal, and capturing groups within the regular expression of a variable do not
+ * shift the values of the following variables.
+ * <p>
+ * Literals, plain variables and variables restricted to a single character class with an optional quantifier, like
+ * {@code \d+}, {@code [a-z0-9]{2,8}} or {@code [^/]*}, are matched by hand on the offsets of the input, without
+ * regular expressions and without allocation. Templates with other regular expressions fall back to a
+ * {@link Pattern} equivalent to the one Spring compiles.
+ * <p>
+ * A template can also be expanded into a navigation state with {@link #expand(Map)}. The values are percent encoded,
+ * so that matching the expanded state yields the encoded values, see {@link UriTemplateVariables#getDecoded(String)}.
+ * <p>
+ * The compiled form is kept compact for large route sets: literals are kept as offsets into the template string, the
+ * sequence of literals and variables is packed into an int array, variable names are interned and plain variables
+ * share a single matcher.
+ * <p>
+ * A compiled template is immutable and thread safe.
+ */
+@SuppressWarnings("serial")
+public final class CompiledUriTemplate implements Serializable {
+
+    private static final int UNBOUNDED = Integer.MAX_VALUE;
+
+    private final String template;
+    // a variable index or the complement of a literal index, per element of the template
+    private final int[] tokens;
+    private final String[] variableNames;
+    private final int[] minRemaining;
+    private final Pattern pattern;
+    // the group of each variable in the pattern, after the groups of the regular expressions of previous variables
+    private final int[] variableGroups;
+    // start and end offset in the template of the literal before each variable and after the last one
+    private final int[] literalBounds;
+    private final Token[] variableTokens;
+    private final boolean verifyExpansion;
+
+    /**
+     * Compile a template.
+     *
+     * @param template
+     *            the template (not null nor empty)
+     * @throws IllegalArgumentException
+     *             if the template is empty, its braces are unbalanced or a variable declares an empty regular
+     *             expression
+     */
+    public CompiledUriTemplate(
+            String template
+    ) {
+        if (template == null || template.isEmpty()) {
+            throw new IllegalArgumentException(
+                    "template may not be null or empty.");
+        }
+        this.template = template;
+
+        List<Token> parsed = new ArrayList<Token>();
+        List<String> names = new ArrayList<String>();
+        int[] groups = new int[8];
+        int group = 1;
+        int[] bounds = new int[8];
+        int literalCount = 0;
+        StringBuilder regex = new StringBuilder();
+        boolean simple = true;
+        int level = 0;
+        int literalStart = 0;
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < template.length(); i++) {
+            char c = template.charAt(i);
+            if (c == '{') {
+                level++;
+                if (level == 1) {
+                    // start of a variable
+                    bounds = addBounds(bounds, literalCount++, literalStart, i);
+                    addLiteral(regex, builder);
+                    builder = new StringBuilder();
+                    continue;
+                }
+            } else if (c == '}') {
+                level--;
+                if (level < 0) {
+                    throw new IllegalArgumentException("Unbalanced '}' at index "
+                            + i + " in \"" + template + "\"");
+                }
+                if (level == 0) {
+                    // end of a variable
+                    String variable = builder.toString();
+                    int idx = variable.indexOf(':');
+                    if (idx == -1) {
+                        parsed.add(Token.PLAIN);
+                        groups = addGroup(groups, names.size(), group++);
+                        names.add(variable.intern());
+                        regex.append("(.*)");
+                    } else {
+                        if (idx + 1 == variable.length()) {
+                            throw new IllegalArgumentException(
+                                    "No custom regular expression specified after ':' in \""
+                                            + variable + "\"");
+                        }
+                        String variableRegex = variable.substring(idx + 1);
+                        Token token = parseSimple(variableRegex);
+                        if (token == null) {
+                            simple = false;
+                        } else {
+                            parsed.add(token);
+                        }
+                        groups = addGroup(groups, names.size(), group);
+                        // capturing groups of the expression itself come after the group of the variable
+                        group += 1 + countGroups(variableRegex);
+                        names.add(variable.substring(0, idx).intern());
+                        regex.append('(').append(variableRegex).append(')');
+                    }
+                    builder = new StringBuilder();
+                    literalStart = i + 1;
+                    continue;
+                }
+            }
+            builder.append(c);
+        }
+        if (level > 0) {
+            throw new IllegalArgumentException(
+                    "Unbalanced '{' in \"" + template + "\"");
+        }
+        bounds = addBounds(bounds, literalCount++, literalStart,
+                template.length());
+        addLiteral(regex, builder);
+
+        this.variableNames = names.toArray(new String[names.size()]);
+        this.literalBounds = bounds.length == 2 * literalCount ? bounds
+                : Arrays.copyOf(bounds, 2 * literalCount);
+        if (simple) {
+            this.variableTokens = parsed.toArray(new Token[parsed.size()]);
+            int[] elements = new int[2 * literalCount];
+            int[] min = new int[2 * literalCount];
+            int count = 0;
+            for (int i = 0; i < literalCount; i++) {
+                int length = literalBounds[2 * i + 1] - literalBounds[2 * i];
+                if (length > 0) {
+                    min[count] = length;
+                    elements[count++] = ~i;
+                }
+                if (i < variableTokens.length) {
+                    min[count] = variableTokens[i].min;
+                    elements[count++] = i;
+                }
+            }
+            this.tokens = Arrays.copyOf(elements, count);
+            this.minRemaining = new int[count + 1];
+            for (int i = count - 1; i >= 0; i--) {
+                minRemaining[i] = minRemaining[i + 1] + min[i];
+            }
+            this.pattern = null;
+            this.variableGroups = null;
+        } else {
+            this.tokens = null;
+            this.minRemaining = null;
+            this.pattern = Pattern.compile(regex.toString());
+            this.variableGroups = Arrays.copyOf(groups, names.size());
+            this.variableTokens = null;
+        }
+        this.verifyExpansion = pattern != null || !isDelimited();
+    }
+
+    /**
+     * Check whether every variable but the last is followed by a literal starting with a character which is always
+     * encoded in values. The variables of an expanded state are then found at the same offsets by the matcher.
+     */
+    private boolean isDelimited() {
+        for (int i = 1; i < literalBounds.length / 2 - 1; i++) {
+            int start = literalBounds[2 * i];
+            if (start == literalBounds[2 * i + 1]
+                    || UriEncoding.isSafe(template.charAt(start))
+                    || template.charAt(start) == '%') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Get the template this instance was compiled from.
+     *
+     * @return the template
+     */
+    public String getTemplate() {
+        return template;
+    }
+
+    /**
+     * Get the number of variables of the template, including repeated names.
+     *
+     * @return number of variables
+     */
+    public int getVariableCount() {
+        return variableNames.length;
+    }
+
+    /**
+     * Get the name of a variable.
+     *
+     * @param index
+     *            index of the variable in the template
+     * @return the name
+     */
+    public String getVariableName(
+            int index
+    ) {
+        return variableNames[index];
+    }
+
+    /**
+     * Check whether the whole input matches the template.
+     *
+     * @param input
+     *            the input
+     * @return true if the input matches
+     */
+    public boolean matches(
+            CharSequence input
+    ) {
+        if (input == null) {
+            return false;
+        }
+        if (pattern != null) {
+            return pattern.matcher(input).matches();
+        }
+        return matchFrom(0, input, 0, input.length(), true, null) >= 0;
+    }
+
+    /**
+     * Match the whole input and record the variables.
+     *
+     * @param input
+     *            the input
+     * @param variables
+     *            receives the variables, overwriting a previous match
+     * @return true if the input matches, the variables are undefined otherwise
+     */
+    public boolean match(
+            CharSequence input,
+            UriTemplateVariables variables
+    ) {
+        if (input == null) {
+            return false;
+        }
+        int[] bounds = variables.reset(variableNames, input);
+        if (pattern != null) {
+            Matcher matcher = pattern.matcher(input);
+            return matcher.matches() && record(matcher, bounds);
+        }
+        return matchFrom(0, input, 0, input.length(), true, bounds) >= 0;
+    }
+
+    /**
+     * Find the first occurrence of the template within the input and record the variables, like
+     * {@code UriTemplate.match} of Spring does.
+     *
+     * @param input
+     *            the input
+     * @param variables
+     *            receives the variables, overwriting a previous match
+     * @return true if the template occurs in the input, the variables are undefined otherwise
+     */
+    public boolean find(
+            CharSequence input,
+            UriTemplateVariables variables
+    ) {
+        if (input == null) {
+            return false;
+        }
+        int[] bounds = variables.reset(variableNames, input);
+        if (pattern != null) {
+            Matcher matcher = pattern.matcher(input);
+            return matcher.find() && record(matcher, bounds);
+        }
+        int end = input.length();
+        for (int start = 0; start <= end; start++) {
+            if (matchFrom(0, input, start, end, false, bounds) >= 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Expand the template with the given values. The values are converted with {@link Object#toString()} and percent
+     * encoded.
+     *
+     * @param values
+     *            values by variable name, a value for every variable of the template is required
+     * @return the navigation state
+     * @throws IllegalArgumentException
+     *             if a value is missing, does not match the regular expression of its variable or the state would be
+     *             matched with other values
+     */
+    public String expand(
+            Map<String, ?> values
+    ) {
+        Object[] ordered = new Object[variableNames.length];
+        for (int i = 0; i < ordered.length; i++) {
+            ordered[i] = values.get(variableNames[i]);
+        }
+        return expandValues(ordered);
+    }
+
+    /**
+     * Expand the template with the given values in the order of the variables in the template.
+     *
+     * @param values
+     *            one value per variable of the template
+     * @return the navigation state
+     * @throws IllegalArgumentException
+     *             if the number of values is wrong, a value does not match the regular expression of its variable or
+     *             the state would be matched with other values
+     * @see #expand(Map)
+     */
+    public String expand(
+            Object... values
+    ) {
+        if (values.length != variableNames.length) {
+            throw new IllegalArgumentException("Template " + template
+                    + " expects " + variableNames.length + " values");
+        }
+        return expandValues(values);
+    }
+
+    private String expandValues(
+            Object[] values
+    ) {
+        String[] strings = new String[values.length];
+        int capacity = template.length();
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] == null) {
+                throw new IllegalArgumentException("No value for variable '"
+                        + variableNames[i] + "' of template " + template);
+            }
+            strings[i] = values[i].toString();
+            capacity += strings[i].length();
+        }
+        // room for a few escapes
+        StringBuilder result = new StringBuilder(capacity + 16);
+        int[] bounds = verifyExpansion ? new int[2 * strings.length] : null;
+        for (int i = 0; i < strings.length; i++) {
+            result.append(template, literalBounds[2 * i],
+                    literalBounds[2 * i + 1]);
+            int start = result.length();
+            UriEncoding.encode(strings[i], result);
+            if (variableTokens != null
+                    && !variableTokens[i].accepts(result, start)) {
+                throw new IllegalArgumentException("Value '" + strings[i]
+                        + "' does not match variable '" + variableNames[i]
+                        + "' of template " + template);
+            }
+            if (bounds != null) {
+                bounds[2 * i] = start;
+                bounds[2 * i + 1] = result.length();
+            }
+        }
+        result.append(template, literalBounds[2 * strings.length],
+                literalBounds[2 * strings.length + 1]);
+        if (bounds != null) {
+            verify(result, bounds);
+        }
+        return result.toString();
+    }
+
+    private void verify(
+            CharSequence expanded,
+            int[] bounds
+    ) {
+        UriTemplateVariables variables = new UriTemplateVariables();
+        boolean same = match(expanded, variables);
+        for (int i = 0; same && i < variableNames.length; i++) {
+            same = variables.getStart(i) == bounds[2 * i]
+                    && variables.getEnd(i) == bounds[2 * i + 1];
+        }
+        if (!same) {
+            throw new IllegalArgumentException("The values cannot be expanded into "
+                    + template + " without changing the match: " + expanded);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return template;
+    }
+
+    private boolean record(
+            Matcher matcher,
+            int[] bounds
+    ) {
+        for (int i = 0; i < variableGroups.length; i++) {
+            // -1 for a group which did not participate, see UriTemplateVariables
+            bounds[2 * i] = matcher.start(variableGroups[i]);
+            bounds[2 * i + 1] = matcher.end(variableGroups[i]);
+        }
+        return true;
+    }
+
+    /**
+     * Backtracking matcher on the offsets of the input. Variables try the longest candidate first, which yields the
+     * same assignment as the greedy groups of the regular expression Spring compiles.
+     *
+     * @return the end offset of the match or -1
+     */
+    private int matchFrom(
+            int index,
+            CharSequence input,
+            int pos,
+            int end,
+            boolean anchored,
+            int[] bounds
+    ) {
+        if (index == tokens.length) {
+            return !anchored || pos == end ? pos : -1;
+        }
+        if (end - pos < minRemaining[index]) {
+            return -1;
+        }
+        int element = tokens[index];
+        if (element < 0) {
+            int start = literalBounds[2 * ~element];
+            int length = literalBounds[2 * ~element + 1] - start;
+            if (!regionMatches(input, pos, template, start, length)) {
+                return -1;
+            }
+            return matchFrom(index + 1, input, pos + length, end, anchored,
+                    bounds);
+        }
+        Token token = variableTokens[element];
+        int limit = end - minRemaining[index + 1];
+        if (token.max != UNBOUNDED && limit - pos > token.max) {
+            limit = pos + token.max;
+        }
+        int run = pos;
+        while (run < limit && token.charClass.contains(input.charAt(run))) {
+            run++;
+        }
+        for (int e = run; e >= pos + token.min; e--) {
+            int result = matchFrom(index + 1, input, e, end, anchored, bounds);
+            if (result >= 0) {
+                if (bounds != null) {
+                    bounds[2 * element] = pos;
+                    bounds[2 * element + 1] = e;
+                }
+                return result;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean regionMatches(
+            CharSequence input,
+            int offset,
+            String template,
+            int start,
+            int length
+    ) {
+        if (offset + length > input.length()) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (input.charAt(offset + i) != template.charAt(start + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int[] addBounds(
+            int[] bounds,
+            int index,
+            int start,
+            int end
+    ) {
+        int[] result = 2 * index + 2 > bounds.length
+                ? Arrays.copyOf(bounds, 2 * bounds.length) : bounds;
+        result[2 * index] = start;
+        result[2 * index + 1] = end;
+        return result;
+    }
+
+    private static int[] addGroup(
+            int[] groups,
+            int index,
+            int group
+    ) {
+        int[] result = index == groups.length
+                ? Arrays.copyOf(groups, 2 * groups.length) : groups;
+        result[index] = group;
+        return result;
+    }
+
+    /**
+     * Count the capturing groups of a regular expression as understood by {@link Pattern}: groups that are neither
+     * escaped, quoted nor inside a character class, excluding non-capturing groups, flags and lookarounds. The
+     * expression need not be valid on its own, as it may only be valid within the whole template.
+     */
+    private static int countGroups(
+            String regex
+    ) {
+        int count = 0;
+        int classLevel = 0;
+        for (int i = 0; i < regex.length(); i++) {
+            char c = regex.charAt(i);
+            if (c == '\\') {
+                if (regex.startsWith("Q", i + 1)) {
+                    int quoteEnd = regex.indexOf("\\E", i + 2);
+                    i = quoteEnd < 0 ? regex.length() : quoteEnd + 1;
+                } else {
+                    i++;
+                }
+            } else if (c == '[') {
+                classLevel++;
+            } else if (c == ']' && classLevel > 0) {
+                classLevel--;
+            } else if (c == '(' && classLevel == 0) {
+                if (!regex.startsWith("?", i + 1)
+                        || regex.startsWith("?<", i + 1)
+                                && !regex.startsWith("?<=", i + 1)
+                                && !regex.startsWith("?<!", i + 1)) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    private static void addLiteral(
+            StringBuilder regex,
+            StringBuilder builder
+    ) {
+        if (builder.length() > 0) {
+            regex.append(Pattern.quote(builder.toString()));
+        }
+    }
+
+    /**
+     * Parse a regular expression consisting of a single character class and an optional greedy quantifier.
+     *
+     * @return the variable token or null if the expression is more complex
+     */
+    private static Token parseSimple(
+            String regex
+    ) {
+        int[] pos = { 0 };
+        CharClass charClass = CharClass.parse(regex, pos);
+        if (charClass == null) {
+            return null;
+        }
+        int i = pos[0];
+        int min = 1;
+        int max = 1;
+        if (i < regex.length()) {
+            char q = regex.charAt(i++);
+            if (q == '+') {
+                max = UNBOUNDED;
+            } else if (q == '*') {
+                min = 0;
+                max = UNBOUNDED;
+            } else if (q == '?') {
+                min = 0;
+            } else if (q == '{') {
+                int close = regex.indexOf('}', i);
+                if (close < 0) {
+                    return null;
+                }
+                String bounds = regex.substring(i, close);
+                i = close + 1;
+                int comma = bounds.indexOf(',');
+                try {
+                    if (comma < 0) {
+                        min = Integer.parseInt(bounds);
+                        max = min;
+                    } else {
+                        min = Integer.parseInt(bounds.substring(0, comma));
+                        max = comma == bounds.length() - 1 ? UNBOUNDED
+                                : Integer.parseInt(
+                                        bounds.substring(comma + 1));
+                    }
+                } catch (NumberFormatException e) {
+                    return null;
+                }
+                if (min < 0 || max < min) {
+                    return null;
+                }
+            } else {
+                return null;
+            }
+        }
+        // lazy or possessive quantifiers and anything else are left to the regular expression
+        if (i != regex.length()) {
+            return null;
+        }
+        if (charClass == CharClass.DOT && min == 0 && max == UNBOUNDED) {
+            return Token.PLAIN;
+        }
+        return new Token(charClass, min, max);
+    }
+
+    /**
+     * A variable matched by hand: a character class with a greedy quantifier.
+     */
+    private static final class Token implements Serializable {
+
+        // shared by all plain variables
+        private static final Token PLAIN = new Token(CharClass.DOT, 0,
+                UNBOUNDED);
+
+        private final CharClass charClass;
+        private final int min;
+        private final int max;
+
+        private Token(
+                CharClass charClass,
+                int min,
+                int max
+        ) {
+            this.charClass = charClass;
+            this.min = min;
+            this.max = max;
+        }
+
+        /**
+         * Check whether this variable matches the characters of the input from the given offset to its end.
+         */
+        private boolean accepts(
+                CharSequence input,
+                int start
+        ) {
+            int length = input.length() - start;
+            if (length < min || length > max) {
+                return false;
+            }
+            for (int i = start; i < input.length(); i++) {
+                if (!charClass.contains(input.charAt(i))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * A set of characters as understood by {@link Pattern} without flags. ASCII characters are kept in a bit set.
+     */
+    static final class CharClass implements Serializable {
+
+        static final CharClass DOT = dot();
+
+        private long low;
+        private long high;
+        private boolean nonAscii;
+        private boolean dot;
+
+        private CharClass() {
+        }
+
+        boolean contains(
+                char c
+        ) {
+            if (c < 64) {
+                return (low & (1L << c)) != 0;
+            }
+            if (c < 128) {
+                return (high & (1L << (c - 64))) != 0;
+            }
+            if (dot) {
+                // line terminators
+                return c != '\u0085' && c != '\u2028' && c != '\u2029';
+            }
+            return nonAscii;
+        }
+
+        private void add(
+                char c
+        ) {
+            if (c < 64) {
+                low |= 1L << c;
+            } else {
+                high |= 1L << (c - 64);
+            }
+        }
+
+        private void addRange(
+                char from,
+                char to
+        ) {
+            for (char c = from; c <= to; c++) {
+                add(c);
+            }
+        }
+
+        private void addAll(
+                CharClass other
+        ) {
+            low |= other.low;
+            high |= other.high;
+        }
+
+        private CharClass negate() {
+            CharClass result = new CharClass();
+            result.low = ~low;
+            result.high = ~high;
+            result.nonAscii = !nonAscii;
+            return result;
+        }
+
+        private static CharClass dot() {
+            CharClass result = new CharClass();
+            result.addRange((char) 0, (char) 127);
+            result.low &= ~(1L << '\n');
+            result.low &= ~(1L << '\r');
+            result.dot = true;
+            return result;
+        }
+
+        private static CharClass predefined(
+                char c
+        ) {
+            CharClass result = new CharClass();
+            switch (Character.toLowerCase(c)) {
+            case 'd':
+                result.addRange('0', '9');
+                break;
+            case 'w':
+                result.addRange('a', 'z');
+                result.addRange('A', 'Z');
+                result.addRange('0', '9');
+                result.add('_');
+                break;
+            case 's':
+                result.add(' ');
+                result.add('\t');
+                result.add('\n');
+                result.add('\u000B');
+                result.add('\f');
+                result.add('\r');
+                break;
+            default:
+                return null;
+            }
+            return Character.isUpperCase(c) ? result.negate() : result;
+        }
+
+        /**
+         * Parse a single character class at {@code pos[0]} and advance it.
+         *
+         * @return the class or null if the expression is not a supported character class
+         */
+        static CharClass parse(
+                String regex,
+                int[] pos
+        ) {
+            int i = pos[0];
+            if (i >= regex.length()) {
+                return null;
+            }
+            char c = regex.charAt(i);
+            if (c == '.') {
+                pos[0] = i + 1;
+                return DOT;
+            }
+            if (c == '\\') {
+                if (i + 1 >= regex.length()) {
+                    return null;
+                }
+                pos[0] = i + 2;
+                return predefined(regex.charAt(i + 1));
+            }
+            if (c != '[') {
+                return null;
+            }
+            i++;
+            boolean negated = i < regex.length() && regex.charAt(i) == '^';
+            if (negated) {
+                i++;
+            }
+            CharClass result = new CharClass();
+            boolean first = true;
+            while (true) {
+                if (i >= regex.length()) {
+                    return null;
+                }
+                c = regex.charAt(i);
+                if (c == ']' && !first) {
+                    i++;
+                    break;
+                }
+                first = false;
+                if (c == '[' || c == '&' || c >= 128) {
+                    return null;
+                }
+                char from;
+                if (c == '\\') {
+                    if (i + 1 >= regex.length()) {
+                        return null;
+                    }
+                    char escaped = regex.charAt(i + 1);
+                    i += 2;
+                    if (Character.isLetterOrDigit(escaped)) {
+                        if ("dws".indexOf(escaped) < 0) {
+                            return null;
+                        }
+                        result.addAll(predefined(escaped));
+                        continue;
+                    }
+                    if (escaped >= 128) {
+                        return null;
+                    }
+                    from = escaped;
+                } else {
+                    from = c;
+                    i++;
+                }
+                if (i + 1 < regex.length() && regex.charAt(i) == '-'
+                        && regex.charAt(i + 1) != ']') {
+                    char to = regex.charAt(i + 1);
+                    if (to == '\\' || to == '[' || to == '&' || to >= 128
+                            || to < from) {
+                        return null;
+                    }
+                    result.addRange(from, to);
+                    i += 2;
+                } else {
+                    result.add(from);
+                }
+            }
+            pos[0] = i;
+            return negated ? result.negate() : result;
+        }
+    }
+
+}
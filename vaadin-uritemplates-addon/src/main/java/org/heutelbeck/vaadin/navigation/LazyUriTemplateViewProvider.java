@@ -0,0 +1,103 @@
+package org.heutelbeck.vaadin.navigation;
+
+import com.vaadin.navigator.View;
+import com.vaadin.server.SerializableSupplier;
+
+@SuppressWarnings("serial")
+public class LazyUriTemplateViewProvider
+        extends AbstractUriTemplateViewProvider {
+
+    private final Class<? extends View> viewClass;
+    private final SerializableSupplier<? extends View> viewSupplier;
+    private View view;
+
+    /**
+     * Create a new view provider which creates its view on first request and returns the same instance afterwards.
+     * <p>
+     * As the class of the view is not known before the view is created, navigation states cannot be created for the
+     * view with {@link UriTemplateNavigator#uriFor(Class, java.util.Map)}, see
+     * {@link #LazyUriTemplateViewProvider(String, Class, SerializableSupplier)}.
+     *
+     * @param viewName
+     *            name of the view (not null)
+     * @param viewSupplier
+     *            creates the view when it is first requested (not null)
+     */
+    public LazyUriTemplateViewProvider(
+            String viewName,
+            SerializableSupplier<? extends View> viewSupplier
+    ) {
+        super(viewName);
+        if (null == viewSupplier) {
+            throw new IllegalArgumentException(
+                    "View supplier should not be null");
+        }
+        this.viewClass = null;
+        this.viewSupplier = viewSupplier;
+    }
+
+    /**
+     * Create a new view provider which creates its view of a known class on first request and returns the same
+     * instance afterwards.
+     *
+     * @param viewName
+     *            name of the view (not null)
+     * @param viewClass
+     *            class of the view, for creating navigation states of the view (not null)
+     * @param viewSupplier
+     *            creates the view when it is first requested (not null)
+     */
+    public <V extends View> LazyUriTemplateViewProvider(
+            String viewName,
+            Class<V> viewClass,
+            SerializableSupplier<? extends V> viewSupplier
+    ) {
+        super(viewName);
+        if (null == viewClass) {
+            throw new IllegalArgumentException("View class should not be null");
+        }
+        if (null == viewSupplier) {
+            throw new IllegalArgumentException(
+                    "View supplier should not be null");
+        }
+        this.viewClass = viewClass;
+        this.viewSupplier = viewSupplier;
+    }
+
+    @Override
+    public View getView(
+            String viewName
+    ) {
+        if (getViewName().equals(viewName)) {
+            if (view == null) {
+                view = viewSupplier.get();
+                if (view == null) {
+                    throw new IllegalStateException(
+                            "View supplier of '" + getViewName()
+                                    + "' returned null");
+                }
+            }
+            return view;
+        }
+        return null;
+    }
+
+    /**
+     * Get the class of the view.
+     *
+     * @return the class given on construction or null if the class is not known
+     */
+    public Class<? extends View> getViewClass() {
+        return viewClass;
+    }
+
+    /**
+     * Check whether the view has been created.
+     *
+     * @return true if the view has been requested before
+     */
+    public boolean isViewCreated() {
+        return view != null;
+    }
+
+}
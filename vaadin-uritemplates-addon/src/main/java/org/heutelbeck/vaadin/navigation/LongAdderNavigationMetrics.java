@@ -0,0 +1,301 @@
+package org.heutelbeck.vaadin.navigation;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * {@link NavigationMetrics} collecting lock-free histograms of the phase timings and counters of the outcomes per
+ * template. An instance is thread safe and is meant to be shared by all navigators of an application:
+ *
+ * <pre>
+ * private static final LongAdderNavigationMetrics METRICS = new LongAdderNavigationMetrics();
+ * ...
+ * navigator.setNavigationMetrics(METRICS);
+ * </pre>
+ *
+ * Navigations not matching any route are collected under {@link #getUnmatched()}.
+ */
+public class LongAdderNavigationMetrics implements NavigationMetrics {
+
+    private final ConcurrentMap<String, TemplateMetrics> templates = new ConcurrentHashMap<String, TemplateMetrics>();
+    private final TemplateMetrics unmatched = new TemplateMetrics();
+
+    @Override
+    public void resolved(
+            String template,
+            NavigationOutcome outcome,
+            long resolveNanos,
+            long createNanos
+    ) {
+        TemplateMetrics metrics = metrics(template);
+        metrics.outcomes[outcome.ordinal()].increment();
+        metrics.resolve.record(resolveNanos);
+        metrics.create.record(createNanos);
+    }
+
+    @Override
+    public void entered(
+            String template,
+            long enterNanos
+    ) {
+        metrics(template).enter.record(enterNanos);
+    }
+
+    /**
+     * Get the metrics of all templates seen so far.
+     *
+     * @return unmodifiable live view of the metrics by template
+     */
+    public Map<String, TemplateMetrics> getTemplates() {
+        return Collections.unmodifiableMap(templates);
+    }
+
+    /**
+     * Get the metrics of a single template.
+     *
+     * @param template
+     *            the template
+     * @return the metrics or null if the template was not seen so far
+     */
+    public TemplateMetrics getTemplate(
+            String template
+    ) {
+        return templates.get(template);
+    }
+
+    /**
+     * Get the metrics of navigations which did not match any route.
+     *
+     * @return the metrics
+     */
+    public TemplateMetrics getUnmatched() {
+        return unmatched;
+    }
+
+    /**
+     * Reset all metrics.
+     */
+    public void reset() {
+        templates.clear();
+        unmatched.reset();
+    }
+
+    private TemplateMetrics metrics(
+            String template
+    ) {
+        if (template == null) {
+            return unmatched;
+        }
+        TemplateMetrics metrics = templates.get(template);
+        if (metrics == null) {
+            TemplateMetrics created = new TemplateMetrics();
+            metrics = templates.putIfAbsent(template, created);
+            if (metrics == null) {
+                metrics = created;
+            }
+        }
+        return metrics;
+    }
+
+    /**
+     * Counters and timings of a single template.
+     */
+    public static final class TemplateMetrics {
+
+        private final LongAdder[] outcomes = new LongAdder[NavigationOutcome
+                .values().length];
+        private final Histogram resolve = new Histogram();
+        private final Histogram create = new Histogram();
+        private final Histogram enter = new Histogram();
+
+        private TemplateMetrics() {
+            for (int i = 0; i < outcomes.length; i++) {
+                outcomes[i] = new LongAdder();
+            }
+        }
+
+        /**
+         * Get the number of navigations with the given outcome.
+         *
+         * @param outcome
+         *            the outcome
+         * @return the count
+         */
+        public long getCount(
+                NavigationOutcome outcome
+        ) {
+            return outcomes[outcome.ordinal()].sum();
+        }
+
+        /**
+         * Get the time spent matching the navigation state.
+         *
+         * @return histogram of the resolution times
+         */
+        public Histogram getResolveTimes() {
+            return resolve;
+        }
+
+        /**
+         * Get the time spent obtaining the view from its provider.
+         *
+         * @return histogram of the view creation times
+         */
+        public Histogram getCreateTimes() {
+            return create;
+        }
+
+        /**
+         * Get the time spent entering the view.
+         *
+         * @return histogram of the enter times
+         */
+        public Histogram getEnterTimes() {
+            return enter;
+        }
+
+        private void reset() {
+            for (LongAdder outcome : outcomes) {
+                outcome.reset();
+            }
+            resolve.reset();
+            create.reset();
+            enter.reset();
+        }
+    }
+
+    /**
+     * A histogram of durations with power of two buckets. Bucket {@code i} counts durations below
+     * {@code 2^(i + 10)} nanoseconds, starting at about one microsecond, the last bucket counts all longer durations.
+     */
+    public static final class Histogram {
+
+        /**
+         * Number of buckets, the last bucket starts at about 2.1 seconds.
+         */
+        public static final int BUCKETS = 22;
+
+        private static final int FIRST_BUCKET_SHIFT = 10;
+
+        private final LongAdder[] buckets = new LongAdder[BUCKETS];
+        private final LongAdder totalNanos = new LongAdder();
+
+        private Histogram() {
+            for (int i = 0; i < BUCKETS; i++) {
+                buckets[i] = new LongAdder();
+            }
+        }
+
+        private void record(
+                long nanos
+        ) {
+            long value = Math.max(nanos, 0L);
+            int bucket = 64 - Long.numberOfLeadingZeros(
+                    value >>> FIRST_BUCKET_SHIFT);
+            buckets[Math.min(bucket, BUCKETS - 1)].increment();
+            totalNanos.add(value);
+        }
+
+        private void reset() {
+            for (LongAdder bucket : buckets) {
+                bucket.reset();
+            }
+            totalNanos.reset();
+        }
+
+        /**
+         * Get the number of recorded durations.
+         *
+         * @return the count
+         */
+        public long getCount() {
+            long count = 0;
+            for (LongAdder bucket : buckets) {
+                count += bucket.sum();
+            }
+            return count;
+        }
+
+        /**
+         * Get the sum of all recorded durations.
+         *
+         * @return total nanoseconds
+         */
+        public long getTotalNanos() {
+            return totalNanos.sum();
+        }
+
+        /**
+         * Get the mean of the recorded durations.
+         *
+         * @return mean nanoseconds or 0 if nothing was recorded
+         */
+        public long getMeanNanos() {
+            long count = getCount();
+            return count == 0 ? 0 : getTotalNanos() / count;
+        }
+
+        /**
+         * Get the number of durations recorded in a bucket.
+         *
+         * @param bucket
+         *            index of the bucket
+         * @return the count
+         */
+        public long getBucketCount(
+                int bucket
+        ) {
+            return buckets[bucket].sum();
+        }
+
+        /**
+         * Get the exclusive upper bound of a bucket.
+         *
+         * @param bucket
+         *            index of the bucket
+         * @return upper bound in nanoseconds, {@link Long#MAX_VALUE} for the last bucket
+         */
+        public static long getBucketUpperBoundNanos(
+                int bucket
+        ) {
+            if (bucket >= BUCKETS - 1) {
+                return Long.MAX_VALUE;
+            }
+            return 1L << (bucket + FIRST_BUCKET_SHIFT);
+        }
+
+        /**
+         * Estimate a percentile as the upper bound of the bucket containing it.
+         *
+         * @param percentile
+         *            the percentile between 0 and 100
+         * @return upper bound in nanoseconds or 0 if nothing was recorded
+         */
+        public long getPercentileNanos(
+                double percentile
+        ) {
+            long[] counts = new long[BUCKETS];
+            long count = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                counts[i] = buckets[i].sum();
+                count += counts[i];
+            }
+            if (count == 0) {
+                return 0;
+            }
+            long rank = (long) Math.ceil(count * percentile / 100.0);
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return getBucketUpperBoundNanos(i);
+                }
+            }
+            return getBucketUpperBoundNanos(BUCKETS - 1);
+        }
+    }
+
+}
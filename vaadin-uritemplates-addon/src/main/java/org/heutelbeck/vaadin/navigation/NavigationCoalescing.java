@@ -0,0 +1,116 @@
+package org.heutelbeck.vaadin.navigation;
+
+import java.io.Serializable;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import com.vaadin.ui.UI;
+import com.vaadin.ui.UIDetachedException;
+
+/**
+ * Collapses the bursts of navigations of a navigator, see
+ * {@link UriTemplateNavigator#setNavigationCoalescing(long, TimeUnit, ScheduledExecutorService)}. A navigation
+ * following the previous one within the window is deferred: its state is recorded right away and only the last deferred
+ * state of a burst is navigated to, once the window has passed. Used while the session is locked.
+ */
+@SuppressWarnings("serial")
+final class NavigationCoalescing implements Serializable {
+
+    private final UriTemplateNavigator navigator;
+    private long windowNanos;
+    private transient ScheduledExecutorService executor;
+    private transient ScheduledFuture<?> flush;
+    private int burst;
+    private boolean windowOpen;
+    private long windowEnd;
+    private String deferredState;
+    // the state before the burst, as the deferred states are never entered
+    private String fromState;
+
+    NavigationCoalescing(
+            UriTemplateNavigator navigator
+    ) {
+        this.navigator = navigator;
+    }
+
+    /**
+     * Set the window, performing a deferred navigation right away.
+     *
+     * @param executor
+     *            the executor scheduling the deferred navigations or null to disable coalescing
+     */
+    void configure(
+            long window,
+            TimeUnit unit,
+            ScheduledExecutorService executor
+    ) {
+        windowNanos = unit.toNanos(window);
+        this.executor = window == 0 ? null : executor;
+        windowOpen = false;
+        if (flush != null) {
+            flush.cancel(false);
+            flush();
+        }
+    }
+
+    long getWindowMillis() {
+        return executor == null ? 0L
+                : TimeUnit.NANOSECONDS.toMillis(windowNanos);
+    }
+
+    /**
+     * Defer a navigation that follows the previous one within the window.
+     *
+     * @return true if the navigation was deferred
+     */
+    boolean defer(
+            String navigationState
+    ) {
+        ScheduledExecutorService executor = this.executor;
+        if (executor == null) {
+            return false;
+        }
+        long now = System.nanoTime();
+        if (deferredState == null) {
+            if (!windowOpen || now - windowEnd >= 0) {
+                windowOpen = true;
+                windowEnd = now + windowNanos;
+                return false;
+            }
+            fromState = navigator.getNavigatedState();
+        }
+        deferredState = navigationState;
+        navigator.recordDeferredState(navigationState);
+        if (flush == null) {
+            final UI ui = navigator.getUI();
+            final int burst = ++this.burst;
+            flush = executor.schedule(() -> {
+                try {
+                    ui.access(() -> {
+                        // a flush of an earlier burst may still be queued
+                        if (burst == this.burst) {
+                            flush();
+                        }
+                    });
+                } catch (UIDetachedException e) {
+                    // nothing left to navigate
+                }
+            }, windowEnd - now, TimeUnit.NANOSECONDS);
+        }
+        return true;
+    }
+
+    private void flush() {
+        String navigationState = deferredState;
+        String fromState = this.fromState;
+        burst++;
+        flush = null;
+        deferredState = null;
+        this.fromState = null;
+        windowOpen = true;
+        windowEnd = System.nanoTime() + windowNanos;
+        navigator.navigateDeferred(navigationState, fromState);
+    }
+
+}
@@ -0,0 +1,253 @@
+package org.heutelbeck.vaadin.navigation;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.vaadin.navigator.View;
+import com.vaadin.navigator.ViewProvider;
+
+/**
+ * The recent navigations of a single navigator, kept in a ring buffer of a fixed number of entries.
+ * <p>
+ * Each entry holds the navigation state and its match. The entries closest to the current one also hold the view
+ * instance shown for the state. When the browser goes back or forward to the state of the previous or next entry, the
+ * navigator reuses the recorded match and view: the state is not matched again and no view is created. Any other
+ * navigation drops the entries after the current one, like the history of a browser.
+ * <p>
+ * Only a navigation reported by the browser is taken as a back or forward navigation, see
+ * {@link com.vaadin.navigator.NavigationStateManager}: a navigation of the application to the state of an adjacent
+ * entry adds a new entry. The history only changes once a navigation completes, so a vetoed, denied or failed
+ * navigation leaves it as it was.
+ * <p>
+ * The view instances are by far the largest part of an entry, so the memory budget of a history is given as the
+ * number of entries and the number of entries around the current one holding their view. A history belongs to one
+ * navigator and therefore to one UI and is not thread safe.
+ *
+ * @see UriTemplateNavigator#setNavigationHistory(int, int)
+ */
+@SuppressWarnings("serial")
+public final class NavigationHistory implements Serializable {
+
+    private final Entry[] entries;
+    private final int maximumViews;
+    private int first;
+    private int size;
+    // index of the current entry relative to first, -1 if empty
+    private int current = -1;
+
+    /**
+     * Create an empty history.
+     *
+     * @param maximumSize
+     *            the number of navigations to keep, at least one
+     * @param maximumViews
+     *            the number of entries before and after the current one which keep their view instance
+     */
+    public NavigationHistory(
+            int maximumSize,
+            int maximumViews
+    ) {
+        if (maximumSize < 1) {
+            throw new IllegalArgumentException(
+                    "The maximum size must be positive");
+        }
+        if (maximumViews < 0) {
+            throw new IllegalArgumentException(
+                    "The maximum number of views must not be negative");
+        }
+        this.entries = new Entry[maximumSize];
+        this.maximumViews = maximumViews;
+    }
+
+    /**
+     * Get the number of recorded navigations.
+     *
+     * @return the number of entries
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Get the maximum number of recorded navigations.
+     *
+     * @return the maximum number of entries
+     */
+    public int getMaximumSize() {
+        return entries.length;
+    }
+
+    /**
+     * Get the number of entries before and after the current one which keep their view.
+     *
+     * @return the number of entries keeping their view on each side
+     */
+    public int getMaximumViews() {
+        return maximumViews;
+    }
+
+    /**
+     * Get the recorded navigation states, oldest first.
+     *
+     * @return a copy of the states
+     */
+    public List<String> getStates() {
+        List<String> states = new ArrayList<String>(size);
+        for (int i = 0; i < size; i++) {
+            states.add(entry(i).state);
+        }
+        return states;
+    }
+
+    /**
+     * Get the state a back navigation would restore.
+     *
+     * @return the state of the entry before the current one or null if there is none
+     */
+    public String getPreviousState() {
+        return current > 0 ? entry(current - 1).state : null;
+    }
+
+    /**
+     * Get the state a forward navigation would restore.
+     *
+     * @return the state of the entry after the current one or null if there is none
+     */
+    public String getNextState() {
+        return current >= 0 && current + 1 < size ? entry(current + 1).state
+                : null;
+    }
+
+    /**
+     * Forget all navigations, e.g. as the routes of the navigator changed.
+     */
+    public void clear() {
+        for (int i = 0; i < entries.length; i++) {
+            entries[i] = null;
+        }
+        first = 0;
+        size = 0;
+        current = -1;
+    }
+
+    /**
+     * Find the entry a back or forward navigation to the state returns to, i.e. the entry before or after the current
+     * one with the state. Entries of the error view are not restored, as the state may match a route by now. The
+     * history is not changed, it moves to the entry once the navigation completes, see
+     * {@link #record(Entry, String, UriTemplateMatch, View)}.
+     *
+     * @param errorProvider
+     *            the error provider of the navigator or null
+     * @return the entry or null if the state is not that of an adjacent entry
+     */
+    Entry restore(
+            String navigationState,
+            ViewProvider errorProvider
+    ) {
+        String state = navigationState.endsWith("/") ? navigationState
+                .substring(0, navigationState.length() - 1) : navigationState;
+        Entry entry = find(state);
+        if (entry == null || entry.match == null
+                || entry.match.getProvider() == errorProvider) {
+            return null;
+        }
+        return entry;
+    }
+
+    private Entry find(
+            String state
+    ) {
+        if (current > 0 && entry(current - 1).state.equals(state)) {
+            return entry(current - 1);
+        }
+        if (current >= 0 && current + 1 < size
+                && entry(current + 1).state.equals(state)) {
+            return entry(current + 1);
+        }
+        return null;
+    }
+
+    /**
+     * Record a completed navigation, either as a move to the restored entry, if it is still adjacent to the current
+     * one, or as a new entry after the current one.
+     *
+     * @param restored
+     *            the entry found by {@link #restore(String, ViewProvider)} when the navigation started, or null
+     */
+    void record(
+            Entry restored,
+            String state,
+            UriTemplateMatch match,
+            View view
+    ) {
+        int index = indexOf(restored);
+        if (index >= 0 && restored.state.equals(state)) {
+            current = index;
+        } else {
+            // a new navigation drops the forward entries
+            for (int i = current + 1; i < size; i++) {
+                entries[(first + i) % entries.length] = null;
+            }
+            size = current + 1;
+            if (size == entries.length) {
+                entries[first] = null;
+                first = (first + 1) % entries.length;
+                size--;
+            }
+            current = size;
+            size++;
+            entries[(first + current) % entries.length] = new Entry(state);
+        }
+        Entry entry = entry(current);
+        entry.match = match;
+        entry.view = view;
+        for (int i = 0; i < size; i++) {
+            if (Math.abs(i - current) > maximumViews) {
+                entry(i).view = null;
+            }
+        }
+    }
+
+    private int indexOf(
+            Entry restored
+    ) {
+        if (restored == null) {
+            return -1;
+        }
+        if (current > 0 && entry(current - 1) == restored) {
+            return current - 1;
+        }
+        if (current >= 0 && current + 1 < size
+                && entry(current + 1) == restored) {
+            return current + 1;
+        }
+        return -1;
+    }
+
+    private Entry entry(
+            int index
+    ) {
+        return entries[(first + index) % entries.length];
+    }
+
+    @Override
+    public String toString() {
+        return "NavigationHistory" + getStates() + "[current=" + current
+                + "]";
+    }
+
+    static final class Entry implements Serializable {
+
+        final String state;
+        UriTemplateMatch match;
+        View view;
+
+        private Entry(
+                String state
+        ) {
+            this.state = state;
+        }
+    }
+
+}
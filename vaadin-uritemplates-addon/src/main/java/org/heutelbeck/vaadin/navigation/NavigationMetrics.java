@@ -0,0 +1,57 @@
+package org.heutelbeck.vaadin.navigation;
+
+/**
+ * Receives timings of the phases of a navigation of a {@link UriTemplateNavigator}.
+ * <p>
+ * Implementations are called on the thread navigating, while the session is locked, and must therefore be fast. An
+ * instance may be shared by all navigators of an application, in which case it must be thread safe. Timings are only
+ * taken if a navigator has metrics other than {@link #NONE}.
+ *
+ * @see UriTemplateNavigator#setNavigationMetrics(NavigationMetrics)
+ * @see LongAdderNavigationMetrics
+ */
+public interface NavigationMetrics {
+
+    /**
+     * Metrics ignoring everything. Navigators using these metrics take no timings at all.
+     */
+    NavigationMetrics NONE = new NavigationMetrics() {
+    };
+
+    /**
+     * Called after the navigation state was resolved to a view.
+     *
+     * @param template
+     *            the template of the matched route or null if no route matched
+     * @param outcome
+     *            the outcome of the resolution
+     * @param resolveNanos
+     *            nanoseconds spent matching the state against the registered routes
+     * @param createNanos
+     *            nanoseconds spent obtaining the view from the provider, including the error provider
+     */
+    default void resolved(
+            String template,
+            NavigationOutcome outcome,
+            long resolveNanos,
+            long createNanos
+    ) {
+        // NOP
+    }
+
+    /**
+     * Called after a view was entered.
+     *
+     * @param template
+     *            the template of the matched route or null if no route matched
+     * @param enterNanos
+     *            nanoseconds spent in {@link com.vaadin.navigator.View#enter}
+     */
+    default void entered(
+            String template,
+            long enterNanos
+    ) {
+        // NOP
+    }
+
+}
@@ -0,0 +1,29 @@
+package org.heutelbeck.vaadin.navigation;
+
+/**
+ * The outcome of resolving a navigation state to a view.
+ */
+public enum NavigationOutcome {
+
+    /**
+     * A registered provider matched the state and created the view.
+     */
+    HIT,
+
+    /**
+     * No registered provider created a view, the view of the error provider is shown.
+     */
+    ERROR_VIEW,
+
+    /**
+     * No registered provider created a view and there is no error provider.
+     */
+    MISS,
+
+    /**
+     * A registered provider matched the state, but the {@link RouteGuard} of its route denied the navigation. The view
+     * of the error provider is shown, if there is one.
+     */
+    DENIED
+
+}
@@ -0,0 +1,252 @@
+package org.heutelbeck.vaadin.navigation;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A size bounded cache of the matches of navigation states, evicting the least recently used states first.
+ * <p>
+ * A navigator with a cache only matches a navigation state against its providers the first time it is requested. The
+ * cache of a navigator belongs to a single UI and is invalidated by the navigator whenever its providers change. The
+ * cache of a {@link RouteTable}, see {@link RouteTable.Builder#matchCache(int)}, is shared by all UIs attached to the
+ * table. States are cached as given, as a trailing slash may change the variables extracted by a template. Only states
+ * handled by a provider are cached.
+ * <p>
+ * A cache is thread safe without locking, so that the navigations of all UIs sharing a cache do not wait for each
+ * other. Lookups only stamp the time of their access. Once the cache is full, the least recently used of a sample of
+ * cached states is evicted, which approximates evicting the least recently used state of the whole cache.
+ * <p>
+ * The cached matches are not serialized, a deserialized cache is empty.
+ *
+ * @see UriTemplateNavigator#setNavigationStateCacheSize(int)
+ */
+@SuppressWarnings("serial")
+public final class NavigationStateCache implements Serializable {
+
+    // the number of cached states compared to choose the one to evict
+    private static final int EVICTION_SAMPLES = 8;
+
+    private final int maximumSize;
+    private transient ConcurrentHashMap<String, Cached> matches;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private volatile long generation;
+
+    /**
+     * Create an empty cache.
+     *
+     * @param maximumSize
+     *            maximum number of cached navigation states, at least one
+     */
+    public NavigationStateCache(
+            final int maximumSize
+    ) {
+        if (maximumSize < 1) {
+            throw new IllegalArgumentException(
+                    "The maximum size must be positive");
+        }
+        this.maximumSize = maximumSize;
+        this.matches = createMatches();
+    }
+
+    private ConcurrentHashMap<String, Cached> createMatches() {
+        return new ConcurrentHashMap<String, Cached>(
+                Math.min(maximumSize, 1024));
+    }
+
+    private void readObject(
+            ObjectInputStream in
+    ) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        matches = createMatches();
+    }
+
+    /**
+     * Get the cached match of a navigation state and count the lookup as hit or miss.
+     *
+     * @param state
+     *            the navigation state
+     * @return the match or null if the state is not cached
+     */
+    UriTemplateMatch get(
+            String state
+    ) {
+        Cached cached = matches.get(state);
+        if (cached == null) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        cached.lastAccess = System.nanoTime();
+        return cached.match;
+    }
+
+    /**
+     * Cache the match of a navigation state, for a cache which is never invalidated.
+     *
+     * @param state
+     *            the navigation state
+     * @param match
+     *            the match
+     */
+    void put(
+            String state,
+            UriTemplateMatch match
+    ) {
+        matches.put(state, new Cached(match));
+        evict();
+    }
+
+    /**
+     * Cache the match of a navigation state, unless the cache was invalidated since the given generation.
+     *
+     * @param state
+     *            the navigation state
+     * @param match
+     *            the match
+     * @param expectedGeneration
+     *            the generation read before the state was matched
+     */
+    void put(
+            String state,
+            UriTemplateMatch match,
+            long expectedGeneration
+    ) {
+        if (generation != expectedGeneration) {
+            return;
+        }
+        Cached cached = new Cached(match);
+        matches.put(state, cached);
+        // an invalidation between the check and the put may have missed the match
+        if (generation != expectedGeneration) {
+            matches.remove(state, cached);
+            return;
+        }
+        evict();
+    }
+
+    /**
+     * Get the number of invalidations, to detect matches computed concurrently with an invalidation.
+     *
+     * @return the generation
+     */
+    long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Drop all cached matches. The statistics are kept.
+     */
+    public void invalidateAll() {
+        synchronized (this) {
+            // only invalidations are serialized, lookups read the volatile field
+            generation++;
+        }
+        matches.clear();
+    }
+
+    /**
+     * Evict the least recently used of a sample of states while the cache holds too many.
+     */
+    private void evict() {
+        while (matches.size() > maximumSize) {
+            Map.Entry<String, Cached> oldest = null;
+            int sampled = 0;
+            for (Map.Entry<String, Cached> entry : matches.entrySet()) {
+                if (oldest == null || entry.getValue().lastAccess
+                        - oldest.getValue().lastAccess < 0) {
+                    oldest = entry;
+                }
+                if (++sampled == EVICTION_SAMPLES) {
+                    break;
+                }
+            }
+            if (oldest == null) {
+                return;
+            }
+            matches.remove(oldest.getKey(), oldest.getValue());
+        }
+    }
+
+    /**
+     * Get the maximum number of cached navigation states.
+     *
+     * @return the maximum size
+     */
+    public int getMaximumSize() {
+        return maximumSize;
+    }
+
+    /**
+     * Get the number of cached navigation states.
+     *
+     * @return the size
+     */
+    public int size() {
+        return matches.size();
+    }
+
+    /**
+     * Get the number of lookups answered from the cache.
+     *
+     * @return number of hits
+     */
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * Get the number of lookups which had to match the navigation state.
+     *
+     * @return number of misses
+     */
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * Get the ratio of lookups answered from the cache.
+     *
+     * @return the hit rate between 0 and 1, 0 if there were no lookups yet
+     */
+    public double getHitRate() {
+        long hits = getHitCount();
+        long lookups = hits + getMissCount();
+        return lookups == 0 ? 0.0 : (double) hits / lookups;
+    }
+
+    /**
+     * Reset the hit and miss counts. Lookups concurrent to the reset may or may not be counted.
+     */
+    public void resetStatistics() {
+        hits.reset();
+        misses.reset();
+    }
+
+    @Override
+    public String toString() {
+        return "NavigationStateCache[size=" + matches.size() + "/"
+                + maximumSize + ", hits=" + getHitCount() + ", misses="
+                + getMissCount() + "]";
+    }
+
+    /**
+     * A cached match with the time it was last requested.
+     */
+    private static final class Cached {
+
+        final UriTemplateMatch match;
+        volatile long lastAccess = System.nanoTime();
+
+        Cached(
+                UriTemplateMatch match
+        ) {
+            this.match = match;
+        }
+    }
+
+}
@@ -0,0 +1,230 @@
+package org.heutelbeck.vaadin.navigation;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.vaadin.navigator.View;
+import com.vaadin.navigator.ViewDisplay;
+
+/**
+ * The parent routes of a navigator and the parent views shown around its current view, see {@link ParentView}. The
+ * navigator shows every view through {@link #show(View, UriTemplateMatch)}, which shows it in the display or in the
+ * outlet of its parent. Routes may be nested from any thread, views are shown while the session is locked.
+ */
+@SuppressWarnings("serial")
+final class NestedViews implements Serializable {
+
+    private final UriTemplateNavigator navigator;
+    private final RetainedViews retainedViews;
+    private final Map<String, CompiledUriTemplate> parentRoutes = new ConcurrentHashMap<String, CompiledUriTemplate>();
+    // the parent views around the current view, outermost first
+    private List<ShownParent> shownParents = Collections.emptyList();
+    private View displayedView;
+
+    NestedViews(
+            UriTemplateNavigator navigator,
+            RetainedViews retainedViews
+    ) {
+        this.navigator = navigator;
+        this.retainedViews = retainedViews;
+    }
+
+    /**
+     * Get the parent of a template, set with the navigator, else in the attached route table.
+     *
+     * @return the parent template or null if the routes of the template are not nested
+     */
+    CompiledUriTemplate getParentTemplate(
+            String viewName
+    ) {
+        CompiledUriTemplate parent = parentRoutes.get(viewName);
+        if (parent == null) {
+            RouteTable routeTable = navigator.getRouteTable();
+            if (routeTable != null) {
+                parent = routeTable.getParentTemplate(viewName);
+            }
+        }
+        return parent;
+    }
+
+    void setParentTemplate(
+            String viewName,
+            CompiledUriTemplate parent
+    ) {
+        if (parent == null) {
+            parentRoutes.remove(viewName);
+        } else {
+            parentRoutes.put(viewName, parent);
+        }
+    }
+
+    /**
+     * Check whether the shown parent views are those of the matched state.
+     */
+    boolean isShownParentOf(
+            UriTemplateMatch match
+    ) {
+        CompiledUriTemplate parent = getParentTemplate(match.getViewName());
+        if (parent == null) {
+            return true;
+        }
+        return !shownParents.isEmpty()
+                && shownParents.get(shownParents.size() - 1).state.equals(
+                        parent.expand(decodedValues(match.getVariables())));
+    }
+
+    /**
+     * Get the shown parent view of the matched state, to show it again on its own.
+     *
+     * @return the view or null if the state is not that of a shown parent
+     */
+    View getShownParent(
+            UriTemplateMatch match
+    ) {
+        if (shownParents.isEmpty()) {
+            return null;
+        }
+        ShownParent parent = findShownParent(match.getPath());
+        return parent == null ? null : parent.view;
+    }
+
+    /**
+     * Show a view in the display or, if its route is nested, in the outlet of its parent view. Shown parent views
+     * whose states did not change are kept, the others are created and entered.
+     */
+    void show(
+            View view,
+            UriTemplateMatch match
+    ) {
+        List<ShownParent> parents = new ArrayList<ShownParent>();
+        UriTemplateMatch child = match;
+        CompiledUriTemplate parentTemplate;
+        while (child != null && !navigator.isErrorMatch(child)
+                && (parentTemplate = getParentTemplate(
+                        child.getViewName())) != null) {
+            String state = parentTemplate
+                    .expand(decodedValues(child.getVariables()));
+            for (ShownParent parent : parents) {
+                if (parent.state.equals(state)) {
+                    throw new IllegalStateException(
+                            "The parent routes of " + match.getViewName()
+                                    + " are cyclic");
+                }
+            }
+            ShownParent parent = findShownParent(state);
+            if (parent == null) {
+                UriTemplateMatch parentMatch = navigator.getMatch(state);
+                if (parentMatch == null) {
+                    throw new IllegalStateException("No route matches '"
+                            + state + "', the parent state of '"
+                            + child.getNavigationState() + "'");
+                }
+                parent = new ShownParent(state, parentMatch);
+            }
+            parents.add(0, parent);
+            child = parent.match;
+        }
+        for (ShownParent parent : parents) {
+            if (parent.view == null) {
+                View parentView = retainedViews.getView(parent.match, true);
+                if (!(parentView instanceof ParentView)) {
+                    throw new IllegalStateException("The view of the route "
+                            + parent.match.getViewName()
+                            + " is not a ParentView");
+                }
+                retainedViews.retain(parent.match, parentView);
+                UriTemplateNavigator.bindParameters(parentView, parent.match);
+                parent.view = parentView;
+            }
+        }
+
+        View outer = parents.isEmpty() ? view : parents.get(0).view;
+        if (outer != displayedView) {
+            ViewDisplay display = navigator.getDisplay();
+            if (display != null) {
+                display.showView(outer);
+            }
+            displayedView = outer;
+        }
+        for (int i = 0; i < parents.size(); i++) {
+            ShownParent parent = parents.get(i);
+            if (!parent.entered) {
+                parent.view.enter(new UriTemplateViewChangeEvent(navigator,
+                        null, parent.view, parent.state, "", parent.match));
+                parent.entered = true;
+            }
+            View next = i + 1 < parents.size() ? parents.get(i + 1).view
+                    : view;
+            if (parent.child != next) {
+                ((ParentView) parent.view).showChildView(next);
+                parent.child = next;
+            }
+        }
+        // a kept parent view shown on its own empties its outlet
+        for (ShownParent shown : shownParents) {
+            if (shown.view == view && shown.child != null) {
+                ((ParentView) view).showChildView(null);
+            }
+        }
+        shownParents = parents;
+    }
+
+    private ShownParent findShownParent(
+            String state
+    ) {
+        for (ShownParent parent : shownParents) {
+            if (parent.state.equals(state)) {
+                return parent;
+            }
+        }
+        // the current view becomes the parent of a child navigated to
+        View current = navigator.getCurrentView();
+        UriTemplateMatch currentMatch = navigator.getCurrentMatch();
+        if (current instanceof ParentView && currentMatch != null
+                && current == displayedView
+                && currentMatch.getPath().equals(state)) {
+            ShownParent parent = new ShownParent(state, currentMatch);
+            parent.view = current;
+            parent.entered = true;
+            return parent;
+        }
+        return null;
+    }
+
+    private static Map<String, String> decodedValues(
+            UriTemplateVariables variables
+    ) {
+        Map<String, String> values = new LinkedHashMap<String, String>(
+                variables.size() * 2);
+        for (int i = 0; i < variables.size(); i++) {
+            values.put(variables.getName(i), variables.getDecodedValue(i));
+        }
+        return values;
+    }
+
+    /**
+     * A parent view shown around the current view.
+     */
+    private static final class ShownParent implements Serializable {
+
+        final String state;
+        final UriTemplateMatch match;
+        View view;
+        View child;
+        boolean entered;
+
+        ShownParent(
+                String state,
+                UriTemplateMatch match
+        ) {
+            this.state = state;
+            this.match = match;
+        }
+    }
+
+}
@@ -0,0 +1,46 @@
+package org.heutelbeck.vaadin.navigation;
+
+import java.util.Set;
+
+import com.vaadin.navigator.View;
+
+/**
+ * A view updating itself when the variables of its route change, instead of being replaced by a new view.
+ * <p>
+ * When the {@link UriTemplateNavigator} navigates from the state of the current view to another state matched by the
+ * same route, e.g. from {@code apples/1/cores/2} to {@code apples/1/cores/3}, it calls
+ * {@link #parametersChanged(UriTemplateMatch, UriTemplateMatch, Set)} on the current view. The
+ * {@link com.vaadin.navigator.ViewChangeListener}s are notified as for any view change, with the current view as old
+ * and new view, and the view is only asked once they approved the change. If the view handles the change, the
+ * navigation ends there: no view is created or shown and {@link #enter} is not called. Fields annotated with
+ * {@link UriVariable} are bound to the new variables after the view accepted the change, so the view reads the new
+ * values from the new match.
+ * <p>
+ * The listeners are not skipped for an update in place, although that saves less of the cost of a view change: a
+ * listener may have to confirm leaving the current state, e.g. with unsaved changes, or guard the new one. A vetoed
+ * update leaves the view and its state unchanged, and is not recorded by the {@link NavigationMetrics}.
+ * <p>
+ * The full view change still happens if the route of the state differs, if the state of a parent view changes, see
+ * {@link ParentView}, or if the view declines the change. The listeners are then asked again for the full view change.
+ */
+public interface ParameterAwareView extends View {
+
+    /**
+     * Update the view to a new state of its route.
+     *
+     * @param oldMatch
+     *            the match of the state the view shows
+     * @param newMatch
+     *            the match of the new state
+     * @param changedVariables
+     *            the names of the variables whose values changed, empty if only the query part of the state changed
+     * @return true if the view handled the change, false to leave the view unchanged and replace it by the full view
+     *         change
+     */
+    boolean parametersChanged(
+            UriTemplateMatch oldMatch,
+            UriTemplateMatch newMatch,
+            Set<String> changedVariables
+    );
+
+}
@@ -0,0 +1,423 @@
+package org.heutelbeck.vaadin.navigation;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Binds the variables of a match to the fields of a class annotated with {@link UriVariable}.
+ * <p>
+ * The annotated fields of a class are looked up once and a setter method handle is created for each of them. The
+ * binder of a class is shared by all navigators. Numbers and {@link UUID}s are parsed directly from the matched
+ * navigation state, without creating a string for the value.
+ * <p>
+ * A binder is immutable and thread safe.
+ *
+ * @param <T>
+ *            the class with the annotated fields
+ */
+public final class ParameterBinder<T> {
+
+    private static final ClassValue<ParameterBinder<?>> BINDERS = new ClassValue<ParameterBinder<?>>() {
+        @Override
+        protected ParameterBinder<?> computeValue(
+                Class<?> type
+        ) {
+            return new ParameterBinder<Object>(type);
+        }
+    };
+
+    private static final MethodType OBJECT_SETTER = MethodType
+            .methodType(void.class, Object.class, Object.class);
+
+    private final Class<?> type;
+    private final Binding[] bindings;
+
+    private ParameterBinder(
+            Class<?> type
+    ) {
+        this.type = type;
+        List<Binding> result = new ArrayList<Binding>();
+        for (Class<?> c = type; c != null && c != Object.class; c = c
+                .getSuperclass()) {
+            for (Field field : c.getDeclaredFields()) {
+                UriVariable annotation = field.getAnnotation(UriVariable.class);
+                if (annotation != null) {
+                    result.add(binding(field, annotation));
+                }
+            }
+        }
+        this.bindings = result.toArray(new Binding[result.size()]);
+    }
+
+    /**
+     * Get the binder of a class.
+     *
+     * @param type
+     *            the class with fields annotated with {@link UriVariable}
+     * @param <T>
+     *            the class
+     * @return the binder, created on first request
+     * @throws IllegalArgumentException
+     *             if an annotated field is static or final or has an unsupported type
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> ParameterBinder<T> of(
+            Class<T> type
+    ) {
+        return (ParameterBinder<T>) BINDERS.get(type);
+    }
+
+    /**
+     * Check whether the class has no annotated fields.
+     *
+     * @return true if binding does nothing
+     */
+    public boolean isEmpty() {
+        return bindings.length == 0;
+    }
+
+    /**
+     * Set the annotated fields of the target to the variables of a match.
+     *
+     * @param variables
+     *            the variables of the match
+     * @param target
+     *            the object to fill
+     * @throws ParameterBindingException
+     *             if a required variable is missing or a value cannot be converted
+     */
+    public void bind(
+            UriTemplateVariables variables,
+            T target
+    ) {
+        bindTo(variables, target);
+    }
+
+    /**
+     * Create an instance of the class with its public or non public constructor taking no arguments and set its
+     * annotated fields to the variables of a match.
+     *
+     * @param variables
+     *            the variables of the match
+     * @return the new instance
+     * @throws ParameterBindingException
+     *             if a required variable is missing or a value cannot be converted
+     * @throws IllegalArgumentException
+     *             if the class cannot be instantiated
+     */
+    public T create(
+            UriTemplateVariables variables
+    ) {
+        Object instance;
+        try {
+            Constructor<?> constructor = type.getDeclaredConstructor();
+            constructor.setAccessible(true);
+            instance = constructor.newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalArgumentException(
+                    "Cannot create an instance of " + type.getName(), e);
+        }
+        bindTo(variables, instance);
+        @SuppressWarnings("unchecked")
+        T result = (T) instance;
+        return result;
+    }
+
+    void bindTo(
+            UriTemplateVariables variables,
+            Object target
+    ) {
+        for (Binding binding : bindings) {
+            int index = variables.indexOf(binding.variable);
+            if (index < 0 || variables.getStart(index) < 0) {
+                if (binding.required) {
+                    throw new ParameterBindingException(binding.variable,
+                            "The match has no value for the variable '"
+                                    + binding.variable + "'");
+                }
+                continue;
+            }
+            try {
+                binding.bind(target, variables, index);
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new RuntimeException(e);
+            }
+        }
+    }
+
+    private static Binding binding(
+            Field field,
+            UriVariable annotation
+    ) {
+        int modifiers = field.getModifiers();
+        if (Modifier.isStatic(modifiers) || Modifier.isFinal(modifiers)) {
+            throw new IllegalArgumentException("Field " + field
+                    + " annotated with @UriVariable must not be static or final");
+        }
+        String variable = annotation.value().isEmpty() ? field.getName()
+                : annotation.value();
+        field.setAccessible(true);
+        MethodHandle setter;
+        try {
+            setter = MethodHandles.lookup().unreflectSetter(field);
+        } catch (IllegalAccessException e) {
+            throw new IllegalArgumentException(
+                    "Field " + field + " is not accessible", e);
+        }
+        Class<?> fieldType = field.getType();
+        boolean required = annotation.required();
+        if (fieldType == int.class) {
+            return new IntBinding(variable, required, setter.asType(
+                    MethodType.methodType(void.class, Object.class, int.class)));
+        }
+        if (fieldType == long.class) {
+            return new LongBinding(variable, required,
+                    setter.asType(MethodType.methodType(void.class,
+                            Object.class, long.class)));
+        }
+        setter = setter.asType(OBJECT_SETTER);
+        if (fieldType == Integer.class) {
+            return new ObjectBinding(variable, required, setter,
+                    ObjectBinding.INTEGER);
+        }
+        if (fieldType == Long.class) {
+            return new ObjectBinding(variable, required, setter,
+                    ObjectBinding.LONG);
+        }
+        if (fieldType == UUID.class) {
+            return new ObjectBinding(variable, required, setter,
+                    ObjectBinding.UUID);
+        }
+        if (fieldType == String.class) {
+            return new ObjectBinding(variable, required, setter,
+                    ObjectBinding.STRING);
+        }
+        throw new IllegalArgumentException("Field " + field
+                + " annotated with @UriVariable has an unsupported type");
+    }
+
+    /**
+     * Parse a decimal number in the given range, like {@link Long#parseLong(String)} does.
+     */
+    static long parseLong(
+            String variable,
+            CharSequence source,
+            int start,
+            int end,
+            long min,
+            long max,
+            String typeName
+    ) {
+        int i = start;
+        boolean negative = false;
+        if (i < end && (source.charAt(i) == '-' || source.charAt(i) == '+')) {
+            negative = source.charAt(i) == '-';
+            i++;
+        }
+        if (i == end) {
+            throw invalid(variable, source, start, end, typeName);
+        }
+        // accumulate negatively, as the negative range is the larger one
+        long limit = negative ? min : -max;
+        long multiplicationLimit = limit / 10;
+        long result = 0;
+        for (; i < end; i++) {
+            int digit = source.charAt(i) - '0';
+            if (digit < 0 || digit > 9 || result < multiplicationLimit) {
+                throw invalid(variable, source, start, end, typeName);
+            }
+            result *= 10;
+            if (result < limit + digit) {
+                throw invalid(variable, source, start, end, typeName);
+            }
+            result -= digit;
+        }
+        return negative ? result : -result;
+    }
+
+    /**
+     * Parse a UUID in its canonical form of 36 characters.
+     */
+    static UUID parseUuid(
+            String variable,
+            CharSequence source,
+            int start,
+            int end
+    ) {
+        if (end - start != 36 || source.charAt(start + 8) != '-'
+                || source.charAt(start + 13) != '-'
+                || source.charAt(start + 18) != '-'
+                || source.charAt(start + 23) != '-') {
+            throw invalid(variable, source, start, end, "UUID");
+        }
+        long high = hex(variable, source, start, start, start + 8, end) << 32
+                | hex(variable, source, start, start + 9, start + 13, end) << 16
+                | hex(variable, source, start, start + 14, start + 18, end);
+        long low = hex(variable, source, start, start + 19, start + 23,
+                end) << 48
+                | hex(variable, source, start, start + 24, start + 36, end);
+        return new UUID(high, low);
+    }
+
+    private static long hex(
+            String variable,
+            CharSequence source,
+            int valueStart,
+            int from,
+            int to,
+            int valueEnd
+    ) {
+        long result = 0;
+        for (int i = from; i < to; i++) {
+            int digit = Character.digit(source.charAt(i), 16);
+            if (digit < 0) {
+                throw invalid(variable, source, valueStart, valueEnd, "UUID");
+            }
+            result = result << 4 | digit;
+        }
+        return result;
+    }
+
+    private static ParameterBindingException invalid(
+            String variable,
+            CharSequence source,
+            int start,
+            int end,
+            String typeName
+    ) {
+        return new ParameterBindingException(variable,
+                "Value '" + source.subSequence(start, end) + "' of variable '"
+                        + variable + "' is not a valid " + typeName);
+    }
+
+    private abstract static class Binding {
+
+        final String variable;
+        final boolean required;
+        final MethodHandle setter;
+
+        Binding(
+                String variable,
+                boolean required,
+                MethodHandle setter
+        ) {
+            this.variable = variable;
+            this.required = required;
+            this.setter = setter;
+        }
+
+        abstract void bind(
+                Object target,
+                UriTemplateVariables variables,
+                int index
+        ) throws Throwable;
+    }
+
+    private static final class IntBinding extends Binding {
+
+        IntBinding(
+                String variable,
+                boolean required,
+                MethodHandle setter
+        ) {
+            super(variable, required, setter);
+        }
+
+        @Override
+        void bind(
+                Object target,
+                UriTemplateVariables variables,
+                int index
+        ) throws Throwable {
+            int value = (int) parseLong(variable, variables.getSource(),
+                    variables.getStart(index), variables.getEnd(index),
+                    Integer.MIN_VALUE, Integer.MAX_VALUE, "int");
+            setter.invokeExact(target, value);
+        }
+    }
+
+    private static final class LongBinding extends Binding {
+
+        LongBinding(
+                String variable,
+                boolean required,
+                MethodHandle setter
+        ) {
+            super(variable, required, setter);
+        }
+
+        @Override
+        void bind(
+                Object target,
+                UriTemplateVariables variables,
+                int index
+        ) throws Throwable {
+            long value = parseLong(variable, variables.getSource(),
+                    variables.getStart(index), variables.getEnd(index),
+                    Long.MIN_VALUE, Long.MAX_VALUE, "long");
+            setter.invokeExact(target, value);
+        }
+    }
+
+    private static final class ObjectBinding extends Binding {
+
+        static final int INTEGER = 0;
+        static final int LONG = 1;
+        static final int UUID = 2;
+        static final int STRING = 3;
+
+        private final int kind;
+
+        ObjectBinding(
+                String variable,
+                boolean required,
+                MethodHandle setter,
+                int kind
+        ) {
+            super(variable, required, setter);
+            this.kind = kind;
+        }
+
+        @Override
+        void bind(
+                Object target,
+                UriTemplateVariables variables,
+                int index
+        ) throws Throwable {
+            CharSequence source = variables.getSource();
+            int start = variables.getStart(index);
+            int end = variables.getEnd(index);
+            Object value;
+            switch (kind) {
+            case INTEGER:
+                value = Integer.valueOf((int) parseLong(variable, source,
+                        start, end, Integer.MIN_VALUE, Integer.MAX_VALUE,
+                        "int"));
+                break;
+            case LONG:
+                value = Long.valueOf(parseLong(variable, source, start, end,
+                        Long.MIN_VALUE, Long.MAX_VALUE, "long"));
+                break;
+            case UUID:
+                value = parseUuid(variable, source, start, end);
+                break;
+            default:
+                value = variables.getDecodedValue(index);
+                break;
+            }
+            setter.invokeExact(target, value);
+        }
+    }
+
+}
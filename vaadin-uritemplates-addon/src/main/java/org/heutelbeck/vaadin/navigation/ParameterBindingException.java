@@ -0,0 +1,38 @@
+package org.heutelbeck.vaadin.navigation;
+
+/**
+ * Thrown if a variable of a navigation state cannot be bound to a field annotated with {@link UriVariable}, e.g. as
+ * {@code apples/abc} does not yield an {@code int}. When binding the fields of a view fails, the
+ * {@link UriTemplateNavigator} shows the view of its error provider instead, or throws this exception if there is none.
+ */
+@SuppressWarnings("serial")
+public class ParameterBindingException extends IllegalArgumentException {
+
+    private final String variable;
+
+    /**
+     * Create a new exception.
+     *
+     * @param variable
+     *            the name of the variable
+     * @param message
+     *            the detail message
+     */
+    public ParameterBindingException(
+            String variable,
+            String message
+    ) {
+        super(message);
+        this.variable = variable;
+    }
+
+    /**
+     * Get the name of the variable which could not be bound.
+     *
+     * @return the name
+     */
+    public String getVariable() {
+        return variable;
+    }
+
+}
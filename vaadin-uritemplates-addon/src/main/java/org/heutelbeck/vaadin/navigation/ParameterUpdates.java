@@ -0,0 +1,96 @@
+package org.heutelbeck.vaadin.navigation;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Objects;
+import java.util.Set;
+
+import com.vaadin.navigator.View;
+
+/**
+ * Lets the current view of a navigator update itself to another state of its route, see {@link ParameterAwareView}.
+ * The navigator asks {@link #canUpdate(View, UriTemplateMatch, UriTemplateMatch)} before the listeners and
+ * {@link #update(ParameterAwareView, UriTemplateMatch, UriTemplateMatch)} once they approved the change. Used while the
+ * session is locked.
+ */
+@SuppressWarnings("serial")
+final class ParameterUpdates implements Serializable {
+
+    private final NestedViews nestedViews;
+    private final ViewPreparation preparation;
+
+    ParameterUpdates(
+            NestedViews nestedViews,
+            ViewPreparation preparation
+    ) {
+        this.nestedViews = nestedViews;
+        this.preparation = preparation;
+    }
+
+    /**
+     * Check whether the current view may be updated in place to another state of its route: the view is a
+     * {@link ParameterAwareView}, both states are matched by the same route, no other view is being prepared and the
+     * shown parent views stay the same.
+     *
+     * @param view
+     *            the current view
+     * @param oldMatch
+     *            the match of the state the view shows
+     * @param match
+     *            the match of the new state
+     */
+    boolean canUpdate(
+            View view,
+            UriTemplateMatch oldMatch,
+            UriTemplateMatch match
+    ) {
+        return view instanceof ParameterAwareView && oldMatch != null
+                && !preparation.isPreparing()
+                && oldMatch.getProvider() == match.getProvider()
+                && oldMatch.getViewName().equals(match.getViewName())
+                && nestedViews.isShownParentOf(match);
+    }
+
+    /**
+     * Ask the view to update itself to the new state and bind the new variables to its fields once it did.
+     *
+     * @return true if the view was updated, false if it declined the change or the variables cannot be bound, so that
+     *         the full view change follows
+     */
+    boolean update(
+            ParameterAwareView view,
+            UriTemplateMatch oldMatch,
+            UriTemplateMatch match
+    ) {
+        Set<String> changed = changedVariables(oldMatch.getVariables(),
+                match.getVariables());
+        if (!view.parametersChanged(oldMatch, match, changed)) {
+            return false;
+        }
+        try {
+            UriTemplateNavigator.bindParameters(view, match);
+        } catch (ParameterBindingException e) {
+            // the full view change shows the error view
+            return false;
+        }
+        return true;
+    }
+
+    private static Set<String> changedVariables(
+            UriTemplateVariables oldVariables,
+            UriTemplateVariables newVariables
+    ) {
+        Set<String> changed = new LinkedHashSet<String>();
+        for (int i = 0; i < newVariables.size(); i++) {
+            String name = newVariables.getName(i);
+            int index = oldVariables.indexOf(name);
+            if (index < 0 || !Objects.equals(oldVariables.getValue(index),
+                    newVariables.getValue(i))) {
+                changed.add(name);
+            }
+        }
+        return Collections.unmodifiableSet(changed);
+    }
+
+}
@@ -0,0 +1,42 @@
+package org.heutelbeck.vaadin.navigation;
+
+import com.vaadin.navigator.View;
+
+/**
+ * A view containing the views of its child routes in an outlet, e.g. an apple showing one of its cores below the
+ * details of the apple:
+ *
+ * <pre>
+ * RouteTable.builder()
+ *         .addView(Apple.NAME, Apple.class)
+ *         .addView(Core.NAME, Core.class)
+ *         .parent(Core.NAME, Apple.NAME)
+ *         ...
+ * </pre>
+ *
+ * When navigating to a child route, the {@link UriTemplateNavigator} shows the view of the parent route in its display
+ * and the child view in the outlet of the parent. The state of the parent is the template of the parent route
+ * expanded with the variables of the child, e.g. {@code apples/1} for {@code apples/1/cores/2}. As long as the state
+ * of the parent stays the same, navigating between its children keeps the parent instance and only the outlet is
+ * changed. Navigating to the state of the parent itself shows the kept instance with an empty outlet.
+ * <p>
+ * A parent view is entered once, when it is created for its state, and is not involved in the view changes between
+ * its children. Routes may be nested to any depth.
+ *
+ * @see UriTemplateNavigator#setParentRoute(String, String)
+ * @see RouteTable.Builder#parent(String, String)
+ */
+public interface ParentView extends View {
+
+    /**
+     * Show a child view in the outlet of this view, replacing the child shown before. Called while the session is
+     * locked, before the child is entered.
+     *
+     * @param child
+     *            the view to show, whose component is {@link View#getViewComponent()}, or null to empty the outlet
+     */
+    void showChildView(
+            View child
+    );
+
+}
@@ -0,0 +1,81 @@
+package org.heutelbeck.vaadin.navigation;
+
+import java.io.Serializable;
+
+import com.vaadin.navigator.View;
+
+/**
+ * Prepares the likely navigations of a navigator, see {@link UriTemplateNavigator#prefetch(String)}, and learns them
+ * with a {@link TransitionPredictor}, see {@link UriTemplateNavigator#setTransitionPredictor(TransitionPredictor)}.
+ * Used while the session is locked.
+ */
+@SuppressWarnings("serial")
+final class Prefetching implements Serializable {
+
+    private final UriTemplateNavigator navigator;
+    private final RetainedViews retainedViews;
+    private transient TransitionPredictor predictor;
+    private String previousTemplate;
+
+    Prefetching(
+            UriTemplateNavigator navigator,
+            RetainedViews retainedViews
+    ) {
+        this.navigator = navigator;
+        this.retainedViews = retainedViews;
+    }
+
+    TransitionPredictor getPredictor() {
+        return predictor;
+    }
+
+    void setPredictor(
+            TransitionPredictor predictor
+    ) {
+        this.predictor = predictor;
+        previousTemplate = null;
+    }
+
+    /**
+     * Create the view of a match ahead of the navigation, if it is created once and kept: a view created on first
+     * request, or a view of a route retaining its views, unless a view is retained for the state already.
+     */
+    void prefetch(
+            UriTemplateMatch match
+    ) {
+        if (match.getProvider() instanceof LazyUriTemplateViewProvider) {
+            RetainedViews.createView(match);
+        } else if (retainedViews.isRetained(match.getViewName())) {
+            // a view in use for another state is not taken for a guess
+            View view = retainedViews.getView(match, false);
+            if (view != null) {
+                retainedViews.retain(match, view);
+            }
+        }
+    }
+
+    /**
+     * Learn a completed navigation and prefetch the most likely next template, if it has no variables.
+     *
+     * @param template
+     *            the template of the route navigated to, null for the error view
+     */
+    void navigated(
+            String template
+    ) {
+        TransitionPredictor predictor = this.predictor;
+        if (predictor == null) {
+            return;
+        }
+        if (previousTemplate != null && template != null) {
+            predictor.record(previousTemplate, template);
+        }
+        previousTemplate = template;
+        String next = template == null ? null : predictor.predict(template);
+        // only a template without variables is a navigation state of its own
+        if (next != null && next.indexOf('{') < 0 && !next.equals(template)) {
+            navigator.prefetch(next);
+        }
+    }
+
+}
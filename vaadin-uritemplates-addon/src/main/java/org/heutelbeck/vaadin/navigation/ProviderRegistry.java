@@ -0,0 +1,138 @@
+package org.heutelbeck.vaadin.navigation;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import com.vaadin.navigator.ViewProvider;
+
+/**
+ * Copy on write registry of the providers of a navigator.
+ * <p>
+ * The registered providers are held in an immutable {@link Snapshot}. Every change copies the providers into a new
+ * snapshot, which replaces the current one in a single volatile write. Readers never lock and always see a complete
+ * set of providers, even while another thread registers routes. Changes are serialized by the registry.
+ */
+@SuppressWarnings("serial")
+final class ProviderRegistry implements Serializable {
+
+    private volatile Snapshot snapshot = new Snapshot(
+            Collections.<UriTemplateViewProvider> emptyList());
+
+    /**
+     * Get the current providers.
+     *
+     * @return the snapshot, never modified
+     */
+    Snapshot snapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Remove the views registered for the given names and add the given providers in one change.
+     *
+     * @param viewNames
+     *            names of the views registered with {@link UriTemplateNavigator#addView} to remove
+     * @param added
+     *            providers to add in order
+     * @return true if the providers changed
+     */
+    synchronized boolean replace(
+            Collection<String> viewNames,
+            List<UriTemplateViewProvider> added
+    ) {
+        List<UriTemplateViewProvider> current = snapshot.providers;
+        List<UriTemplateViewProvider> next = new ArrayList<UriTemplateViewProvider>(
+                current.size() + added.size());
+        for (UriTemplateViewProvider provider : current) {
+            if (!isViewOf(provider, viewNames)) {
+                next.add(provider);
+            }
+        }
+        if (next.size() == current.size() && added.isEmpty()) {
+            return false;
+        }
+        next.addAll(added);
+        snapshot = new Snapshot(next);
+        return true;
+    }
+
+    /**
+     * Remove a provider.
+     *
+     * @param provider
+     *            the provider to remove
+     * @return true if the provider was registered
+     */
+    synchronized boolean remove(
+            ViewProvider provider
+    ) {
+        List<UriTemplateViewProvider> next = new ArrayList<UriTemplateViewProvider>(
+                snapshot.providers);
+        if (!next.remove(provider)) {
+            return false;
+        }
+        snapshot = new Snapshot(next);
+        return true;
+    }
+
+    private static boolean isViewOf(
+            UriTemplateViewProvider provider,
+            Collection<String> viewNames
+    ) {
+        if (provider instanceof StaticUriTemplateViewProvider
+                || provider instanceof ClassBasedUriTemplateViewProvider
+                || provider instanceof LazyUriTemplateViewProvider) {
+            return viewNames.contains(((AbstractUriTemplateViewProvider) provider)
+                    .getViewName());
+        }
+        return false;
+    }
+
+    /**
+     * An immutable list of providers and the routing trie compiled from them.
+     */
+    static final class Snapshot implements Serializable {
+
+        private final List<UriTemplateViewProvider> providers;
+        private transient volatile UriTemplateRouter router;
+        private transient volatile ReverseRoutes reverseRoutes;
+
+        private Snapshot(
+                List<UriTemplateViewProvider> providers
+        ) {
+            this.providers = Collections.unmodifiableList(providers);
+        }
+
+        List<UriTemplateViewProvider> getProviders() {
+            return providers;
+        }
+
+        /**
+         * Match a navigation state against the providers of this snapshot. The router is compiled on first use. Two
+         * threads may compile it concurrently, which yields equal routers.
+         */
+        UriTemplateMatch match(
+                String state
+        ) {
+            UriTemplateRouter router = this.router;
+            if (router == null) {
+                router = new UriTemplateRouter(providers);
+                this.router = router;
+            }
+            return router.match(state);
+        }
+
+        ReverseRoutes reverseRoutes() {
+            ReverseRoutes reverseRoutes = this.reverseRoutes;
+            if (reverseRoutes == null) {
+                reverseRoutes = new ReverseRoutes(providers);
+                this.reverseRoutes = reverseRoutes;
+            }
+            return reverseRoutes;
+        }
+    }
+
+}
@@ -0,0 +1,286 @@
+package org.heutelbeck.vaadin.navigation;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The read only parameters of the query part of a navigation state, like {@code sort=name&page=3} in
+ * {@code apples?sort=name&page=3}.
+ * <p>
+ * The query is parsed on first access, in a single pass, into two arrays of names and values in order of appearance.
+ * A name may occur more than once. Names and values are percent decoded and {@code +} is decoded to a space. A
+ * parameter without {@code =} has an empty value.
+ */
+@SuppressWarnings("serial")
+public final class QueryParameters implements Serializable {
+
+    /**
+     * Parameters of a navigation state without query.
+     */
+    public static final QueryParameters EMPTY = new QueryParameters("");
+
+    private static final String[] NONE = new String[0];
+
+    private final String query;
+    private transient volatile Parsed parsed;
+
+    private QueryParameters(
+            String query
+    ) {
+        this.query = query;
+    }
+
+    /**
+     * Get the parameters of the query part of a navigation state.
+     *
+     * @param navigationState
+     *            the navigation state
+     * @return the parameters, {@link #EMPTY} if the state has no query
+     */
+    public static QueryParameters of(
+            String navigationState
+    ) {
+        int start = navigationState.indexOf('?');
+        if (start < 0 || start == navigationState.length() - 1) {
+            return EMPTY;
+        }
+        return new QueryParameters(navigationState.substring(start + 1));
+    }
+
+    /**
+     * Get the path of a navigation state, i.e. the state without its query part.
+     *
+     * @param navigationState
+     *            the navigation state
+     * @return the path, the navigation state itself if it has no query
+     */
+    public static String pathOf(
+            String navigationState
+    ) {
+        int start = navigationState.indexOf('?');
+        return start < 0 ? navigationState
+                : navigationState.substring(0, start);
+    }
+
+    /**
+     * Get the raw query, without the leading {@code ?}.
+     *
+     * @return the query, empty if there is none
+     */
+    public String getQueryString() {
+        return query;
+    }
+
+    /**
+     * Check whether there are no parameters.
+     *
+     * @return true if the query is empty
+     */
+    public boolean isEmpty() {
+        return query.isEmpty();
+    }
+
+    /**
+     * Get the number of parameters, including repeated names.
+     *
+     * @return the number of parameters
+     */
+    public int size() {
+        return parsed().names.length;
+    }
+
+    /**
+     * Get the name of a parameter.
+     *
+     * @param index
+     *            index of the parameter in the query
+     * @return the decoded name
+     */
+    public String getName(
+            int index
+    ) {
+        return parsed().names[index];
+    }
+
+    /**
+     * Get the value of a parameter.
+     *
+     * @param index
+     *            index of the parameter in the query
+     * @return the decoded value
+     */
+    public String getValue(
+            int index
+    ) {
+        return parsed().values[index];
+    }
+
+    /**
+     * Get the first value of a parameter.
+     *
+     * @param name
+     *            name of the parameter
+     * @return the decoded value or null if there is no such parameter
+     */
+    public String get(
+            String name
+    ) {
+        Parsed p = parsed();
+        for (int i = 0; i < p.names.length; i++) {
+            if (p.names[i].equals(name)) {
+                return p.values[i];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Get all values of a parameter.
+     *
+     * @param name
+     *            name of the parameter
+     * @return the decoded values in order of appearance, empty if there is no such parameter
+     */
+    public List<String> getAll(
+            String name
+    ) {
+        Parsed p = parsed();
+        List<String> result = null;
+        for (int i = 0; i < p.names.length; i++) {
+            if (p.names[i].equals(name)) {
+                if (result == null) {
+                    result = new ArrayList<String>(1);
+                }
+                result.add(p.values[i]);
+            }
+        }
+        return result == null ? Collections.<String> emptyList()
+                : Collections.unmodifiableList(result);
+    }
+
+    /**
+     * Get the distinct names of the parameters.
+     *
+     * @return the names in order of first appearance
+     */
+    public Set<String> getNames() {
+        Parsed p = parsed();
+        Set<String> names = new LinkedHashSet<String>();
+        Collections.addAll(names, p.names);
+        return Collections.unmodifiableSet(names);
+    }
+
+    /**
+     * Copy the parameters into a new map.
+     *
+     * @return map of names to values, in order of first appearance
+     */
+    public Map<String, List<String>> toMap() {
+        Parsed p = parsed();
+        Map<String, List<String>> result = new LinkedHashMap<String, List<String>>();
+        for (int i = 0; i < p.names.length; i++) {
+            List<String> values = result.get(p.names[i]);
+            if (values == null) {
+                values = new ArrayList<String>(1);
+                result.put(p.names[i], values);
+            }
+            values.add(p.values[i]);
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return query;
+    }
+
+    private Parsed parsed() {
+        Parsed result = parsed;
+        if (result == null) {
+            // parsing twice in concurrent calls yields equal results
+            result = parse(query);
+            parsed = result;
+        }
+        return result;
+    }
+
+    private static Parsed parse(
+            String query
+    ) {
+        if (query.isEmpty()) {
+            return new Parsed(NONE, NONE);
+        }
+        int count = 1;
+        for (int i = 0; i < query.length(); i++) {
+            if (query.charAt(i) == '&') {
+                count++;
+            }
+        }
+        String[] names = new String[count];
+        String[] values = new String[count];
+        int size = 0;
+        int start = 0;
+        int equals = -1;
+        for (int i = 0; i <= query.length(); i++) {
+            char c = i < query.length() ? query.charAt(i) : '&';
+            if (c == '=' && equals < 0) {
+                equals = i;
+            } else if (c == '&') {
+                if (i > start) {
+                    int nameEnd = equals < 0 ? i : equals;
+                    names[size] = decode(query, start, nameEnd);
+                    values[size] = equals < 0 ? ""
+                            : decode(query, equals + 1, i);
+                    size++;
+                }
+                start = i + 1;
+                equals = -1;
+            }
+        }
+        if (size < count) {
+            // empty parameters like "a=1&&b=2"
+            String[] trimmedNames = new String[size];
+            String[] trimmedValues = new String[size];
+            System.arraycopy(names, 0, trimmedNames, 0, size);
+            System.arraycopy(values, 0, trimmedValues, 0, size);
+            names = trimmedNames;
+            values = trimmedValues;
+        }
+        return new Parsed(names, values);
+    }
+
+    private static String decode(
+            String query,
+            int start,
+            int end
+    ) {
+        for (int i = start; i < end; i++) {
+            if (query.charAt(i) == '+') {
+                // before decoding, an encoded plus stays a plus
+                String spaced = query.substring(start, end).replace('+', ' ');
+                return UriEncoding.decode(spaced, 0, spaced.length());
+            }
+        }
+        return UriEncoding.decode(query, start, end);
+    }
+
+    private static final class Parsed {
+        private final String[] names;
+        private final String[] values;
+
+        private Parsed(
+                String[] names,
+                String[] values
+        ) {
+            this.names = names;
+            this.values = values;
+        }
+    }
+
+}
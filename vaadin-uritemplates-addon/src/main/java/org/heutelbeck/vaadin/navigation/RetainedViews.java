@@ -0,0 +1,216 @@
+package org.heutelbeck.vaadin.navigation;
+
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.Map;
+
+import com.vaadin.navigator.View;
+import com.vaadin.navigator.ViewProvider;
+
+/**
+ * The views retained by a navigator according to the {@link ViewRetentionPolicy} of their route, pooled per template.
+ * The navigator gets the views of all matched routes through {@link #getView(UriTemplateMatch, boolean)}, which does
+ * not change the pools, and retains the view of a completed navigation with {@link #retain(UriTemplateMatch, View)},
+ * so that a vetoed navigation neither claims a view nor evicts one. Views are only created and entered while the
+ * session is locked, but routes may be removed from any thread, so access to the pools is synchronized.
+ */
+@SuppressWarnings("serial")
+final class RetainedViews implements Serializable {
+
+    private final Map<String, ViewRetentionPolicy> policies = new HashMap<String, ViewRetentionPolicy>();
+    // least recently used first
+    private final Map<String, LinkedList<Retained>> views = new HashMap<String, LinkedList<Retained>>();
+
+    /**
+     * Get the view of a match. If the route retains its views, a retained view is reused, see
+     * {@link #get(String, String, long, boolean)}, otherwise the provider creates the view. The pools are not changed
+     * until the view is retained.
+     *
+     * @param reuse
+     *            whether a view last used for another state may be reused
+     * @return the view or null if the provider returns none
+     */
+    View getView(
+            UriTemplateMatch match,
+            boolean reuse
+    ) {
+        String template = match.getViewName();
+        View view = null;
+        if (isRetained(template)) {
+            // states differing only in their query prefer the same retained view
+            view = get(template, match.getPath(), System.currentTimeMillis(),
+                    reuse);
+        }
+        return view == null ? createView(match) : view;
+    }
+
+    /**
+     * Retain the view of a completed navigation for its state, if its route retains views: the view becomes the most
+     * recently used one of its pool, and a view which is not yet retained is added to the pool.
+     */
+    void retain(
+            UriTemplateMatch match,
+            View view
+    ) {
+        String template = match.getViewName();
+        if (isRetained(template)) {
+            put(template, match.getPath(), view, System.currentTimeMillis());
+        }
+    }
+
+    /**
+     * Get a new view of a match from its provider, passing the match to a {@link UriTemplateViewProvider}.
+     */
+    static View createView(
+            UriTemplateMatch match
+    ) {
+        ViewProvider provider = match.getProvider();
+        if (provider instanceof UriTemplateViewProvider) {
+            return ((UriTemplateViewProvider) provider).getView(match);
+        }
+        return provider.getView(match.getViewName());
+    }
+
+    synchronized boolean isRetained(
+            String template
+    ) {
+        return policies.containsKey(template);
+    }
+
+    synchronized ViewRetentionPolicy getPolicy(
+            String template
+    ) {
+        return policies.get(template);
+    }
+
+    synchronized void setPolicy(
+            String template,
+            ViewRetentionPolicy policy
+    ) {
+        if (policy == null) {
+            policies.remove(template);
+            views.remove(template);
+        } else {
+            policies.put(template, policy);
+            LinkedList<Retained> retained = views.get(template);
+            if (retained != null) {
+                evict(retained, policy, System.currentTimeMillis());
+            }
+        }
+    }
+
+    /**
+     * Get a retained view of the template for a navigation state. The view last used for the state is preferred.
+     * Otherwise, once the pool of the template is full, the least recently used view is to be reused for the state.
+     * Expired views are evicted, the other views are left as they are.
+     *
+     * @param reuse
+     *            whether a view last used for another state may be reused
+     * @return the view or null if a new view is to be created
+     */
+    synchronized View get(
+            String template,
+            String state,
+            long now,
+            boolean reuse
+    ) {
+        LinkedList<Retained> retained = views.get(template);
+        if (retained == null) {
+            return null;
+        }
+        ViewRetentionPolicy policy = policies.get(template);
+        evict(retained, policy, now);
+        Retained entry = null;
+        for (Retained candidate : retained) {
+            if (candidate.state.equals(state)) {
+                entry = candidate;
+                break;
+            }
+        }
+        if (entry == null) {
+            if (!reuse || retained.size() < policy.getMaxInstances()) {
+                return null;
+            }
+            entry = retained.getFirst();
+        }
+        return entry.view;
+    }
+
+    /**
+     * Mark a view as used for a navigation state, adding it to the pool of the template if it is not retained yet.
+     */
+    synchronized void put(
+            String template,
+            String state,
+            View view,
+            long now
+    ) {
+        ViewRetentionPolicy policy = policies.get(template);
+        if (policy == null) {
+            return;
+        }
+        LinkedList<Retained> retained = views.get(template);
+        if (retained == null) {
+            retained = new LinkedList<Retained>();
+            views.put(template, retained);
+        }
+        Retained entry = null;
+        for (Iterator<Retained> it = retained.iterator(); it.hasNext();) {
+            Retained candidate = it.next();
+            if (candidate.view == view) {
+                it.remove();
+                entry = candidate;
+                break;
+            }
+        }
+        if (entry == null) {
+            entry = new Retained(view);
+        }
+        entry.state = state;
+        entry.lastUsed = now;
+        retained.addLast(entry);
+        evict(retained, policy, now);
+    }
+
+    synchronized void remove(
+            String template
+    ) {
+        views.remove(template);
+    }
+
+    synchronized void clear() {
+        views.clear();
+    }
+
+    private static void evict(
+            LinkedList<Retained> retained,
+            ViewRetentionPolicy policy,
+            long now
+    ) {
+        int excess = retained.size() - policy.getMaxInstances();
+        Iterator<Retained> it = retained.iterator();
+        while (it.hasNext()) {
+            Retained entry = it.next();
+            if (excess > 0 || policy.isExpired(entry.lastUsed, now)) {
+                it.remove();
+                excess--;
+            }
+        }
+    }
+
+    private static final class Retained implements Serializable {
+        private final View view;
+        // the state the view was last used for
+        private String state;
+        private long lastUsed;
+
+        private Retained(
+                View view
+        ) {
+            this.view = view;
+        }
+    }
+
+}
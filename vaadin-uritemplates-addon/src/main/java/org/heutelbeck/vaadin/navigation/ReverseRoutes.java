@@ -0,0 +1,148 @@
+package org.heutelbeck.vaadin.navigation;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.vaadin.navigator.View;
+
+/**
+ * The templates of a list of providers by view class, for creating navigation states from variable values. Providers
+ * which do not tell the class of their views, like custom providers or lazy providers without a view class, cannot be
+ * looked up and are only remembered by view name.
+ */
+@SuppressWarnings("serial")
+final class ReverseRoutes implements Serializable {
+
+    private final Map<Class<?>, List<Route>> routes = new HashMap<Class<?>, List<Route>>();
+    private final List<String> unknownViewNames = new ArrayList<String>();
+
+    ReverseRoutes(
+            List<? extends UriTemplateViewProvider> providers
+    ) {
+        for (UriTemplateViewProvider provider : providers) {
+            Class<?> viewClass = viewClassOf(provider);
+            if (viewClass != null) {
+                List<Route> list = routes.get(viewClass);
+                if (list == null) {
+                    list = new ArrayList<Route>(1);
+                    routes.put(viewClass, list);
+                }
+                list.add(new Route((AbstractUriTemplateViewProvider) provider));
+            } else {
+                unknownViewNames.add(
+                        provider instanceof AbstractUriTemplateViewProvider
+                                ? ((AbstractUriTemplateViewProvider) provider)
+                                        .getViewName()
+                                : provider.getClass().getName());
+            }
+        }
+    }
+
+    private static Class<?> viewClassOf(
+            UriTemplateViewProvider provider
+    ) {
+        if (provider instanceof ClassBasedUriTemplateViewProvider) {
+            return ((ClassBasedUriTemplateViewProvider) provider)
+                    .getViewClass();
+        }
+        if (provider instanceof LazyUriTemplateViewProvider) {
+            return ((LazyUriTemplateViewProvider) provider).getViewClass();
+        }
+        if (provider instanceof StaticUriTemplateViewProvider) {
+            StaticUriTemplateViewProvider staticProvider = (StaticUriTemplateViewProvider) provider;
+            return staticProvider.getView(staticProvider.getViewName())
+                    .getClass();
+        }
+        return null;
+    }
+
+    /**
+     * Get the view names of the providers whose view class is unknown, or their class names if they have no view name.
+     *
+     * @return the view names, in registration order
+     */
+    List<String> getUnknownViewNames() {
+        return unknownViewNames;
+    }
+
+    /**
+     * Create the navigation state of a view. If several templates are registered for the view class, the first one
+     * using exactly the given variables is expanded, otherwise the first one for which all variables are given.
+     *
+     * @return the navigation state or null if no template is registered for the view class
+     * @throws IllegalArgumentException
+     *             if no template of the view class can be expanded with the given values
+     */
+    String uriFor(
+            Class<? extends View> viewClass,
+            Map<String, ?> values
+    ) {
+        List<Route> candidates = routes.get(viewClass);
+        if (candidates == null) {
+            return null;
+        }
+        Route fallback = null;
+        for (Route candidate : candidates) {
+            int fit = candidate.fit(values);
+            if (fit > 0) {
+                return candidate.expand(values);
+            }
+            if (fit == 0 && fallback == null) {
+                fallback = candidate;
+            }
+        }
+        if (fallback == null) {
+            throw new IllegalArgumentException(
+                    "No template of " + viewClass.getName()
+                            + " has the variables " + values.keySet());
+        }
+        return fallback.expand(values);
+    }
+
+    private static final class Route implements Serializable {
+        private final AbstractUriTemplateViewProvider provider;
+        private final String[] names;
+
+        private Route(
+                AbstractUriTemplateViewProvider provider
+        ) {
+            this.provider = provider;
+            Set<String> distinct = new LinkedHashSet<String>();
+            CompiledUriTemplate template = provider.getTemplate();
+            for (int i = 0; template != null
+                    && i < template.getVariableCount(); i++) {
+                distinct.add(template.getVariableName(i));
+            }
+            this.names = distinct.toArray(new String[distinct.size()]);
+        }
+
+        /**
+         * @return 1 if the template uses exactly the given variables, 0 if it uses some of them, -1 if a value is
+         *         missing
+         */
+        private int fit(
+                Map<String, ?> values
+        ) {
+            for (String name : names) {
+                if (values.get(name) == null) {
+                    return -1;
+                }
+            }
+            return names.length == values.size() ? 1 : 0;
+        }
+
+        private String expand(
+                Map<String, ?> values
+        ) {
+            CompiledUriTemplate template = provider.getTemplate();
+            return template == null ? provider.getViewName()
+                    : template.expand(values);
+        }
+    }
+
+}
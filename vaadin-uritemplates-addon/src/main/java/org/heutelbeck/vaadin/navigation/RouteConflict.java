@@ -0,0 +1,95 @@
+package org.heutelbeck.vaadin.navigation;
+
+import java.io.Serializable;
+
+/**
+ * Two routes which may match the same navigation state, as found by the route analysis of a {@link RouteTable} or a
+ * {@link UriTemplateNavigator}.
+ * <p>
+ * Routes are ranked by the number of path segments of their template first. Among templates of equal length, the
+ * segments are compared from left to right: a literal segment is more specific than a segment with variables
+ * constrained by regular expressions, which is more specific than a segment with a plain variable. A template match is
+ * more specific than a view name matching only a prefix of the navigation state. Only routes of equal rank are
+ * ordered by registration.
+ *
+ * @see RouteTable#getConflicts()
+ * @see UriTemplateNavigator#getRouteConflicts()
+ */
+@SuppressWarnings("serial")
+public final class RouteConflict implements Serializable {
+
+    /**
+     * The kind of a conflict.
+     */
+    public enum Kind {
+        /**
+         * The templates only differ in the names of their variables. The route registered later never matches.
+         */
+        SHADOWED,
+        /**
+         * The templates may match the same states and have the same rank, so the route registered first wins.
+         */
+        AMBIGUOUS,
+        /**
+         * The templates may match the same states, the more specific one wins.
+         */
+        OVERLAP
+    }
+
+    private final Kind kind;
+    private final String winner;
+    private final String loser;
+
+    RouteConflict(
+            Kind kind,
+            String winner,
+            String loser
+    ) {
+        this.kind = kind;
+        this.winner = winner;
+        this.loser = loser;
+    }
+
+    /**
+     * Get the kind of the conflict.
+     *
+     * @return the kind
+     */
+    public Kind getKind() {
+        return kind;
+    }
+
+    /**
+     * Get the template of the route taking precedence.
+     *
+     * @return the template
+     */
+    public String getWinner() {
+        return winner;
+    }
+
+    /**
+     * Get the template of the route matched only if the other route does not match.
+     *
+     * @return the template
+     */
+    public String getLoser() {
+        return loser;
+    }
+
+    @Override
+    public String toString() {
+        switch (kind) {
+        case SHADOWED:
+            return "Route '" + loser + "' is shadowed by '" + winner + "'";
+        case AMBIGUOUS:
+            return "Routes '" + winner + "' and '" + loser
+                    + "' are equally specific, '" + winner
+                    + "' wins as it was registered first";
+        default:
+            return "Routes '" + winner + "' and '" + loser
+                    + "' overlap, '" + winner + "' is more specific";
+        }
+    }
+
+}
@@ -0,0 +1,82 @@
+package org.heutelbeck.vaadin.navigation;
+
+import java.io.Serializable;
+
+import com.vaadin.server.SerializableSupplier;
+
+/**
+ * Decides whether a navigation state matched by a route may be navigated to, e.g. whether the user may see the apple
+ * with the matched {@code appleId}.
+ * <p>
+ * The {@link UriTemplateNavigator} asks the guard of a route after matching the state and before any view is created,
+ * so that a denied navigation costs no more than a navigation to an unknown state. A denied state is handled like an
+ * unknown state: the view of the error provider is shown, or the navigation fails if there is none.
+ * <p>
+ * A guard registered with a {@link RouteTable} is shared by all navigators of the application and must be thread
+ * safe. It reads the current user from the session, e.g. with {@link com.vaadin.server.VaadinSession#getCurrent()}.
+ *
+ * <pre>
+ * RouteTable.builder()
+ *         .addView(Admin.NAME, Admin.class)
+ *         .guard(Admin.NAME, RouteGuard.perTemplate(() -&gt; currentUser().isAdmin()))
+ *         ...
+ * </pre>
+ *
+ * @see UriTemplateNavigator#setRouteGuard(String, RouteGuard)
+ * @see RouteTable.Builder#guard(String, RouteGuard)
+ */
+@FunctionalInterface
+public interface RouteGuard extends Serializable {
+
+    /**
+     * Decide whether the matched state may be navigated to.
+     *
+     * @param match
+     *            the match of the state, with the extracted variables
+     * @return true to navigate, false to handle the state like an unknown one
+     */
+    boolean canNavigate(
+            UriTemplateMatch match
+    );
+
+    /**
+     * Whether the decision depends on the template only and not on the variables of the match. The guard is then asked
+     * once per template and session, and the decision is shared by the navigators of all UIs of the session until
+     * {@link UriTemplateNavigator#invalidateRouteGuardDecisions()} or
+     * {@link UriTemplateNavigator#invalidateRouteGuardDecisions(com.vaadin.server.VaadinSession)} is called, e.g. after
+     * a login or logout in any of the UIs. A navigator whose UI is not attached to a session keeps its own decisions.
+     *
+     * @return true if decisions may be cached per session and template
+     */
+    default boolean isCacheable() {
+        return false;
+    }
+
+    /**
+     * Create a guard whose decision depends on the template only, e.g. on the roles of the user, and is therefore
+     * cached per session, see {@link #isCacheable()}.
+     *
+     * @param decision
+     *            supplies whether routes of the template may be navigated to
+     * @return the guard
+     */
+    @SuppressWarnings("serial")
+    static RouteGuard perTemplate(
+            SerializableSupplier<Boolean> decision
+    ) {
+        return new RouteGuard() {
+            @Override
+            public boolean canNavigate(
+                    UriTemplateMatch match
+            ) {
+                return Boolean.TRUE.equals(decision.get());
+            }
+
+            @Override
+            public boolean isCacheable() {
+                return true;
+            }
+        };
+    }
+
+}
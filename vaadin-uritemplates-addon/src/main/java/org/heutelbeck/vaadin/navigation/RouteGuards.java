@@ -0,0 +1,128 @@
+package org.heutelbeck.vaadin.navigation;
+
+import java.io.Serializable;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.vaadin.server.VaadinSession;
+
+/**
+ * The guards a navigator set for its routes and the decisions of the cacheable guards, see {@link RouteGuard}. The
+ * decisions are kept in the session, shared by the navigators of all its UIs, or by the navigator itself as long as
+ * its UI is not attached to a session.
+ */
+@SuppressWarnings("serial")
+final class RouteGuards implements Serializable {
+
+    private static final String DECISIONS = UriTemplateNavigator.class.getName()
+            + ".guardDecisions";
+
+    private final Map<String, RouteGuard> guards = new ConcurrentHashMap<String, RouteGuard>();
+    // the decisions of cacheable guards when the UI is not attached to a session
+    private final Map<RouteGuard, Map<String, Boolean>> decisions = new ConcurrentHashMap<RouteGuard, Map<String, Boolean>>();
+
+    /**
+     * Get the guard of a template, set with the navigator, else by the route table.
+     *
+     * @param routeTable
+     *            the route table of the navigator or null
+     * @return the guard or null if the routes of the template are not guarded
+     */
+    RouteGuard get(
+            String template,
+            RouteTable routeTable
+    ) {
+        RouteGuard guard = guards.get(template);
+        if (guard == null && routeTable != null) {
+            guard = routeTable.getRouteGuard(template);
+        }
+        return guard;
+    }
+
+    void set(
+            String template,
+            RouteGuard guard
+    ) {
+        if (guard == null) {
+            guards.remove(template);
+        } else {
+            guards.put(template, guard);
+        }
+    }
+
+    /**
+     * Ask the guard of the matched route, if any, whether the state may be navigated to.
+     *
+     * @param routeTable
+     *            the route table of the navigator or null
+     * @param session
+     *            the session of the navigator or null
+     */
+    boolean canNavigate(
+            UriTemplateMatch match,
+            RouteTable routeTable,
+            VaadinSession session
+    ) {
+        String template = match.getViewName();
+        RouteGuard guard = get(template, routeTable);
+        if (guard == null) {
+            return true;
+        }
+        if (!guard.isCacheable()) {
+            return guard.canNavigate(match);
+        }
+        Map<String, Boolean> decisions = getDecisions(session).computeIfAbsent(
+                guard, g -> new ConcurrentHashMap<String, Boolean>());
+        Boolean decision = decisions.get(template);
+        if (decision == null) {
+            decision = Boolean.valueOf(guard.canNavigate(match));
+            decisions.put(template, decision);
+        }
+        return decision.booleanValue();
+    }
+
+    /**
+     * Forget the decisions of cacheable guards, of all navigators of the session if there is one.
+     */
+    void invalidate(
+            VaadinSession session
+    ) {
+        getDecisions(session).clear();
+    }
+
+    /**
+     * Forget the decisions of cacheable guards of all navigators of a session.
+     */
+    static void invalidateSession(
+            VaadinSession session
+    ) {
+        session.lock();
+        try {
+            session.setAttribute(DECISIONS, null);
+        } finally {
+            session.unlock();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<RouteGuard, Map<String, Boolean>> getDecisions(
+            VaadinSession session
+    ) {
+        if (session == null) {
+            return decisions;
+        }
+        // the lock is reentrant; holding it makes the UIs of the session share a single map
+        session.lock();
+        try {
+            Object decisions = session.getAttribute(DECISIONS);
+            if (decisions == null) {
+                decisions = new ConcurrentHashMap<RouteGuard, Map<String, Boolean>>();
+                session.setAttribute(DECISIONS, decisions);
+            }
+            return (Map<RouteGuard, Map<String, Boolean>>) decisions;
+        } finally {
+            session.unlock();
+        }
+    }
+
+}
@@ -0,0 +1,542 @@
+package org.heutelbeck.vaadin.navigation;
+
+import java.io.InvalidObjectException;
+import java.io.ObjectStreamException;
+import java.io.Serializable;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.vaadin.navigator.View;
+
+/**
+ * An immutable set of routes which can be shared by all navigators of an application.
+ * <p>
+ * The templates of a route table are compiled once when the table is built. Navigators attach to the table with
+ * {@link UriTemplateNavigator#setRouteTable(RouteTable)} instead of registering and compiling every route again for
+ * each UI. Only the view instances created for a navigation remain per UI.
+ * <p>
+ * A route table is thread safe and is typically kept in a static field:
+ *
+ * <pre>
+ * private static final RouteTable ROUTES = RouteTable.builder()
+ *         .addView(Apple.NAME, Apple.class)
+ *         .addView(Core.NAME, Core.class)
+ *         .build();
+ * </pre>
+ * <p>
+ * A table built with an id, see {@link Builder#id(Class, String)}, is serialized as its id only. On deserialization,
+ * e.g. of a replicated session, the navigators are attached to the table with the same id built in the receiving
+ * JVM, instead of each UI carrying a copy of all routes. A table without id is serialized with all its routes.
+ * <p>
+ * Routes may be guarded, see {@link Builder#guard(String, RouteGuard)}, and nested, see
+ * {@link Builder#parent(String, String)}.
+ * <p>
+ * The matches of the most recently used navigation states can be cached in the table, shared by all UIs, see
+ * {@link Builder#matchCache(int)}.
+ * <p>
+ * Shadowed and ambiguous routes are logged as warnings when the table is built, see {@link RouteConflict}.
+ */
+@SuppressWarnings("serial")
+public final class RouteTable implements Serializable {
+
+    // tables with an id by id, the table built last wins. The static field of the holder keeps a table alive, so
+    // that the table of an undeployed application does not pin its class loader.
+    private static final ConcurrentMap<String, WeakReference<RouteTable>> TABLES = new ConcurrentHashMap<String, WeakReference<RouteTable>>();
+
+    private final Class<?> holder;
+    private final String id;
+    private final List<UriTemplateViewProvider> providers;
+    private final UriTemplateRouter router;
+    private final ReverseRoutes reverseRoutes;
+    private final Map<String, RouteGuard> guards;
+    private final Map<String, CompiledUriTemplate> parents;
+    private final NavigationStateCache matchCache;
+
+    private RouteTable(
+            Class<?> holder,
+            String id,
+            List<UriTemplateViewProvider> providers,
+            Map<String, RouteGuard> guards,
+            Map<String, CompiledUriTemplate> parents,
+            int matchCacheSize
+    ) {
+        this.holder = holder;
+        this.id = id;
+        this.matchCache = matchCacheSize == 0 ? null
+                : new NavigationStateCache(matchCacheSize);
+        this.providers = Collections.unmodifiableList(
+                new ArrayList<UriTemplateViewProvider>(providers));
+        this.guards = Collections
+                .unmodifiableMap(new HashMap<String, RouteGuard>(guards));
+        this.parents = Collections.unmodifiableMap(
+                new HashMap<String, CompiledUriTemplate>(parents));
+        this.router = new UriTemplateRouter(this.providers);
+        this.reverseRoutes = new ReverseRoutes(this.providers);
+        for (RouteConflict conflict : router.analyze(false)) {
+            getLogger().log(Level.WARNING, conflict.toString());
+        }
+    }
+
+    private static void register(
+            RouteTable table
+    ) {
+        TABLES.values().removeIf(reference -> reference.get() == null);
+        TABLES.put(table.id, new WeakReference<RouteTable>(table));
+    }
+
+    /**
+     * Find the table with the given id built by the given holder, ignoring a table of another class loader.
+     */
+    private static RouteTable lookup(
+            Class<?> holder,
+            String id
+    ) {
+        WeakReference<RouteTable> reference = TABLES.get(id);
+        RouteTable table = reference == null ? null : reference.get();
+        return table != null && table.holder == holder ? table : null;
+    }
+
+    private static Logger getLogger() {
+        return Logger.getLogger(RouteTable.class.getName());
+    }
+
+    /**
+     * Create a builder for a new route table.
+     *
+     * @return an empty builder
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Get the id this table is serialized as.
+     *
+     * @return the id or null if the table is serialized with all its routes
+     */
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * Get the providers of this table in order of registration.
+     *
+     * @return unmodifiable list of providers
+     */
+    public List<UriTemplateViewProvider> getProviders() {
+        return providers;
+    }
+
+    /**
+     * Find the provider of this table handling the given navigation state.
+     *
+     * @param state
+     *            navigation state
+     * @return the provider with the longest path matching the state or null if no route matches
+     */
+    public UriTemplateViewProvider getViewProvider(
+            String state
+    ) {
+        UriTemplateMatch match = match(state);
+        return match == null ? null
+                : (UriTemplateViewProvider) match.getProvider();
+    }
+
+    /**
+     * Get the guard of the routes of a template.
+     *
+     * @param viewName
+     *            the template of the routes as registered
+     * @return the guard or null if the routes are not guarded
+     */
+    public RouteGuard getRouteGuard(
+            String viewName
+    ) {
+        return guards.get(viewName);
+    }
+
+    /**
+     * Get the parent route of the routes of a template.
+     *
+     * @param viewName
+     *            the template of the routes as registered
+     * @return the template of the parent route or null if the routes have no parent
+     */
+    public String getParentRoute(
+            String viewName
+    ) {
+        CompiledUriTemplate parent = parents.get(viewName);
+        return parent == null ? null : parent.getTemplate();
+    }
+
+    CompiledUriTemplate getParentTemplate(
+            String viewName
+    ) {
+        return parents.get(viewName);
+    }
+
+    /**
+     * Compile the template of a parent route and check that the template of its child has all its variables.
+     */
+    static CompiledUriTemplate compileParent(
+            String viewName,
+            String parentViewName
+    ) {
+        if (viewName.equals(parentViewName)) {
+            throw new IllegalArgumentException(
+                    "A route cannot be its own parent: " + viewName);
+        }
+        CompiledUriTemplate child = new CompiledUriTemplate(viewName);
+        CompiledUriTemplate parent = new CompiledUriTemplate(parentViewName);
+        Set<String> variables = new HashSet<String>();
+        for (int i = 0; i < child.getVariableCount(); i++) {
+            variables.add(child.getVariableName(i));
+        }
+        for (int i = 0; i < parent.getVariableCount(); i++) {
+            if (!variables.contains(parent.getVariableName(i))) {
+                throw new IllegalArgumentException("Parent route "
+                        + parentViewName + " has the variable '"
+                        + parent.getVariableName(i) + "' missing in "
+                        + viewName);
+            }
+        }
+        return parent;
+    }
+
+    /**
+     * Analyze the routes of this table for templates which may match the same navigation states. This compares all
+     * templates of equal path length and should not be called on every navigation.
+     *
+     * @return the conflicts, including overlaps resolved by specificity
+     */
+    public List<RouteConflict> getConflicts() {
+        return router.analyze(true);
+    }
+
+    /**
+     * Create the navigation state of a view from the values of the variables of its template. The values are percent
+     * encoded, views read them with {@link UriTemplateVariables#getDecoded(String)}.
+     * <p>
+     * If several templates are registered for the view class, the first one using exactly the given variables is
+     * expanded, otherwise the first one for which all variables are given.
+     *
+     * @param viewClass
+     *            the class of the view
+     * @param values
+     *            values by variable name
+     * @return the navigation state or null if no route of this table is known to create views of the class. The
+     *         routes of custom providers, which do not tell the class of their views, are not searched.
+     * @throws IllegalArgumentException
+     *             if no template of the view can be expanded with the given values
+     * @see CompiledUriTemplate#expand(Map)
+     */
+    public String uriFor(
+            Class<? extends View> viewClass,
+            Map<String, ?> values
+    ) {
+        return reverseRoutes.uriFor(viewClass, values);
+    }
+
+    /**
+     * Get the view names of the routes whose view class is unknown, which {@link #uriFor(Class, Map)} cannot find.
+     */
+    List<String> getUnknownViewNames() {
+        return reverseRoutes.getUnknownViewNames();
+    }
+
+    /**
+     * Match the given navigation state against the routes of this table. With a match cache, see
+     * {@link Builder#matchCache(int)}, a state is only matched the first time it is requested, and the extracted
+     * variables of the match are shared by all navigations to the state.
+     *
+     * @param state
+     *            navigation state
+     * @return the match of the route with the longest path or null if no route matches
+     */
+    public UriTemplateMatch match(
+            String state
+    ) {
+        NavigationStateCache matchCache = this.matchCache;
+        if (matchCache == null) {
+            return router.match(state);
+        }
+        // a table never changes, so its cache is never invalidated
+        UriTemplateMatch match = matchCache.get(state);
+        if (match == null) {
+            match = router.match(state);
+            if (match != null) {
+                matchCache.put(state, match);
+            }
+        }
+        return match;
+    }
+
+    /**
+     * Get the cache of the matches of this table, shared by all navigators attached to the table, e.g. to read its hit
+     * rate.
+     *
+     * @return the cache or null if the table has no match cache
+     */
+    public NavigationStateCache getMatchCache() {
+        return matchCache;
+    }
+
+    private Object writeReplace() {
+        return id == null ? this : new SerializedRouteTable(holder, id);
+    }
+
+    /**
+     * The serialized form of a table with an id.
+     */
+    private static final class SerializedRouteTable implements Serializable {
+
+        private final Class<?> holder;
+        private final String id;
+
+        private SerializedRouteTable(
+                Class<?> holder,
+                String id
+        ) {
+            this.holder = holder;
+            this.id = id;
+        }
+
+        private Object readResolve() throws ObjectStreamException {
+            RouteTable table = lookup(holder, id);
+            if (table == null) {
+                // the table is built when its holder is initialized
+                try {
+                    Class.forName(holder.getName(), true,
+                            holder.getClassLoader());
+                } catch (ClassNotFoundException e) {
+                    // reported below
+                }
+                table = lookup(holder, id);
+            }
+            if (table == null) {
+                throw new InvalidObjectException(
+                        "No route table with id " + id + " has been built");
+            }
+            return table;
+        }
+    }
+
+    /**
+     * Collects routes for a {@link RouteTable}. A builder is not thread safe.
+     */
+    public static final class Builder {
+
+        private final List<UriTemplateViewProvider> providers = new ArrayList<UriTemplateViewProvider>();
+        private final Map<String, RouteGuard> guards = new HashMap<String, RouteGuard>();
+        private final Map<String, CompiledUriTemplate> parents = new HashMap<String, CompiledUriTemplate>();
+        private Class<?> holder;
+        private String id;
+        private int matchCacheSize;
+
+        private Builder() {
+        }
+
+        /**
+         * Registers a view class for a view name. A new view instance is created every time a view is requested.
+         * <p>
+         * Registering another view with a name that is already registered overwrites the old registration.
+         *
+         * @param viewName
+         *            String that identifies a view (not null)
+         * @param viewClass
+         *            {@link View} class to instantiate when a view is requested (not null)
+         * @return this builder
+         */
+        public Builder addView(
+                String viewName,
+                Class<? extends View> viewClass
+        ) {
+            if (viewName == null || viewClass == null) {
+                throw new IllegalArgumentException(
+                        "viewName and viewClass must be non-null");
+            }
+            removeView(viewName);
+            providers.add(
+                    new ClassBasedUriTemplateViewProvider(viewName, viewClass));
+            return this;
+        }
+
+        /**
+         * Registers a view provider. As the provider is shared between all navigators using the table, it must be
+         * thread safe and must not hold view instances.
+         *
+         * @param provider
+         *            provider to register (not null)
+         * @return this builder
+         */
+        public Builder addProvider(
+                UriTemplateViewProvider provider
+        ) {
+            if (provider == null) {
+                throw new IllegalArgumentException(
+                        "Cannot add a null view provider");
+            }
+            providers.add(provider);
+            return this;
+        }
+
+        /**
+         * Removes the routes registered for a view name using {@link #addView(String, Class)}.
+         *
+         * @param viewName
+         *            name of the view to remove
+         * @return this builder
+         */
+        public Builder removeView(
+                String viewName
+        ) {
+            Iterator<UriTemplateViewProvider> it = providers.iterator();
+            while (it.hasNext()) {
+                UriTemplateViewProvider provider = it.next();
+                if (provider instanceof ClassBasedUriTemplateViewProvider
+                        && ((ClassBasedUriTemplateViewProvider) provider)
+                                .getViewName().equals(viewName)) {
+                    it.remove();
+                }
+            }
+            return this;
+        }
+
+        /**
+         * Guards the routes of a template, whether registered as a view or by a provider. The guard is asked after a
+         * state matched the template and before the view is created, see {@link RouteGuard}. As it is shared between
+         * all navigators using the table, it must be thread safe.
+         *
+         * @param viewName
+         *            the template of the routes as registered (not null)
+         * @param guard
+         *            the guard or null to remove the guard of the template
+         * @return this builder
+         */
+        public Builder guard(
+                String viewName,
+                RouteGuard guard
+        ) {
+            if (viewName == null) {
+                throw new IllegalArgumentException(
+                        "viewName must be non-null");
+            }
+            if (guard == null) {
+                guards.remove(viewName);
+            } else {
+                guards.put(viewName, guard);
+            }
+            return this;
+        }
+
+        /**
+         * Nests the routes of a template into a parent route, whose view is a {@link ParentView} showing the child
+         * views in its outlet. The state of the parent is its template expanded with the variables of the child, so
+         * every variable of the parent template must be a variable of the child template.
+         *
+         * @param viewName
+         *            the template of the child routes as registered (not null)
+         * @param parentViewName
+         *            the template of the parent route as registered or null to remove the parent of the template
+         * @return this builder
+         * @throws IllegalArgumentException
+         *             if a template is malformed or the parent has a variable the child has not
+         */
+        public Builder parent(
+                String viewName,
+                String parentViewName
+        ) {
+            if (viewName == null) {
+                throw new IllegalArgumentException(
+                        "viewName must be non-null");
+            }
+            if (parentViewName == null) {
+                parents.remove(viewName);
+            } else {
+                parents.put(viewName, compileParent(viewName, parentViewName));
+            }
+            return this;
+        }
+
+        /**
+         * Identify the table by the static field holding it, so that it is serialized as its id. The table is then
+         * found again on deserialization, after initializing the holder if necessary:
+         *
+         * <pre>
+         * public static final RouteTable ROUTES = RouteTable.builder()
+         *         .id(Routes.class, "ROUTES")
+         *         ...
+         * </pre>
+         *
+         * The routes of tables with the same id must be the same in every JVM sharing sessions. The table is only
+         * found while it is referenced, usually by the static field of the holder, and an application being undeployed
+         * leaves no reference to its table behind.
+         *
+         * @param holder
+         *            the class whose initialization builds the table (not null)
+         * @param name
+         *            the name of the table within the holder, usually the name of the field (not null)
+         * @return this builder
+         */
+        public Builder id(
+                Class<?> holder,
+                String name
+        ) {
+            if (holder == null || name == null) {
+                throw new IllegalArgumentException(
+                        "holder and name must be non-null");
+            }
+            this.holder = holder;
+            this.id = holder.getName() + "." + name;
+            return this;
+        }
+
+        /**
+         * Cache the matches of the most recently used navigation states in the table. Unlike the cache of a navigator,
+         * see {@link UriTemplateNavigator#setNavigationStateCacheSize(int)}, which belongs to a single UI, the cache of
+         * a table is shared by all navigators attached to it, so that a state requested by many users is matched only
+         * once. The navigations of all UIs look up the cache without locking, and it needs no invalidation, as the
+         * routes of a table never change.
+         *
+         * @param maximumSize
+         *            the maximum number of cached states or 0 for no cache
+         * @return this builder
+         */
+        public Builder matchCache(
+                int maximumSize
+        ) {
+            if (maximumSize < 0) {
+                throw new IllegalArgumentException(
+                        "The cache size must not be negative");
+            }
+            this.matchCacheSize = maximumSize;
+            return this;
+        }
+
+        /**
+         * Compile the registered routes into an immutable route table.
+         *
+         * @return the route table
+         */
+        public RouteTable build() {
+            RouteTable table = new RouteTable(holder, id, providers, guards,
+                    parents, matchCacheSize);
+            if (id != null) {
+                register(table);
+            }
+            return table;
+        }
+    }
+
+}
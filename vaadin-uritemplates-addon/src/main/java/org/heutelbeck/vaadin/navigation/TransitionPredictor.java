@@ -0,0 +1,165 @@
+package org.heutelbeck.vaadin.navigation;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Learns how often navigations go from one template to another and predicts the most likely next template. An instance
+ * is thread safe and is meant to be shared by all navigators of an application, so that the frequencies are learned
+ * from all users:
+ *
+ * <pre>
+ * private static final TransitionPredictor PREDICTOR = new TransitionPredictor(0.5, 20);
+ * ...
+ * navigator.setTransitionPredictor(PREDICTOR);
+ * </pre>
+ *
+ * Templates are a fixed set of registered routes, so the number of recorded transitions is bounded by the square of
+ * the number of routes.
+ *
+ * @see UriTemplateNavigator#setTransitionPredictor(TransitionPredictor)
+ */
+public class TransitionPredictor {
+
+    private final double minimumProbability;
+    private final long minimumCount;
+    private final ConcurrentMap<String, Transitions> transitions = new ConcurrentHashMap<String, Transitions>();
+
+    /**
+     * Create a predictor without any recorded transitions.
+     *
+     * @param minimumProbability
+     *            the share of the navigations leaving a template a successor must have to be predicted, greater than 0
+     *            and at most 1
+     * @param minimumCount
+     *            the number of navigations leaving a template to be recorded before any successor is predicted
+     */
+    public TransitionPredictor(
+            double minimumProbability,
+            long minimumCount
+    ) {
+        if (!(minimumProbability > 0 && minimumProbability <= 1)) {
+            throw new IllegalArgumentException(
+                    "The minimum probability must be in (0, 1]");
+        }
+        if (minimumCount < 1) {
+            throw new IllegalArgumentException(
+                    "The minimum count must be positive");
+        }
+        this.minimumProbability = minimumProbability;
+        this.minimumCount = minimumCount;
+    }
+
+    /**
+     * Record a navigation.
+     *
+     * @param from
+     *            the template navigated from
+     * @param to
+     *            the template navigated to
+     */
+    public void record(
+            String from,
+            String to
+    ) {
+        Transitions leaving = transitions.get(from);
+        if (leaving == null) {
+            leaving = transitions.computeIfAbsent(from,
+                    template -> new Transitions());
+        }
+        leaving.record(to);
+    }
+
+    /**
+     * Predict the template most likely navigated to next.
+     *
+     * @param from
+     *            the current template
+     * @return the template or null if no successor is likely enough
+     */
+    public String predict(
+            String from
+    ) {
+        Transitions leaving = transitions.get(from);
+        if (leaving == null) {
+            return null;
+        }
+        long total = leaving.total.sum();
+        if (total < minimumCount) {
+            return null;
+        }
+        String best = null;
+        long bestCount = 0;
+        for (Map.Entry<String, LongAdder> entry : leaving.counts.entrySet()) {
+            long count = entry.getValue().sum();
+            if (count > bestCount) {
+                best = entry.getKey();
+                bestCount = count;
+            }
+        }
+        return bestCount >= minimumProbability * total ? best : null;
+    }
+
+    /**
+     * Get the number of recorded navigations between two templates.
+     *
+     * @param from
+     *            the template navigated from
+     * @param to
+     *            the template navigated to
+     * @return the number of navigations
+     */
+    public long getCount(
+            String from,
+            String to
+    ) {
+        Transitions leaving = transitions.get(from);
+        LongAdder count = leaving == null ? null : leaving.counts.get(to);
+        return count == null ? 0L : count.sum();
+    }
+
+    /**
+     * Get the recorded successors of a template.
+     *
+     * @param from
+     *            the template navigated from
+     * @return unmodifiable live view of the counters by template navigated to
+     */
+    public Map<String, LongAdder> getTransitions(
+            String from
+    ) {
+        Transitions leaving = transitions.get(from);
+        return leaving == null ? Collections.<String, LongAdder> emptyMap()
+                : Collections.unmodifiableMap(leaving.counts);
+    }
+
+    /**
+     * Forget all recorded transitions.
+     */
+    public void reset() {
+        transitions.clear();
+    }
+
+    private static final class Transitions {
+
+        private final ConcurrentMap<String, LongAdder> counts = new ConcurrentHashMap<String, LongAdder>();
+        private final LongAdder total = new LongAdder();
+
+        void record(
+                String to
+        ) {
+            LongAdder count = counts.get(to);
+            if (count == null) {
+                count = counts.computeIfAbsent(to,
+                        template -> new LongAdder());
+            }
+            count.increment();
+            total.increment();
+        }
+
+    }
+
+}
@@ -0,0 +1,168 @@
+package org.heutelbeck.vaadin.navigation;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Percent encoding of variable values in navigation states.
+ * <p>
+ * Unreserved characters, sub-delimiters, {@code :} and {@code @} are kept, as they are allowed in a URI fragment and
+ * have no meaning to a template. Everything else is encoded as UTF-8, in particular {@code /}, {@code ?}, {@code #},
+ * {@code %} and braces, so that an encoded value never contains a slash or the start of a query.
+ */
+final class UriEncoding {
+
+    private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+    private static final long SAFE_LOW;
+    private static final long SAFE_HIGH;
+
+    static {
+        long low = 0;
+        long high = 0;
+        String safe = "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789-._~!$&'()*+,;=:@";
+        for (int i = 0; i < safe.length(); i++) {
+            char c = safe.charAt(i);
+            if (c < 64) {
+                low |= 1L << c;
+            } else {
+                high |= 1L << (c - 64);
+            }
+        }
+        SAFE_LOW = low;
+        SAFE_HIGH = high;
+    }
+
+    private UriEncoding() {
+    }
+
+    /**
+     * Check whether a character is kept as is by {@link #encode(CharSequence, StringBuilder)}.
+     */
+    static boolean isSafe(
+            char c
+    ) {
+        if (c < 64) {
+            return (SAFE_LOW & (1L << c)) != 0;
+        }
+        if (c < 128) {
+            return (SAFE_HIGH & (1L << (c - 64))) != 0;
+        }
+        return false;
+    }
+
+    /**
+     * Append the encoded value to the target.
+     */
+    static void encode(
+            CharSequence value,
+            StringBuilder target
+    ) {
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (isSafe(c)) {
+                target.append(c);
+            } else if (c < 0x80) {
+                appendEscaped(target, c);
+            } else {
+                int codePoint = Character.codePointAt(value, i);
+                if (Character.isSupplementaryCodePoint(codePoint)) {
+                    i++;
+                }
+                byte[] bytes = new String(Character.toChars(codePoint))
+                        .getBytes(StandardCharsets.UTF_8);
+                for (byte b : bytes) {
+                    appendEscaped(target, b & 0xFF);
+                }
+            }
+        }
+    }
+
+    private static void appendEscaped(
+            StringBuilder target,
+            int b
+    ) {
+        target.append('%').append(HEX[b >> 4]).append(HEX[b & 0xF]);
+    }
+
+    /**
+     * Decode a region of the input. Malformed escapes are kept as they are.
+     *
+     * @return the decoded value, without copying if the region contains no escape
+     */
+    static String decode(
+            CharSequence input,
+            int start,
+            int end
+    ) {
+        int percent = -1;
+        for (int i = start; i < end; i++) {
+            if (input.charAt(i) == '%') {
+                percent = i;
+                break;
+            }
+        }
+        if (percent < 0) {
+            return input.subSequence(start, end).toString();
+        }
+        StringBuilder result = new StringBuilder(end - start);
+        result.append(input, start, percent);
+        ByteArrayOutputStream bytes = null;
+        int i = percent;
+        while (i < end) {
+            char c = input.charAt(i);
+            int value = c == '%' ? hexPair(input, i + 1, end) : -1;
+            if (value < 0) {
+                result.append(c);
+                i++;
+                continue;
+            }
+            if (bytes == null) {
+                bytes = new ByteArrayOutputStream();
+            }
+            bytes.reset();
+            while (value >= 0) {
+                bytes.write(value);
+                i += 3;
+                value = i < end && input.charAt(i) == '%'
+                        ? hexPair(input, i + 1, end) : -1;
+            }
+            result.append(new String(bytes.toByteArray(),
+                    StandardCharsets.UTF_8));
+        }
+        return result.toString();
+    }
+
+    private static int hexPair(
+            CharSequence input,
+            int offset,
+            int end
+    ) {
+        if (offset + 2 > end) {
+            return -1;
+        }
+        int high = hexDigit(input.charAt(offset));
+        int low = hexDigit(input.charAt(offset + 1));
+        return high < 0 || low < 0 ? -1 : (high << 4) | low;
+    }
+
+    /**
+     * Get the value of an ASCII hex digit. Unlike {@link Character#digit(char, int)}, other Unicode digits are not
+     * accepted, so that they do not form an escape.
+     */
+    private static int hexDigit(
+            char c
+    ) {
+        if (c >= '0' && c <= '9') {
+            return c - '0';
+        }
+        if (c >= 'a' && c <= 'f') {
+            return c - 'a' + 10;
+        }
+        if (c >= 'A' && c <= 'F') {
+            return c - 'A' + 10;
+        }
+        return -1;
+    }
+
+}
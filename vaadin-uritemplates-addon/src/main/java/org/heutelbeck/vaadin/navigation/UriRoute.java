@@ -0,0 +1,50 @@
+package org.heutelbeck.vaadin.navigation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Declares the URI templates of a view class.
+ * <p>
+ * The annotation is processed at compile time by {@link org.heutelbeck.vaadin.navigation.processor.UriRouteProcessor},
+ * which is registered as a service of the addon jar and runs whenever the jar is on the compile class path. The
+ * processor checks the templates and generates a class holding a {@link RouteTable} of all annotated views, so no
+ * class path scanning is needed at runtime. The templates are still compiled when the generated class is initialized,
+ * and the table is only complete after a full compile, see the processor for details:
+ *
+ * <pre>
+ * &#64;UriRoute(Apple.NAME)
+ * public class Apple extends VerticalLayout implements View {
+ *     public static final String NAME = "apples/{appleId}";
+ *     ...
+ * }
+ *
+ * navigator.setRouteTable(UriRoutes.ROUTES);
+ * </pre>
+ * <p>
+ * The annotated class must be a public, non abstract {@link com.vaadin.navigator.View} with a public constructor
+ * taking no arguments or a {@link UriTemplateVariables}.
+ */
+@Documented
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.TYPE)
+public @interface UriRoute {
+
+    /**
+     * The URI templates of the view, see {@link UriTemplateNavigator#addView(String, Class)}.
+     *
+     * @return the templates
+     */
+    String[] value();
+
+    /**
+     * The URI template of the parent route the templates of the view are nested into, see {@link ParentView}.
+     *
+     * @return the template of the parent route, empty if the routes are not nested
+     */
+    String parent() default "";
+
+}
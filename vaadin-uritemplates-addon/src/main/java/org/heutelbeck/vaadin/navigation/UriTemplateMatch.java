@@ -0,0 +1,157 @@
+package org.heutelbeck.vaadin.navigation;
+
+import java.io.Serializable;
+
+import com.vaadin.navigator.ViewProvider;
+
+/**
+ * The result of matching a navigation state against the registered providers: the provider handling the state, the
+ * view name it returned and the variables extracted from the template of the provider.
+ */
+@SuppressWarnings("serial")
+public class UriTemplateMatch implements Serializable {
+
+    private final ViewProvider provider;
+    private final String viewName;
+    private final String navigationState;
+    private final UriTemplateVariables variables;
+    private int precedenceKind = UriTemplateRouter.KIND_OTHER;
+    private int[] precedenceRanks;
+    private QueryParameters queryParameters;
+
+    /**
+     * Create a new match.
+     *
+     * @param provider
+     *            the provider handling the navigation state (not null)
+     * @param viewName
+     *            the view name returned by the provider
+     * @param navigationState
+     *            the matched navigation state (not null)
+     * @param variables
+     *            the variables extracted from the navigation state, null if there are none. The instance is owned by
+     *            the match afterwards and must not be reused for other matches.
+     */
+    public UriTemplateMatch(
+            ViewProvider provider,
+            String viewName,
+            String navigationState,
+            UriTemplateVariables variables
+    ) {
+        if (null == provider || null == navigationState) {
+            throw new IllegalArgumentException(
+                    "provider and navigationState must be non-null");
+        }
+        this.provider = provider;
+        this.viewName = viewName;
+        this.navigationState = navigationState;
+        this.variables = variables == null ? new UriTemplateVariables()
+                : variables;
+    }
+
+    /**
+     * Record how the match was found, to compare it with matches of other routers.
+     */
+    void setPrecedence(
+            int kind,
+            int[] ranks
+    ) {
+        this.precedenceKind = kind;
+        this.precedenceRanks = ranks;
+    }
+
+    /**
+     * Create a copy of this match for a navigation state with the same path, e.g. with a query part.
+     */
+    UriTemplateMatch withNavigationState(
+            String state
+    ) {
+        UriTemplateMatch match = new UriTemplateMatch(provider, viewName,
+                state, variables);
+        match.setPrecedence(precedenceKind, precedenceRanks);
+        return match;
+    }
+
+    /**
+     * Get the matched navigation state without its query part and a trailing slash, e.g. to tell whether two matches
+     * are of the same state of a route.
+     */
+    String getPath() {
+        String path = QueryParameters.pathOf(navigationState);
+        if (path.endsWith("/")) {
+            path = path.substring(0, path.length() - 1);
+        }
+        return path;
+    }
+
+    int getPrecedenceKind() {
+        return precedenceKind;
+    }
+
+    int[] getPrecedenceRanks() {
+        return precedenceRanks;
+    }
+
+    /**
+     * Get the provider handling the navigation state.
+     *
+     * @return the provider
+     */
+    public ViewProvider getProvider() {
+        return provider;
+    }
+
+    /**
+     * Get the view name returned by the provider for the navigation state.
+     *
+     * @return the view name
+     */
+    public String getViewName() {
+        return viewName;
+    }
+
+    /**
+     * Get the matched navigation state.
+     *
+     * @return the navigation state
+     */
+    public String getNavigationState() {
+        return navigationState;
+    }
+
+    /**
+     * Get the variables extracted from the navigation state.
+     *
+     * @return the variables
+     */
+    public UriTemplateVariables getVariables() {
+        return variables;
+    }
+
+    /**
+     * Get the value of a single variable.
+     *
+     * @param name
+     *            name of the variable
+     * @return the value or null if the template has no such variable
+     */
+    public String getVariable(
+            String name
+    ) {
+        return variables.get(name);
+    }
+
+    /**
+     * Get the parameters of the query part of the navigation state, which is ignored when matching the templates. The
+     * query is parsed on first access.
+     *
+     * @return the parameters, {@link QueryParameters#EMPTY} if the state has no query
+     */
+    public QueryParameters getQueryParameters() {
+        if (queryParameters == null) {
+            queryParameters = QueryParameters.of(navigationState);
+        }
+        return queryParameters;
+    }
+
+}
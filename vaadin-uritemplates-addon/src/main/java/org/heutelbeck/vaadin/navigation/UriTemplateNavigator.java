@@ -1,8 +1,16 @@
 package org.heutelbeck.vaadin.navigation;
 
-import java.util.Iterator;
-import java.util.LinkedList;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import com.vaadin.navigator.NavigationStateManager;
 import com.vaadin.navigator.Navigator;
@@ -12,6 +20,8 @@ import com.vaadin.navigator.ViewChangeListener.ViewChangeEvent;
 import com.vaadin.navigator.ViewDisplay;
 import com.vaadin.navigator.ViewProvider;
 import com.vaadin.server.Page;
+import com.vaadin.server.SerializableSupplier;
+import com.vaadin.server.VaadinSession;
 import com.vaadin.shared.util.SharedUtil;
 import com.vaadin.ui.Component;
 import com.vaadin.ui.ComponentContainer;
@@ -21,9 +31,31 @@ import com.vaadin.ui.UI;
 @SuppressWarnings("serial")
 public class UriTemplateNavigator extends Navigator {
 
-    private List<UriTemplateViewProvider> providers = new LinkedList<UriTemplateViewProvider>();
-    private ViewProvider errorProvider;
+    private final ProviderRegistry registry = new ProviderRegistry();
+    // set by route changes of any thread, applied to the state of the UI while the session is locked
+    private final AtomicBoolean routesChanged = new AtomicBoolean();
+    private final Queue<String> removedViews = new ConcurrentLinkedQueue<String>();
+    private volatile NavigationStateCache stateCache;
+    private volatile RouteTable routeTable;
+    private UriTemplateMatch pendingMatch;
+    private NavigationHistory.Entry pendingRestore;
+    private final RetainedViews retainedViews = new RetainedViews();
+    private transient NavigationMetrics metrics = NavigationMetrics.NONE;
+    private volatile ViewProvider errorProvider;
     private String currentNavigationState = null;
+    private final NavigationCoalescing coalescing = new NavigationCoalescing(
+            this);
+    private final NestedViews nestedViews = new NestedViews(this,
+            retainedViews);
+    private final ViewPreparation preparation = new ViewPreparation(this,
+            nestedViews);
+    private final ParameterUpdates parameterUpdates = new ParameterUpdates(
+            nestedViews, preparation);
+    private final Prefetching prefetching = new Prefetching(this,
+            retainedViews);
+    private NavigationHistory history;
+    private final RouteGuards routeGuards = new RouteGuards();
+    private UriTemplateMatch currentMatch;
 
     /**
      * Creates a navigator that is tracking the active view using URI fragments of the {@link Page} containing the given
@@ -130,57 +162,385 @@ public class UriTemplateNavigator extends Navigator {
      * for the confirmation.
      * <p>
      * Registered {@link ViewChangeListener}s are called upon successful view change.
+     * <p>
+     * Fields of the view annotated with {@link UriVariable} are set to the variables of the match once the
+     * {@link ViewChangeListener}s approved the view change, before the view is prepared or entered. A vetoed navigation
+     * leaves the fields unchanged. If a variable cannot be converted, the view of the error provider is shown instead.
+     * <p>
+     * If the route of the state is guarded, see {@link #setRouteGuard(String, RouteGuard)}, the guard is asked before
+     * the view is created.
+     * <p>
+     * If the current view is a {@link ParameterAwareView} and the state is matched by the route of the current view,
+     * the view is asked to update itself to the new variables instead, once the listeners approved the change.
      *
      * @param navigationState
      *            view name and parameters
      *
      * @throws IllegalArgumentException
-     *             if <code>navigationState</code> does not map to a known view and no error view is registered
+     *             if <code>navigationState</code> does not map to a known view, or the guard of its route denies the
+     *             navigation, and no error view is registered
+     * @throws ParameterBindingException
+     *             if the variables cannot be bound to the fields of the view and no error view is registered
+     * @see #setNavigationCoalescing(long, TimeUnit, ScheduledExecutorService)
      */
     @Override
     public void navigateTo(
             String navigationState
     ) {
-        ViewProvider longestViewNameProvider = getViewProvider(navigationState);
-        String longestViewName = longestViewNameProvider == null ? null
-                : longestViewNameProvider.getViewName(navigationState);
-        View viewWithLongestName = null;
+        if (!coalescing.defer(navigationState)) {
+            navigateToState(navigationState, isBrowserNavigation(
+                    navigationState));
+        }
+    }
+
+    private void navigateToState(
+            String navigationState,
+            boolean browsed
+        ) {
+        applyRouteChanges();
+        NavigationMetrics metrics = getNavigationMetrics();
+        boolean timed = metrics != NavigationMetrics.NONE;
+        long start = timed ? System.nanoTime() : 0L;
 
-        if (longestViewName != null) {
-            viewWithLongestName = longestViewNameProvider
-                    .getView(longestViewName);
+        NavigationHistory history = this.history;
+        NavigationHistory.Entry restored = browsed && history != null
+                ? history.restore(navigationState, errorProvider) : null;
+        UriTemplateMatch match = restored != null ? restored.match
+                : getMatch(navigationState);
+        View view = null;
+        String template = match == null ? null : match.getViewName();
+        boolean denied = match != null
+                && !routeGuards.canNavigate(match, routeTable, getSession());
+
+        long resolved = timed ? System.nanoTime() : 0L;
+        ParameterChange change = match != null && !denied
+                ? changeParameters(navigationState, match, restored)
+                : ParameterChange.NOT_APPLICABLE;
+        if (change == ParameterChange.UPDATED && timed) {
+            metrics.resolved(template, NavigationOutcome.HIT, resolved - start,
+                    0L);
+            metrics.entered(template, System.nanoTime() - resolved);
+        }
+        // a vetoed update ends the navigation without any view being entered, so it is not recorded
+        if (change != ParameterChange.NOT_APPLICABLE) {
+            return;
+        }
+        if (match != null && !denied) {
+            view = restored != null && restored.view != null ? restored.view
+                    : nestedViews.getShownParent(match);
+            if (view == null) {
+                view = retainedViews.getView(match, true);
+            }
         }
 
-        if (viewWithLongestName == null && errorProvider != null) {
-            longestViewName = errorProvider.getViewName(navigationState);
-            viewWithLongestName = errorProvider.getView(longestViewName);
+        NavigationOutcome outcome = NavigationOutcome.HIT;
+        if (view == null) {
+            match = null;
+            outcome = denied ? NavigationOutcome.DENIED
+                    : NavigationOutcome.MISS;
+        }
+        if (view == null && errorProvider != null) {
+            match = getErrorMatch(navigationState);
+            view = errorProvider.getView(match.getViewName());
+            if (!denied) {
+                outcome = NavigationOutcome.ERROR_VIEW;
+            }
+        }
+        if (timed) {
+            long created = System.nanoTime();
+            metrics.resolved(outcome == NavigationOutcome.HIT
+                    || outcome == NavigationOutcome.DENIED ? template : null,
+                    outcome, resolved - start, created - resolved);
         }
 
-        if (viewWithLongestName == null) {
+        if (view == null && denied) {
+            throw new IllegalArgumentException("Navigation to the state '"
+                    + navigationState
+                    + "' was denied and an error view provider not present");
+        }
+        if (view == null) {
             throw new IllegalArgumentException(
                     "Trying to navigate to an unknown state '" + navigationState
                             + "' and an error view provider not present");
         }
-        //
-        // String parameters = "";
-        // if (navigationState.length() > longestViewName.length() + 1) {
-        // parameters = navigationState
-        // .substring(longestViewName.length() + 1);
-        // } else
-        //
         if (navigationState.endsWith("/")) {
             navigationState = navigationState.substring(0,
                     navigationState.length() - 1);
         }
         if (getCurrentView() == null
-                || !SharedUtil.equals(getCurrentView(), viewWithLongestName)
+                || !SharedUtil.equals(getCurrentView(), view)
                 || !SharedUtil.equals(currentNavigationState,
                         navigationState)) {
-            navigateTo(viewWithLongestName, navigationState, "");
+            pendingMatch = match;
+            pendingRestore = restored;
+            navigateTo(view, navigationState, "");
         } else {
-            updateNavigationState(new ViewChangeEvent(this, getCurrentView(),
-                    viewWithLongestName, navigationState, ""));
+            updateNavigationState(new UriTemplateViewChangeEvent(this,
+                    getCurrentView(), view, navigationState, "", match));
+        }
+    }
+
+    /**
+     * Let the current view update itself to another state of its route, see {@link ParameterAwareView}.
+     *
+     * @return whether the view was updated, a listener vetoed the change, or the full view change follows
+     */
+    private ParameterChange changeParameters(
+            String navigationState,
+            UriTemplateMatch match,
+            NavigationHistory.Entry restored
+        ) {
+        View view = getCurrentView();
+        UriTemplateMatch oldMatch = currentMatch;
+        navigationState = withoutTrailingSlash(navigationState);
+        if (navigationState.equals(currentNavigationState)
+                || !parameterUpdates.canUpdate(view, oldMatch, match)) {
+            return ParameterChange.NOT_APPLICABLE;
+        }
+        UriTemplateViewChangeEvent event = new UriTemplateViewChangeEvent(this,
+                view, view, navigationState, "", match);
+        if (!beforeViewChange(event)) {
+            revertNavigation();
+            return ParameterChange.VETOED;
+        }
+        if (!parameterUpdates.update((ParameterAwareView) view, oldMatch,
+                match)) {
+            return ParameterChange.NOT_APPLICABLE;
+        }
+        updateNavigationState(event);
+        currentMatch = match;
+        retainedViews.retain(match, view);
+        NavigationHistory history = this.history;
+        if (history != null) {
+            history.record(restored, navigationState, match, view);
         }
+        fireAfterViewChange(event);
+        return ParameterChange.UPDATED;
+    }
+
+    /**
+     * Check whether the browser navigated to the state, e.g. back or forward. The state manager then already reports
+     * the state, while a navigation of the application only changes it once the view changed.
+     */
+    private boolean isBrowserNavigation(
+            String navigationState
+        ) {
+        if (history == null) {
+            return false;
+        }
+        String state = getState();
+        return state != null && withoutTrailingSlash(state)
+                .equals(withoutTrailingSlash(navigationState));
+    }
+
+    private static String withoutTrailingSlash(
+            String navigationState
+        ) {
+        return navigationState.endsWith("/") ? navigationState.substring(0,
+                navigationState.length() - 1) : navigationState;
+    }
+
+    /**
+     * Record the state of a navigation deferred by {@link NavigationCoalescing} with the state manager, without
+     * changing the view.
+     */
+    void recordDeferredState(
+            String navigationState
+        ) {
+        updateNavigationState(new UriTemplateViewChangeEvent(this,
+                getCurrentView(), getCurrentView(), navigationState, "",
+                null));
+    }
+
+    /**
+     * Navigate to the last state of a burst coalesced by {@link NavigationCoalescing}. The recorded states of the burst
+     * were never entered, so the state before the burst is the current one again.
+     */
+    void navigateDeferred(
+            String navigationState,
+            String fromState
+        ) {
+        currentNavigationState = fromState;
+        navigateToState(navigationState, false);
+    }
+
+    String getNavigatedState() {
+        return currentNavigationState;
+    }
+
+    private VaadinSession getSession() {
+        UI ui = getUI();
+        return ui == null ? null : ui.getSession();
+    }
+
+    /**
+     * Set the fields of the view annotated with {@link UriVariable} to the variables of the match.
+     */
+    static void bindParameters(
+            View view,
+            UriTemplateMatch match
+        ) {
+        ParameterBinder<?> binder = ParameterBinder.of(view.getClass());
+        if (!binder.isEmpty()) {
+            binder.bindTo(match.getVariables(), view);
+        }
+    }
+
+    /**
+     * Performs the view change after a possible confirmation of the view being deactivated, like
+     * {@link Navigator#performNavigateTo(View, String, String)}, but fires a {@link UriTemplateViewChangeEvent}
+     * carrying the match of the navigation state, so that views can read the variables of their template without
+     * matching the state again. An {@link AsyncView} is entered once its data is prepared, see
+     * {@link #setAsyncNavigation(Executor, View)}.
+     *
+     * @param view
+     *            the view to show
+     * @param viewName
+     *            the navigation state of the view
+     * @param parameters
+     *            the parameters passed to the view
+     */
+    @Override
+    protected void performNavigateTo(
+            View view,
+            String viewName,
+            String parameters
+        ) {
+        UriTemplateMatch match = pendingMatch;
+        boolean pending = match != null && isMatchOf(match, viewName);
+        NavigationHistory.Entry restored = pending ? pendingRestore : null;
+        pendingMatch = null;
+        pendingRestore = null;
+        if (!pending) {
+            match = getMatch(viewName);
+        }
+        UriTemplateViewChangeEvent approved = new UriTemplateViewChangeEvent(
+                this, getCurrentView(), view, viewName, parameters, match);
+        if (!beforeViewChange(approved)) {
+            revertNavigation();
+            return;
+        }
+        UriTemplateViewChangeEvent event = bindApproved(approved);
+        View newView = event.getNewView();
+        preparation.cancel();
+        String previousState = currentNavigationState;
+        updateNavigationState(event);
+        if (newView instanceof AsyncView) {
+            preparation.prepare((AsyncView<?>) newView, event, previousState,
+                    enter -> completeNavigateTo(event, restored, enter));
+            return;
+        }
+        completeNavigateTo(event, restored, () -> newView.enter(event));
+    }
+
+    /**
+     * Bind the variables of an approved view change to the new view. If a variable cannot be converted, the view of the
+     * error provider replaces the new view, without asking the listeners again.
+     *
+     * @return the event to complete the view change with
+     */
+    private UriTemplateViewChangeEvent bindApproved(
+            UriTemplateViewChangeEvent event
+        ) {
+        UriTemplateMatch match = event.getMatch();
+        if (match == null || match.getProvider() == errorProvider) {
+            return event;
+        }
+        try {
+            bindParameters(event.getNewView(), match);
+            return event;
+        } catch (ParameterBindingException e) {
+            ViewProvider errorProvider = this.errorProvider;
+            if (errorProvider == null) {
+                revertNavigation();
+                throw e;
+            }
+            UriTemplateMatch errorMatch = getErrorMatch(
+                    match.getNavigationState());
+            return new UriTemplateViewChangeEvent(this, event.getOldView(),
+                    errorProvider.getView(errorMatch.getViewName()),
+                    event.getViewName(), event.getParameters(), errorMatch);
+        }
+    }
+
+    private UriTemplateMatch getErrorMatch(
+            String navigationState
+        ) {
+        return new UriTemplateMatch(errorProvider,
+                errorProvider.getViewName(navigationState), navigationState,
+                null);
+    }
+
+    private void completeNavigateTo(
+            ViewChangeEvent event,
+            NavigationHistory.Entry restored,
+            Runnable enter
+        ) {
+        View view = event.getNewView();
+        UriTemplateMatch match = ((UriTemplateViewChangeEvent) event)
+                .getMatch();
+        nestedViews.show(view, match);
+        switchView(event);
+        currentMatch = match;
+        if (match != null && !isErrorMatch(match)) {
+            // only now the view shows the state, a vetoed navigation leaves the pools as they are
+            retainedViews.retain(match, view);
+        }
+        String template = match != null && match.getProvider() != errorProvider
+                ? match.getViewName() : null;
+        NavigationMetrics metrics = getNavigationMetrics();
+        if (metrics == NavigationMetrics.NONE) {
+            enter.run();
+        } else {
+            long start = System.nanoTime();
+            enter.run();
+            metrics.entered(template, System.nanoTime() - start);
+        }
+        fireAfterViewChange(event);
+        NavigationHistory history = this.history;
+        if (history != null) {
+            history.record(restored, event.getViewName(), match, view);
+        }
+        prefetching.navigated(template);
+    }
+
+    UriTemplateMatch getCurrentMatch() {
+        return currentMatch;
+    }
+
+    /**
+     * Check whether a match is that of the error provider, whose views are never nested, bound or recorded.
+     */
+    boolean isErrorMatch(
+            UriTemplateMatch match
+        ) {
+        return match.getProvider() == errorProvider;
+    }
+
+    /**
+     * Revert the navigation to a view whose preparation by {@link ViewPreparation} failed, showing the current view
+     * again if a placeholder replaced it.
+     */
+    void revertPreparedNavigation(
+            String previousState,
+            boolean placeholderShown
+        ) {
+        if (placeholderShown && getCurrentView() != null) {
+            nestedViews.show(getCurrentView(), currentMatch);
+        }
+        currentNavigationState = previousState;
+        revertNavigation();
+    }
+
+    private static boolean isMatchOf(
+            UriTemplateMatch match,
+            String navigationState
+        ) {
+        String matched = match.getNavigationState();
+        return matched.equals(navigationState)
+                || matched.length() == navigationState.length() + 1
+                        && matched.endsWith("/")
+                        && matched.startsWith(navigationState);
     }
 
     /**
@@ -208,8 +568,9 @@ public class UriTemplateNavigator extends Navigator {
                     "view and viewName must be non-null");
         }
 
-        removeView(viewName);
-        addProvider(new StaticUriTemplateViewProvider(viewName, view));
+        replaceViews(Collections.singleton(viewName),
+                Collections.<UriTemplateViewProvider> singletonList(
+                        new StaticUriTemplateViewProvider(viewName, view)));
     }
 
     /**
@@ -217,7 +578,8 @@ public class UriTemplateNavigator extends Navigator {
      * <p>
      * Registering another view with a name that is already registered overwrites the old registration of the same type.
      * <p>
-     * A new view instance is created every time a view is requested.
+     * A new view instance is created every time a view is requested. If the view class has a constructor taking
+     * {@link UriTemplateVariables}, it is passed the variables extracted from the navigation state.
      *
      * @param viewName
      *            String that identifies a view (not null nor empty string)
@@ -235,13 +597,119 @@ public class UriTemplateNavigator extends Navigator {
                     "view and viewClass must be non-null");
         }
 
-        removeView(viewName);
-        addProvider(new ClassBasedUriTemplateViewProvider(viewName, viewClass));
+        replaceViews(Collections.singleton(viewName),
+                Collections.<UriTemplateViewProvider> singletonList(
+                        new ClassBasedUriTemplateViewProvider(viewName,
+                                viewClass)));
+    }
+
+    /**
+     * Registers a view for a view name which is created on first navigation to the view.
+     * <p>
+     * Registering another view with a name that is already registered overwrites the old registration of the same type.
+     * <p>
+     * Unlike {@link #addView(String, View)}, the view is not created before it is needed. Once created, the same
+     * instance is used for all later navigations, like a static view. As the class of the view is not known,
+     * {@link #uriFor(Class, Map)} cannot create navigation states for the view, see
+     * {@link #addView(String, Class, SerializableSupplier)}.
+     *
+     * @param viewName
+     *            String that identifies a view (not null)
+     * @param viewSupplier
+     *            creates the view on first navigation (not null)
+     */
+    public void addView(
+            String viewName,
+            SerializableSupplier<? extends View> viewSupplier
+        ) {
+        if (viewName == null || viewSupplier == null) {
+            throw new IllegalArgumentException(
+                    "view and viewSupplier must be non-null");
+        }
+        replaceViews(Collections.singleton(viewName),
+                Collections.<UriTemplateViewProvider> singletonList(
+                        new LazyUriTemplateViewProvider(viewName,
+                                viewSupplier)));
+    }
+
+    /**
+     * Registers a view of a known class for a view name which is created on first navigation to the view.
+     * <p>
+     * Like {@link #addView(String, SerializableSupplier)}, but navigation states for the view can be created with
+     * {@link #uriFor(Class, Map)} before the view is created.
+     *
+     * @param viewName
+     *            String that identifies a view (not null)
+     * @param viewClass
+     *            the class of the view (not null)
+     * @param viewSupplier
+     *            creates the view on first navigation (not null)
+     */
+    public <V extends View> void addView(
+            String viewName,
+            Class<V> viewClass,
+            SerializableSupplier<? extends V> viewSupplier
+        ) {
+        if (viewName == null || viewClass == null || viewSupplier == null) {
+            throw new IllegalArgumentException(
+                    "view, viewClass and viewSupplier must be non-null");
+        }
+        replaceViews(Collections.singleton(viewName),
+                Collections.<UriTemplateViewProvider> singletonList(
+                        new LazyUriTemplateViewProvider(viewName, viewClass,
+                                viewSupplier)));
+    }
+
+    /**
+     * Registers view classes for many view names at once.
+     * <p>
+     * Like {@link #addView(String, Class)} for each entry, but the views are published in a single change of the
+     * registered providers. Navigations running concurrently see either none or all of the new views.
+     * <p>
+     * Like all views and providers, the views may be registered from any thread, e.g. while the routes are loaded in
+     * the background. Only the providers and the navigation state cache are changed right away. The state of the UI
+     * depending on the routes, i.e. the history, the retained views of replaced views and the decisions of cacheable
+     * route guards, is reset by the next navigation, or right away if the calling thread holds the session lock.
+     *
+     * @param viewClasses
+     *            {@link View} classes by view name, registered in iteration order (not null, no null keys or values)
+     */
+    public void addViews(
+            Map<String, ? extends Class<? extends View>> viewClasses
+        ) {
+        if (viewClasses == null) {
+            throw new IllegalArgumentException(
+                    "viewClasses must be non-null");
+        }
+        List<UriTemplateViewProvider> added = new ArrayList<UriTemplateViewProvider>(
+                viewClasses.size());
+        for (Map.Entry<String, ? extends Class<? extends View>> entry : viewClasses
+                .entrySet()) {
+            if (entry.getKey() == null || entry.getValue() == null) {
+                throw new IllegalArgumentException(
+                        "view and viewClass must be non-null");
+            }
+            added.add(new ClassBasedUriTemplateViewProvider(entry.getKey(),
+                    entry.getValue()));
+        }
+        replaceViews(viewClasses.keySet(), added);
+    }
+
+    private void replaceViews(
+            Collection<String> viewNames,
+            List<UriTemplateViewProvider> added
+        ) {
+        if (registry.replace(viewNames, added)) {
+            removedViews.addAll(viewNames);
+            invalidateMatches();
+        }
     }
 
     /**
      * Get view provider that handles the given {@code state}.
      *
+     * @see #getMatch(String)
+     *
      * @param state
      *            state string
      * @return suitable provider
@@ -250,26 +718,575 @@ public class UriTemplateNavigator extends Navigator {
     protected ViewProvider getViewProvider(
             String state
         ) {
-        String longestViewName = null;
-        int longestPath = 0;
-        UriTemplateViewProvider longestPathProvider = null;
-        for (UriTemplateViewProvider provider : providers) {
-            String viewName = provider.getViewName(state);
-            if (null != viewName && (longestViewName == null
-                    || provider.getPathLength() > longestPath)) {
-                longestViewName = viewName;
-                longestPathProvider = provider;
-                longestPath = provider.getPathLength();
+        UriTemplateMatch match = getMatch(state);
+        return match == null ? null : match.getProvider();
+    }
+
+    /**
+     * Match the given {@code state} against the registered providers and extract the variables of the template of the
+     * winning provider in the same pass.
+     * <p>
+     * The providers are compiled into a routing trie on first use after a change of the registered providers. The
+     * provider with the longest path wins, ties are resolved by specificity as described for {@link RouteConflict} and
+     * only then in favor of the provider registered first. The routes of an attached {@link RouteTable} are looked up
+     * in the trie of the table. If a navigation state cache is enabled,
+     * matches are looked up in the cache first.
+     * <p>
+     * A query part of the state, starting with the first {@code ?}, is ignored when matching and is available from
+     * {@link UriTemplateMatch#getQueryParameters()}.
+     *
+     * @param state
+     *            state string
+     * @return the match or null if no provider handles the state
+     */
+    protected UriTemplateMatch getMatch(
+            String state
+        ) {
+        String path = QueryParameters.pathOf(state);
+        UriTemplateMatch match;
+        NavigationStateCache stateCache = this.stateCache;
+        if (stateCache == null) {
+            match = match(path);
+        } else {
+            // read before the providers, so that a match of replaced providers is not cached
+            long generation = stateCache.getGeneration();
+            match = stateCache.get(path);
+            if (match == null) {
+                match = match(path);
+                if (match != null) {
+                    stateCache.put(path, match, generation);
+                }
+            }
+        }
+        if (match != null && path != state) {
+            match = match.withNavigationState(state);
+        }
+        return match;
+    }
+
+    private UriTemplateMatch match(
+            String state
+        ) {
+        UriTemplateMatch match = registry.snapshot().match(state);
+        RouteTable routeTable = this.routeTable;
+        if (routeTable != null) {
+            UriTemplateMatch shared = routeTable.match(state);
+            if (shared != null && (match == null
+                    || UriTemplateRouter.compare(shared, match) > 0)) {
+                match = shared;
+            }
+        }
+        return match;
+    }
+
+    /**
+     * Create the navigation state of a view from the values of the variables of its template, e.g. for links to the
+     * view. The views registered with this navigator are looked up before the routes of the attached
+     * {@link RouteTable}.
+     * <p>
+     * The values are percent encoded, so that the created state is matched with the same values. Views read them with
+     * {@link UriTemplateVariables#getDecoded(String)}. If several templates are registered for the view class, the
+     * first one using exactly the given variables is expanded, otherwise the first one for which all variables are
+     * given.
+     *
+     * @param viewClass
+     *            the class of the view, registered with {@link #addView(String, Class)},
+     *            {@link #addView(String, View)} or {@link #addView(String, Class, SerializableSupplier)}
+     * @param values
+     *            values by variable name
+     * @return the navigation state
+     * @throws IllegalArgumentException
+     *             if no route is known to create views of the class or no template of the view can be expanded with
+     *             the values. The routes of custom providers and of views registered with
+     *             {@link #addView(String, SerializableSupplier)} are not known to create views of any class.
+     */
+    public String uriFor(
+            Class<? extends View> viewClass,
+            Map<String, ?> values
+        ) {
+        ReverseRoutes reverseRoutes = registry.snapshot().reverseRoutes();
+        String uri = reverseRoutes.uriFor(viewClass, values);
+        RouteTable routeTable = this.routeTable;
+        if (uri == null && routeTable != null) {
+            uri = routeTable.uriFor(viewClass, values);
+        }
+        if (uri == null) {
+            List<String> unknown = new ArrayList<String>(
+                    reverseRoutes.getUnknownViewNames());
+            if (routeTable != null) {
+                unknown.addAll(routeTable.getUnknownViewNames());
             }
+            throw new IllegalArgumentException("No route for "
+                    + viewClass.getName() + (unknown.isEmpty() ? ""
+                            : ", the view classes of the routes " + unknown
+                                    + " are unknown"));
+        }
+        return uri;
+    }
+
+    /**
+     * Analyze the providers of this navigator and the routes of the attached {@link RouteTable} for templates which may
+     * match the same navigation states. The routes of the table are treated as registered after the providers of this
+     * navigator. This compares all templates of equal path length and should not be called on every navigation.
+     *
+     * @return the conflicts, including overlaps resolved by specificity
+     */
+    public List<RouteConflict> getRouteConflicts() {
+        List<UriTemplateViewProvider> all = new ArrayList<UriTemplateViewProvider>(
+                registry.snapshot().getProviders());
+        RouteTable routeTable = this.routeTable;
+        if (routeTable != null) {
+            all.addAll(routeTable.getProviders());
+        }
+        return new UriTemplateRouter(all).analyze(true);
+    }
+
+    /**
+     * Attaches a shared {@link RouteTable} to this navigator.
+     * <p>
+     * The routes of the table are matched together with the views and providers registered with this navigator. If a
+     * route of the table and a provider of this navigator match a state with the same path length and specificity,
+     * the provider of this navigator wins. The routes of a table cannot be removed from a single navigator.
+     *
+     * @param routeTable
+     *            the route table or null to detach the current route table
+     */
+    public void setRouteTable(
+            RouteTable routeTable
+        ) {
+        this.routeTable = routeTable;
+        invalidateMatches();
+    }
+
+    /**
+     * Enables a cache of the matches of the most recently used navigation states.
+     * <p>
+     * With a cache, navigating to a state again does not match the state against the registered providers. The cache
+     * is invalidated whenever views or providers are added or removed, or the route table or error provider is
+     * changed. The extracted variables of a cached match are shared by all navigations to the state.
+     * <p>
+     * The cache belongs to this navigator and therefore to a single UI, so it only pays off for the states a user
+     * visits repeatedly. States requested by many users are better cached once in the attached route table, see
+     * {@link RouteTable.Builder#matchCache(int)}.
+     *
+     * @param maximumSize
+     *            the maximum number of cached states or 0 to disable the cache
+     * @see #getNavigationStateCache()
+     */
+    public void setNavigationStateCacheSize(
+            int maximumSize
+        ) {
+        if (maximumSize < 0) {
+            throw new IllegalArgumentException(
+                    "The cache size must not be negative");
         }
-        return longestPathProvider;
+        stateCache = maximumSize == 0 ? null
+                : new NavigationStateCache(maximumSize);
+    }
+
+    /**
+     * Get the cache of navigation states, e.g. to read its hit rate.
+     *
+     * @return the cache or null if no cache is enabled
+     */
+    public NavigationStateCache getNavigationStateCache() {
+        return stateCache;
+    }
+
+    /**
+     * Invalidate what depends on the routes after they changed, possibly on a thread not holding the session lock. The
+     * cache is thread safe and invalidated right away, the state of the UI is reset by
+     * {@link #applyRouteChanges()}.
+     */
+    private void invalidateMatches() {
+        NavigationStateCache stateCache = this.stateCache;
+        if (stateCache != null) {
+            stateCache.invalidateAll();
+        }
+        routesChanged.set(true);
+        VaadinSession session = getSession();
+        if (session != null && session.hasLock()) {
+            applyRouteChanges();
+        }
+    }
+
+    /**
+     * Reset the state of the UI depending on the routes, if they changed since: drop the retained views of removed
+     * views, clear the history and forget the decisions of cacheable guards. Called while the session is locked.
+     */
+    private void applyRouteChanges() {
+        if (!routesChanged.getAndSet(false)) {
+            return;
+        }
+        String viewName;
+        while ((viewName = removedViews.poll()) != null) {
+            retainedViews.remove(viewName);
+        }
+        NavigationHistory history = this.history;
+        if (history != null) {
+            history.clear();
+        }
+        invalidateRouteGuardDecisions();
+    }
+
+    /**
+     * Sets the metrics receiving the timings of route resolution, view creation and view entering of each navigation.
+     * <p>
+     * The metrics are not serialized with the navigator and have to be set again after deserialization.
+     *
+     * @param metrics
+     *            the metrics or null to take no timings
+     * @see LongAdderNavigationMetrics
+     */
+    public void setNavigationMetrics(
+            NavigationMetrics metrics
+        ) {
+        this.metrics = metrics == null ? NavigationMetrics.NONE : metrics;
+    }
+
+    /**
+     * Get the metrics receiving the timings of the navigations.
+     *
+     * @return the metrics, {@link NavigationMetrics#NONE} if no timings are taken
+     */
+    public NavigationMetrics getNavigationMetrics() {
+        // null after deserialization
+        return metrics == null ? NavigationMetrics.NONE : metrics;
+    }
+
+    /**
+     * Collapses bursts of navigations, e.g. of a user holding the back key. A navigation following the previous one
+     * within the window is deferred. Its state is recorded with the state manager at once, but only the last state of
+     * the burst is navigated to when the window has passed, so views of the intermediate states are neither created nor
+     * entered. The deferred navigation runs with {@link UI#access(Runnable)}, and reaches the browser with the next
+     * round trip unless push is enabled.
+     * <p>
+     * Coalescing is disabled by default. The executor is not serialized with the navigator and coalescing has to be
+     * enabled again after deserialization.
+     *
+     * @param window
+     *            the window, 0 to disable coalescing. A deferred navigation is performed right away when the window is
+     *            changed
+     * @param unit
+     *            the unit of the window
+     * @param executor
+     *            the executor scheduling the deferred navigations, may be null to disable coalescing
+     */
+    public void setNavigationCoalescing(
+            long window,
+            TimeUnit unit,
+            ScheduledExecutorService executor
+        ) {
+        if (window < 0) {
+            throw new IllegalArgumentException("window must not be negative");
+        }
+        if (window > 0 && executor == null) {
+            throw new IllegalArgumentException(
+                    "executor must be non-null to coalesce navigations");
+        }
+        coalescing.configure(window, unit, executor);
+    }
+
+    /**
+     * Get the window in which navigations are coalesced.
+     *
+     * @return the window in milliseconds, 0 if navigations are not coalesced
+     */
+    public long getNavigationCoalescingWindowMillis() {
+        return coalescing.getWindowMillis();
+    }
+
+    /**
+     * Enables asynchronous navigation to views implementing {@link AsyncView}. The prepare phase of such a view runs
+     * on the executor without the session being locked, so that loading the data of the view neither blocks other
+     * requests of the session nor ties up the request thread. Meanwhile the placeholder is shown, if any, and the
+     * previous view stays current. Once the data is prepared, the view is shown and entered through
+     * {@link UI#access(Runnable)}, which reaches the browser with the next round trip unless push is enabled. A
+     * navigation started before the data is prepared cancels the preparation. If the preparation fails, the navigation
+     * state is reverted and the failure is passed to the error handler of the session.
+     * <p>
+     * The executor may be shared by all navigators, e.g. {@code Executors.newVirtualThreadPerTaskExecutor()} on Java 21
+     * or a bounded pool. It is not serialized with the navigator and has to be set again after deserialization. Without
+     * an executor, the navigator waits for the data of an {@link AsyncView} while navigating.
+     *
+     * @param executor
+     *            the executor preparing the views or null to prepare them on the navigating thread
+     * @param placeholder
+     *            the view shown while preparing or null to keep the previous view shown, not entered
+     */
+    public void setAsyncNavigation(
+            Executor executor,
+            View placeholder
+        ) {
+        preparation.configure(executor, placeholder);
+    }
+
+    /**
+     * Get the executor preparing views implementing {@link AsyncView}.
+     *
+     * @return the executor or null if views are prepared on the navigating thread
+     */
+    public Executor getAsyncNavigationExecutor() {
+        return preparation.getExecutor();
+    }
+
+    /**
+     * Prepares a likely navigation, e.g. to the target of a button, so that navigating to the state later costs
+     * little. The state is resolved, which puts its match into the navigation state cache, if enabled. A view created
+     * on first request, see {@link #addView(String, SerializableSupplier)}, is created. The view of a route retaining
+     * its views, see {@link #setViewRetention(String, ViewRetentionPolicy)}, is created and retained for the state
+     * unless a view is retained for it already, while other class based views are not created ahead, as each navigation
+     * creates a new instance of them.
+     * <p>
+     * Like navigating, prefetching must happen while the session is locked. Prefetching a state not matching any
+     * route, or denied by the guard of its route, has no effect.
+     *
+     * @param navigationState
+     *            the navigation state likely navigated to
+     * @see #setTransitionPredictor(TransitionPredictor)
+     */
+    public void prefetch(
+            String navigationState
+        ) {
+        applyRouteChanges();
+        UriTemplateMatch match = getMatch(navigationState);
+        if (match == null
+                || !routeGuards.canNavigate(match, routeTable, getSession())) {
+            return;
+        }
+        prefetching.prefetch(match);
+    }
+
+    /**
+     * Sets the predictor learning the transitions between the templates of the navigations of this navigator. After
+     * each navigation the most likely next template is predicted and, if it has no variables, prefetched with
+     * {@link #prefetch(String)}.
+     * <p>
+     * The predictor is not serialized with the navigator and has to be set again after deserialization.
+     *
+     * @param predictor
+     *            the predictor, usually shared by all navigators, or null to neither learn nor prefetch
+     */
+    public void setTransitionPredictor(
+            TransitionPredictor predictor
+        ) {
+        prefetching.setPredictor(predictor);
+    }
+
+    /**
+     * Get the predictor learning the transitions of this navigator.
+     *
+     * @return the predictor or null if none is set
+     */
+    public TransitionPredictor getTransitionPredictor() {
+        return prefetching.getPredictor();
+    }
+
+    /**
+     * Enables a history of the most recent navigations of this navigator.
+     * <p>
+     * Without a history, going back in the browser navigates to the previous state like to any other state: the state
+     * is matched, the view is created and entered. With a history, a navigation to the state before or after the
+     * current one reuses the match and, if the entry still holds it, the view instance of that navigation. The view is
+     * entered again with the new {@link ViewChangeEvent} and must reset whatever it derived from a previous event, like
+     * a retained view, see {@link #setViewRetention(String, ViewRetentionPolicy)}. Only navigations reported by the
+     * {@link NavigationStateManager}, i.e. by the browser, are taken as back or forward navigations, and the history
+     * only moves once the navigation completes.
+     * <p>
+     * Only the entries up to <code>maximumViews</code> navigations before and after the current one hold their view,
+     * which bounds the number of view instances kept in the session. The history is cleared whenever views or
+     * providers are added or removed, or the route table or error provider is changed, by the next navigation if the
+     * routes were changed by a thread not holding the session lock.
+     *
+     * @param maximumSize
+     *            the maximum number of navigations kept or 0 to disable the history
+     * @param maximumViews
+     *            the number of navigations before and after the current one keeping their view, 0 to keep the matches
+     *            only
+     * @see #getNavigationHistory()
+     */
+    public void setNavigationHistory(
+            int maximumSize,
+            int maximumViews
+        ) {
+        if (maximumSize < 0) {
+            throw new IllegalArgumentException(
+                    "The history size must not be negative");
+        }
+        history = maximumSize == 0 ? null
+                : new NavigationHistory(maximumSize, maximumViews);
+    }
+
+    /**
+     * Get the history of the recent navigations of this navigator.
+     *
+     * @return the history or null if no history is enabled
+     */
+    public NavigationHistory getNavigationHistory() {
+        return history;
+    }
+
+    /**
+     * Sets how many view instances of a route are kept for reuse by this navigator.
+     * <p>
+     * By default each navigation to a route of a class based view creates a new view instance. With a retention policy
+     * the instances created for a route are pooled per template: navigating to a state reuses the instance last used
+     * for the state, and once the pool is full, the least recently used instance is reused for any other state of the
+     * route, e.g. the view of {@code apples/1} for {@code apples/2}. A reused view is bound and entered again with the
+     * new {@link ViewChangeEvent} and must reset whatever it derived from a previous event. Retained views belong to
+     * this navigator and therefore to a single UI.
+     * <p>
+     * Retention applies to any route matched by the template, whether registered with this navigator or with the
+     * attached {@link RouteTable}. Static views registered with {@link #addView(String, View)} are always reused.
+     *
+     * @param viewName
+     *            the template of the route as registered
+     * @param policy
+     *            the retention policy or null to drop the retained views and create new instances again
+     */
+    public void setViewRetention(
+            String viewName,
+            ViewRetentionPolicy policy
+        ) {
+        if (viewName == null) {
+            throw new IllegalArgumentException("viewName must be non-null");
+        }
+        retainedViews.setPolicy(viewName, policy);
+    }
+
+    /**
+     * Get the retention policy of a route.
+     *
+     * @param viewName
+     *            the template of the route as registered
+     * @return the policy or null if no view instances of the route are retained
+     */
+    public ViewRetentionPolicy getViewRetention(
+            String viewName
+        ) {
+        return retainedViews.getPolicy(viewName);
+    }
+
+    /**
+     * Guards the routes of a template, see {@link RouteGuard}. The guard is asked after a state matched the template
+     * and before the view is created. A denied state is handled like an unknown state.
+     * <p>
+     * The guard applies to any route matched by the template, whether registered with this navigator or with the
+     * attached {@link RouteTable}, and takes precedence over the guard of the route table for the template.
+     *
+     * @param viewName
+     *            the template of the route as registered
+     * @param guard
+     *            the guard or null to remove the guard set with this navigator
+     * @see RouteTable.Builder#guard(String, RouteGuard)
+     */
+    public void setRouteGuard(
+            String viewName,
+            RouteGuard guard
+        ) {
+        if (viewName == null) {
+            throw new IllegalArgumentException("viewName must be non-null");
+        }
+        routeGuards.set(viewName, guard);
+    }
+
+    /**
+     * Get the guard of the routes of a template.
+     *
+     * @param viewName
+     *            the template of the route as registered
+     * @return the guard set with this navigator, else the guard of the route table, or null if the routes are not
+     *         guarded
+     */
+    public RouteGuard getRouteGuard(
+            String viewName
+        ) {
+        return routeGuards.get(viewName, routeTable);
+    }
+
+    /**
+     * Nests the routes of a template into a parent route, see {@link ParentView}. The state of the parent is its
+     * template expanded with the variables of the child, so every variable of the parent template must be a variable
+     * of the child template.
+     * <p>
+     * The parent applies to any route matched by the template, whether registered with this navigator or with the
+     * attached {@link RouteTable}, and takes precedence over the parent set in the route table for the template.
+     *
+     * @param viewName
+     *            the template of the child routes as registered
+     * @param parentViewName
+     *            the template of the parent route as registered or null to remove the parent set with this navigator
+     * @throws IllegalArgumentException
+     *             if a template is malformed or the parent has a variable the child has not
+     * @see RouteTable.Builder#parent(String, String)
+     */
+    public void setParentRoute(
+            String viewName,
+            String parentViewName
+        ) {
+        if (viewName == null) {
+            throw new IllegalArgumentException("viewName must be non-null");
+        }
+        nestedViews.setParentTemplate(viewName, parentViewName == null ? null
+                : RouteTable.compileParent(viewName, parentViewName));
+    }
+
+    /**
+     * Get the parent route of the routes of a template.
+     *
+     * @param viewName
+     *            the template of the child routes as registered
+     * @return the template of the parent set with this navigator, else of the parent set in the route table, or null
+     *         if the routes are not nested
+     */
+    public String getParentRoute(
+            String viewName
+        ) {
+        CompiledUriTemplate parent = nestedViews.getParentTemplate(viewName);
+        return parent == null ? null : parent.getTemplate();
+    }
+
+    /**
+     * Forget the decisions of cacheable guards, see {@link RouteGuard#isCacheable()}, e.g. after the user logged in or
+     * out. The decisions are kept per session and shared by the navigators of all its UIs, so they are forgotten for
+     * all of them. The decisions are also forgotten whenever views or providers are added or removed, or the route
+     * table or error provider is changed.
+     * <p>
+     * The session is locked while the decisions are forgotten, so this may be called from any thread.
+     *
+     * @see #invalidateRouteGuardDecisions(VaadinSession)
+     */
+    public void invalidateRouteGuardDecisions() {
+        routeGuards.invalidate(getSession());
+    }
+
+    /**
+     * Forget the decisions of cacheable guards of all navigators of a session, e.g. from a logout handler which has no
+     * navigator at hand. The session is locked while the decisions are forgotten.
+     *
+     * @param session
+     *            the session
+     */
+    public static void invalidateRouteGuardDecisions(
+            VaadinSession session
+        ) {
+        RouteGuards.invalidateSession(session);
+    }
+
+    /**
+     * Get the shared route table attached to this navigator.
+     *
+     * @return the route table or null if none is attached
+     */
+    public RouteTable getRouteTable() {
+        return routeTable;
     }
 
     /**
      * Removes a view from navigator.
      * <p>
-     * This method only applies to views registered using {@link #addView(String, View)} or
-     * {@link #addView(String, Class)}.
+     * This method only applies to views registered using {@link #addView(String, View)},
+     * {@link #addView(String, Class)} or {@link #addView(String, SerializableSupplier)}.
      *
      * @param viewName
      *            name of the view to remove
@@ -278,21 +1295,8 @@ public class UriTemplateNavigator extends Navigator {
     public void removeView(
             String viewName
         ) {
-        Iterator<UriTemplateViewProvider> it = providers.iterator();
-        while (it.hasNext()) {
-            ViewProvider provider = it.next();
-            if (provider instanceof StaticUriTemplateViewProvider) {
-                StaticUriTemplateViewProvider staticProvider = (StaticUriTemplateViewProvider) provider;
-                if (staticProvider.getViewName().equals(viewName)) {
-                    it.remove();
-                }
-            } else if (provider instanceof ClassBasedUriTemplateViewProvider) {
-                ClassBasedUriTemplateViewProvider classBasedProvider = (ClassBasedUriTemplateViewProvider) provider;
-                if (classBasedProvider.getViewName().equals(viewName)) {
-                    it.remove();
-                }
-            }
-        }
+        replaceViews(Collections.singleton(viewName),
+                Collections.<UriTemplateViewProvider> emptyList());
     }
 
     /**
@@ -314,7 +1318,8 @@ public class UriTemplateNavigator extends Navigator {
             throw new IllegalArgumentException(
                     "Cannot add a null or non-UriTemplateViewProvider view provider");
         }
-        providers.add((UriTemplateViewProvider) provider);
+        replaceViews(Collections.<String> emptySet(),
+                Collections.singletonList((UriTemplateViewProvider) provider));
     }
 
     /**
@@ -327,7 +1332,9 @@ public class UriTemplateNavigator extends Navigator {
     public void removeProvider(
             ViewProvider provider
         ) {
-        providers.remove(provider);
+        if (registry.remove(provider)) {
+            invalidateMatches();
+        }
     }
 
     /**
@@ -343,6 +1350,7 @@ public class UriTemplateNavigator extends Navigator {
             ViewProvider provider
         ) {
         errorProvider = provider;
+        invalidateMatches();
     }
 
     /**
@@ -390,4 +1398,27 @@ public class UriTemplateNavigator extends Navigator {
             currentNavigationState = navigationState;
         }
     }
+
+    /**
+     * The result of letting the current view update itself to another state of its route.
+     */
+    private enum ParameterChange {
+
+        /**
+         * The view updated itself, the navigation ended.
+         */
+        UPDATED,
+
+        /**
+         * A listener vetoed the change, the navigation was reverted.
+         */
+        VETOED,
+
+        /**
+         * The view cannot update itself or declined the change, the full view change follows.
+         */
+        NOT_APPLICABLE
+
+    }
+
 }
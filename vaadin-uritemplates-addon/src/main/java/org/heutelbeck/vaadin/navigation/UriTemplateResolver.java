@@ -2,10 +2,12 @@ package org.heutelbeck.vaadin.navigation;
 
 import java.util.Map;
 
-import org.springframework.web.util.UriTemplate;
-
+/**
+ * Resolves the variables of a single template from view names. A query part of a view name, starting with the first
+ * {@code ?}, is not part of the variables and is resolved with {@link #resolveQueryParameters(String)}.
+ */
 public class UriTemplateResolver {
-    private final UriTemplate template;
+    private final CompiledUriTemplate template;
 
     public UriTemplateResolver(
             String viewName
@@ -14,12 +16,63 @@ public class UriTemplateResolver {
             throw new IllegalArgumentException(
                     "template may not be null or empty.");
         }
-        template = new UriTemplate(viewName);
+        template = new CompiledUriTemplate(viewName);
     }
 
     public Map<String, String> resolveViewName(
             String viewName
     ) {
-        return template.match(viewName);
+        if (viewName == null) {
+            throw new IllegalArgumentException("view name may not be null.");
+        }
+        String path = QueryParameters.pathOf(viewName);
+        UriTemplateVariables variables = new UriTemplateVariables();
+        if (!template.find(path, variables)) {
+            variables.clear(path);
+        }
+        return variables.toMap();
+    }
+
+    /**
+     * Resolve the parameters of the query part of the view name.
+     *
+     * @param viewName
+     *            the view name to resolve
+     * @return the parameters, {@link QueryParameters#EMPTY} if the view name has no query
+     */
+    public QueryParameters resolveQueryParameters(
+            String viewName
+    ) {
+        if (viewName == null) {
+            throw new IllegalArgumentException("view name may not be null.");
+        }
+        return QueryParameters.of(viewName);
+    }
+
+    /**
+     * Resolve the variables of the view name into a reusable accessor, without creating a map.
+     *
+     * @param viewName
+     *            the view name to resolve
+     * @param variables
+     *            receives the variables, overwriting a previous resolution
+     * @return true if the template was found in the view name
+     */
+    public boolean resolveViewName(
+            CharSequence viewName,
+            UriTemplateVariables variables
+    ) {
+        CharSequence path = viewName;
+        for (int i = 0; i < viewName.length(); i++) {
+            if (viewName.charAt(i) == '?') {
+                path = viewName.subSequence(0, i);
+                break;
+            }
+        }
+        if (template.find(path, variables)) {
+            return true;
+        }
+        variables.clear(path);
+        return false;
     }
 }
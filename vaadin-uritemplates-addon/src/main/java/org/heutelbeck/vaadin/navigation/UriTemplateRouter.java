@@ -0,0 +1,628 @@
+package org.heutelbeck.vaadin.navigation;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Segment based routing trie compiled from a list of {@link UriTemplateViewProvider}s.
+ * <p>
+ * Templates of {@link AbstractUriTemplateViewProvider}s are split into path segments. Literal segments become literal
+ * children of a node, segments containing a variable become the wildcard child of a node. As a variable may also match
+ * a slash, a wildcard child may consume more than one segment of the navigation state. Providers reached this way are
+ * only candidates and are confirmed with {@link AbstractUriTemplateViewProvider#match(String)}, which extracts the
+ * variables of the template in the same pass. The exact and prefix matches of the raw view name are looked up in a
+ * second trie keyed by the literal segments of the view name.
+ * <p>
+ * Other {@link UriTemplateViewProvider} implementations are checked one by one, as before.
+ * <p>
+ * The provider with the longest {@link UriTemplateViewProvider#getPathLength()} wins. Ties are resolved by the
+ * specificity of the match as described for {@link RouteConflict}: exact matches and templates ranked segment by segment
+ * (literal before regular expression before plain variable), then other providers, then prefix matches. Only equally
+ * specific providers are ordered by registration. The candidates of a trie node are kept in that order, so the first
+ * candidate confirmed at a node is the best one of the node. The cost of a lookup depends on the depth of the
+ * navigation state and not on the number of registered templates.
+ */
+@SuppressWarnings("serial")
+final class UriTemplateRouter implements Serializable {
+
+    private final Node templateRoot = new Node();
+    private final Node rawRoot = new Node();
+    private final List<Entry> others = new ArrayList<Entry>();
+    private final List<Entry> templates = new ArrayList<Entry>();
+
+    private static final int LITERAL = 3;
+    private static final int REGEX = 2;
+    private static final int PLAIN = 1;
+
+    static final int KIND_PREFIX = 0;
+    static final int KIND_OTHER = 1;
+    static final int KIND_TEMPLATE = 2;
+
+    private static final Entry[] NO_ENTRIES = new Entry[0];
+    private static final int[][] LITERAL_RANKS = new int[16][];
+
+    static {
+        for (int i = 0; i < LITERAL_RANKS.length; i++) {
+            LITERAL_RANKS[i] = new int[i];
+            Arrays.fill(LITERAL_RANKS[i], LITERAL);
+        }
+    }
+
+    /**
+     * Compile a router for the given providers.
+     *
+     * @param providers
+     *            providers in order of registration
+     */
+    UriTemplateRouter(
+            List<? extends UriTemplateViewProvider> providers
+    ) {
+        int ordinal = 0;
+        for (UriTemplateViewProvider provider : providers) {
+            if (provider instanceof AbstractUriTemplateViewProvider) {
+                String viewName = ((AbstractUriTemplateViewProvider) provider)
+                        .getViewName();
+                List<String> rawSegments = splitRaw(viewName);
+                int[] exactRanks = literalRanks(rawSegments.size());
+                if (viewName.isEmpty()) {
+                    Entry entry = new Entry(provider, ordinal++, null,
+                            exactRanks);
+                    insert(rawRoot, rawSegments, entry);
+                } else {
+                    List<String> segments = splitTemplate(viewName);
+                    Entry entry = new Entry(provider, ordinal++,
+                            ranksOf(segments), exactRanks);
+                    insert(rawRoot, rawSegments, entry);
+                    insertTemplate(segments, entry);
+                    templates.add(entry);
+                }
+            } else {
+                others.add(new Entry(provider, ordinal++, null, null));
+            }
+        }
+    }
+
+    /**
+     * Analyze the templates of equal path length which may match the same navigation state.
+     *
+     * @param overlaps
+     *            whether to report overlaps resolved by specificity as well, which requires to compare every pair of
+     *            templates of equal path length. Otherwise only templates with the same literal segments at the same
+     *            positions are compared, which are either shadowed or ambiguous.
+     * @return the conflicts in order of registration of the later route
+     */
+    List<RouteConflict> analyze(
+            boolean overlaps
+    ) {
+        List<RouteConflict> result = new ArrayList<RouteConflict>();
+        Map<String, List<Entry>> groups = new HashMap<String, List<Entry>>();
+        Map<Entry, List<String>> shapes = new HashMap<Entry, List<String>>();
+        for (Entry entry : templates) {
+            List<String> shape = shapeOf(entry);
+            shapes.put(entry, shape);
+            String key = overlaps ? String.valueOf(entry.pathLength)
+                    : entry.pathLength + skeletonOf(shape);
+            List<Entry> group = groups.get(key);
+            if (group == null) {
+                group = new ArrayList<Entry>(1);
+                groups.put(key, group);
+            }
+            for (Entry other : group) {
+                List<String> otherShape = shapes.get(other);
+                if (shape.equals(otherShape)) {
+                    result.add(conflict(RouteConflict.Kind.SHADOWED, other,
+                            entry));
+                } else if (mayOverlap(shape, otherShape)) {
+                    int order = compareRanks(entry.ranks, other.ranks);
+                    if (order == 0) {
+                        result.add(conflict(RouteConflict.Kind.AMBIGUOUS,
+                                other, entry));
+                    } else if (order > 0) {
+                        result.add(conflict(RouteConflict.Kind.OVERLAP, entry,
+                                other));
+                    } else {
+                        result.add(conflict(RouteConflict.Kind.OVERLAP, other,
+                                entry));
+                    }
+                }
+            }
+            group.add(entry);
+        }
+        return result;
+    }
+
+    /**
+     * The literal segments of a shape and the ranks of the others, e.g. {@code apples/{}/cores/{:\d+}} becomes
+     * {@code /apples/{1}/cores/{2}}. Templates with the same skeleton have the same ranks and may match the same
+     * states.
+     */
+    private static String skeletonOf(
+            List<String> shape
+    ) {
+        StringBuilder skeleton = new StringBuilder();
+        for (String segment : shape) {
+            skeleton.append('/');
+            int rank = rankOf(segment);
+            if (rank == LITERAL) {
+                skeleton.append(segment);
+            } else {
+                skeleton.append('{').append(rank).append('}');
+            }
+        }
+        return skeleton.toString();
+    }
+
+    private static RouteConflict conflict(
+            RouteConflict.Kind kind,
+            Entry winner,
+            Entry loser
+    ) {
+        return new RouteConflict(kind, viewNameOf(winner), viewNameOf(loser));
+    }
+
+    private static String viewNameOf(
+            Entry entry
+    ) {
+        return ((AbstractUriTemplateViewProvider) entry.provider).getViewName();
+    }
+
+    /**
+     * The segments of a template with the names of its variables removed.
+     */
+    private static List<String> shapeOf(
+            Entry entry
+    ) {
+        List<String> segments = splitTemplate(viewNameOf(entry));
+        for (int i = 0; i < segments.size(); i++) {
+            String segment = segments.get(i);
+            if (segment.indexOf('{') < 0) {
+                continue;
+            }
+            StringBuilder shape = new StringBuilder(segment.length());
+            int level = 0;
+            boolean name = false;
+            for (int j = 0; j < segment.length(); j++) {
+                char c = segment.charAt(j);
+                if (c == '{' && level++ == 0) {
+                    name = true;
+                } else if (c == '}' && --level == 0) {
+                    name = false;
+                } else if (c == ':' && level == 1) {
+                    name = false;
+                }
+                if (!name || c == '{') {
+                    shape.append(c);
+                }
+            }
+            segments.set(i, shape.toString());
+        }
+        return segments;
+    }
+
+    /**
+     * Two templates may match the same state if every pair of segments is either equal or contains a variable.
+     */
+    private static boolean mayOverlap(
+            List<String> shape,
+            List<String> otherShape
+    ) {
+        if (shape.size() != otherShape.size()) {
+            return false;
+        }
+        for (int i = 0; i < shape.size(); i++) {
+            String segment = shape.get(i);
+            String otherSegment = otherShape.get(i);
+            if (segment.indexOf('{') < 0 && otherSegment.indexOf('{') < 0
+                    && !segment.equals(otherSegment)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int[] ranksOf(
+            List<String> segments
+    ) {
+        int[] ranks = new int[segments.size()];
+        for (int i = 0; i < ranks.length; i++) {
+            ranks[i] = rankOf(segments.get(i));
+        }
+        return ranks;
+    }
+
+    private static int rankOf(
+            String segment
+    ) {
+        if (segment.indexOf('{') < 0) {
+            return LITERAL;
+        }
+        int level = 0;
+        boolean regex = false;
+        for (int i = 0; i < segment.length(); i++) {
+            char c = segment.charAt(i);
+            if (c == '{') {
+                if (level++ == 0) {
+                    regex = false;
+                }
+            } else if (c == ':' && level == 1) {
+                regex = true;
+            } else if (c == '}' && --level == 0 && !regex) {
+                return PLAIN;
+            }
+        }
+        return REGEX;
+    }
+
+    /**
+     * Match the given navigation state and extract the variables of the winning template.
+     *
+     * @param state
+     *            navigation state
+     * @return the match of the provider with the longest path or null if no provider matches
+     */
+    UriTemplateMatch match(
+            String state
+    ) {
+        List<String> segments = splitRaw(state);
+        Best best = new Best();
+
+        // exact and prefix matches of the raw view name
+        Node node = rawRoot;
+        for (int i = 0; i < segments.size() && node != null; i++) {
+            node = node.child(segments.get(i));
+            if (node != null) {
+                boolean exact = i == segments.size() - 1;
+                for (Entry entry : node.entries) {
+                    if (exact) {
+                        best.offer(entry, KIND_TEMPLATE, entry.exactRanks,
+                                null);
+                    } else {
+                        best.offer(entry, KIND_PREFIX, null, null);
+                    }
+                }
+            }
+        }
+
+        // template matches
+        collect(templateRoot, segments, 0, state, best);
+
+        String othersViewName = null;
+        for (Entry entry : others) {
+            if (best.accepts(entry, KIND_OTHER, null)) {
+                String viewName = entry.provider.getViewName(state);
+                if (viewName != null) {
+                    best.offer(entry, KIND_OTHER, null,
+                            new UriTemplateVariables());
+                    othersViewName = viewName;
+                }
+            }
+        }
+
+        if (best.entry == null) {
+            return null;
+        }
+        UriTemplateViewProvider provider = best.entry.provider;
+        if (!(provider instanceof AbstractUriTemplateViewProvider)) {
+            UriTemplateMatch match = new UriTemplateMatch(provider,
+                    othersViewName, state, best.variables);
+            match.setPrecedence(best.kind, best.ranks);
+            return match;
+        }
+        AbstractUriTemplateViewProvider templateProvider = (AbstractUriTemplateViewProvider) provider;
+        UriTemplateVariables variables = best.variables;
+        if (variables == null) {
+            variables = templateProvider.match(state);
+        }
+        UriTemplateMatch match = new UriTemplateMatch(provider,
+                templateProvider.getViewName(), state, variables);
+        match.setPrecedence(best.kind, best.ranks);
+        return match;
+    }
+
+    /**
+     * Compare the precedence of matches found by different routers, ignoring the order of registration.
+     *
+     * @return a positive number if the first match takes precedence, 0 if both are equally specific
+     */
+    static int compare(
+            UriTemplateMatch a,
+            UriTemplateMatch b
+    ) {
+        int lengthA = ((UriTemplateViewProvider) a.getProvider())
+                .getPathLength();
+        int lengthB = ((UriTemplateViewProvider) b.getProvider())
+                .getPathLength();
+        if (lengthA != lengthB) {
+            return lengthA > lengthB ? 1 : -1;
+        }
+        if (a.getPrecedenceKind() != b.getPrecedenceKind()) {
+            return a.getPrecedenceKind() > b.getPrecedenceKind() ? 1 : -1;
+        }
+        if (a.getPrecedenceRanks() != null
+                && b.getPrecedenceRanks() != null) {
+            return compareRanks(a.getPrecedenceRanks(),
+                    b.getPrecedenceRanks());
+        }
+        return 0;
+    }
+
+    private void collect(
+            Node node,
+            List<String> segments,
+            int index,
+            String state,
+            Best best
+    ) {
+        if (index == segments.size()) {
+            // entries are ordered by precedence, the first match is the best of this node
+            for (Entry entry : node.entries) {
+                if (!best.accepts(entry, KIND_TEMPLATE, entry.ranks)) {
+                    break;
+                }
+                UriTemplateVariables variables = best.spare();
+                if (((AbstractUriTemplateViewProvider) entry.provider)
+                        .match(state, variables)) {
+                    best.offer(entry, KIND_TEMPLATE, entry.ranks, variables);
+                    break;
+                }
+            }
+            return;
+        }
+        Node literal = node.child(segments.get(index));
+        if (literal != null) {
+            collect(literal, segments, index + 1, state, best);
+        }
+        if (node.wildcard != null) {
+            // a variable may span several segments
+            for (int end = index + 1; end <= segments.size(); end++) {
+                collect(node.wildcard, segments, end, state, best);
+            }
+        }
+    }
+
+    private void insertTemplate(
+            List<String> segments,
+            Entry entry
+    ) {
+        Node node = templateRoot;
+        for (String segment : segments) {
+            if (segment.indexOf('{') < 0) {
+                node = node.addChild(segment);
+            } else {
+                if (node.wildcard == null) {
+                    node.wildcard = new Node();
+                }
+                node = node.wildcard;
+            }
+        }
+        int index = 0;
+        while (index < node.entries.length && compare(node.entries[index],
+                KIND_TEMPLATE, node.entries[index].ranks, entry,
+                KIND_TEMPLATE, entry.ranks) > 0) {
+            index++;
+        }
+        node.addEntry(index, entry);
+    }
+
+    private static void insert(
+            Node root,
+            List<String> segments,
+            Entry entry
+    ) {
+        Node node = root;
+        for (String segment : segments) {
+            node = node.addChild(segment);
+        }
+        node.addEntry(node.entries.length, entry);
+    }
+
+    /**
+     * Split at every slash, keeping empty segments. Unlike {@link String#split(String)} trailing empty segments are
+     * retained, so that the segments of a view name are a prefix of the segments of a state exactly when the state
+     * equals the view name or starts with the view name followed by a slash.
+     */
+    private static List<String> splitRaw(
+            String path
+    ) {
+        List<String> segments = new ArrayList<String>();
+        int start = 0;
+        int slash;
+        while ((slash = path.indexOf('/', start)) >= 0) {
+            segments.add(path.substring(start, slash));
+            start = slash + 1;
+        }
+        segments.add(path.substring(start));
+        return segments;
+    }
+
+    /**
+     * Split a template at every slash outside of a variable declaration, as a custom regular expression of a variable
+     * may contain slashes.
+     */
+    private static List<String> splitTemplate(
+            String template
+    ) {
+        List<String> segments = new ArrayList<String>();
+        int level = 0;
+        int start = 0;
+        for (int i = 0; i < template.length(); i++) {
+            char c = template.charAt(i);
+            if (c == '{') {
+                level++;
+            } else if (c == '}') {
+                level--;
+            } else if (c == '/' && level == 0) {
+                segments.add(template.substring(start, i));
+                start = i + 1;
+            }
+        }
+        segments.add(template.substring(start));
+        return segments;
+    }
+
+    /**
+     * Ranks of a view name matched exactly, shared by all view names with the same number of segments.
+     */
+    private static int[] literalRanks(
+            int length
+    ) {
+        if (length < LITERAL_RANKS.length) {
+            return LITERAL_RANKS[length];
+        }
+        int[] ranks = new int[length];
+        Arrays.fill(ranks, LITERAL);
+        return ranks;
+    }
+
+    /**
+     * A node of a trie. Most nodes of a large route set have at most one child and one entry, so the children are
+     * kept in a map only once there are some, and the entries in an array of the exact size. Literal segments are
+     * interned, as the same segments recur in many templates.
+     */
+    private static final class Node implements Serializable {
+        private Map<String, Node> literals;
+        private Entry[] entries = NO_ENTRIES;
+        private Node wildcard;
+
+        private Node child(
+                String segment
+        ) {
+            return literals == null ? null : literals.get(segment);
+        }
+
+        private Node addChild(
+                String segment
+        ) {
+            if (literals == null) {
+                literals = new HashMap<String, Node>(2);
+            }
+            Node child = literals.get(segment);
+            if (child == null) {
+                child = new Node();
+                literals.put(segment.intern(), child);
+            }
+            return child;
+        }
+
+        private void addEntry(
+                int index,
+                Entry entry
+        ) {
+            Entry[] result = new Entry[entries.length + 1];
+            System.arraycopy(entries, 0, result, 0, index);
+            result[index] = entry;
+            System.arraycopy(entries, index, result, index + 1,
+                    entries.length - index);
+            entries = result;
+        }
+    }
+
+    /**
+     * Compare the precedence of two candidates: path length, kind of match, ranks of the segments, registration.
+     *
+     * @return a positive number if the first candidate takes precedence
+     */
+    private static int compare(
+            Entry a,
+            int kindA,
+            int[] ranksA,
+            Entry b,
+            int kindB,
+            int[] ranksB
+    ) {
+        if (a.pathLength != b.pathLength) {
+            return a.pathLength > b.pathLength ? 1 : -1;
+        }
+        if (kindA != kindB) {
+            return kindA > kindB ? 1 : -1;
+        }
+        if (ranksA != null && ranksB != null) {
+            int result = compareRanks(ranksA, ranksB);
+            if (result != 0) {
+                return result;
+            }
+        }
+        return a.ordinal == b.ordinal ? 0 : a.ordinal < b.ordinal ? 1 : -1;
+    }
+
+    private static int compareRanks(
+            int[] ranks,
+            int[] otherRanks
+    ) {
+        int length = Math.min(ranks.length, otherRanks.length);
+        for (int i = 0; i < length; i++) {
+            if (ranks[i] != otherRanks[i]) {
+                return ranks[i] > otherRanks[i] ? 1 : -1;
+            }
+        }
+        return ranks.length - otherRanks.length;
+    }
+
+    private static final class Entry implements Serializable {
+        private final UriTemplateViewProvider provider;
+        private final int ordinal;
+        private final int pathLength;
+        private final int[] ranks;
+        private final int[] exactRanks;
+
+        private Entry(
+                UriTemplateViewProvider provider,
+                int ordinal,
+                int[] ranks,
+                int[] exactRanks
+        ) {
+            this.provider = provider;
+            this.ordinal = ordinal;
+            this.pathLength = provider.getPathLength();
+            this.ranks = ranks;
+            this.exactRanks = exactRanks;
+        }
+    }
+
+    private static final class Best {
+        private Entry entry;
+        private int kind;
+        private int[] ranks;
+        private UriTemplateVariables variables;
+        private UriTemplateVariables spare;
+
+        private boolean accepts(
+                Entry candidate,
+                int candidateKind,
+                int[] candidateRanks
+        ) {
+            return entry == null || compare(candidate, candidateKind,
+                    candidateRanks, entry, kind, ranks) > 0;
+        }
+
+        private void offer(
+                Entry candidate,
+                int candidateKind,
+                int[] candidateRanks,
+                UriTemplateVariables candidateVariables
+        ) {
+            if (accepts(candidate, candidateKind, candidateRanks)) {
+                if (candidateVariables == spare) {
+                    // recycle the variables of the previous best match
+                    spare = variables;
+                }
+                entry = candidate;
+                kind = candidateKind;
+                ranks = candidateRanks;
+                variables = candidateVariables;
+            }
+        }
+
+        private UriTemplateVariables spare() {
+            if (spare == null) {
+                spare = new UriTemplateVariables();
+            }
+            return spare;
+        }
+    }
+
+}
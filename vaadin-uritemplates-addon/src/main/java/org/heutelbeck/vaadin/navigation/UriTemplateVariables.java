@@ -0,0 +1,230 @@
+package org.heutelbeck.vaadin.navigation;
+
+import java.io.Serializable;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Index based access to the variables extracted by a {@link CompiledUriTemplate}.
+ * <p>
+ * The values are not copied out of the matched input. Only their offsets are recorded, and a value string is created
+ * when it is requested. An instance can be reused for many matches, each match overwrites the previous one. An
+ * instance is not thread safe.
+ */
+@SuppressWarnings("serial")
+public final class UriTemplateVariables implements Serializable {
+
+    private static final String[] NO_NAMES = new String[0];
+
+    private String[] names = NO_NAMES;
+    private int[] bounds = new int[0];
+    private CharSequence source = "";
+
+    /**
+     * Create an empty instance, ready to be passed to {@link CompiledUriTemplate#match(CharSequence, UriTemplateVariables)}.
+     */
+    public UriTemplateVariables() {
+    }
+
+    /**
+     * Prepare this instance for a new match.
+     *
+     * @param variableNames
+     *            names of the variables of the matching template, shared and never modified
+     * @param input
+     *            the matched input
+     * @return the array receiving start and end offset of each variable, two entries per variable
+     */
+    int[] reset(
+            String[] variableNames,
+            CharSequence input
+    ) {
+        names = variableNames;
+        source = input;
+        if (bounds.length < 2 * variableNames.length) {
+            bounds = new int[2 * variableNames.length];
+        }
+        return bounds;
+    }
+
+    /**
+     * Drop the variables of the previous match.
+     *
+     * @param input
+     *            the matched input
+     */
+    void clear(
+            CharSequence input
+    ) {
+        names = NO_NAMES;
+        source = input;
+    }
+
+    /**
+     * Get the number of variables, including repeated names.
+     *
+     * @return number of variables
+     */
+    public int size() {
+        return names.length;
+    }
+
+    /**
+     * Get the name of a variable.
+     *
+     * @param index
+     *            index of the variable in the template
+     * @return the name
+     */
+    public String getName(
+            int index
+    ) {
+        return names[index];
+    }
+
+    /**
+     * Get the offset of the first character of a value within the matched input.
+     *
+     * @param index
+     *            index of the variable in the template
+     * @return start offset, inclusive, or -1 if the variable is within a part of a regular expression which did not
+     *         participate in the match
+     */
+    public int getStart(
+            int index
+    ) {
+        checkIndex(index);
+        return bounds[2 * index];
+    }
+
+    /**
+     * Get the offset after the last character of a value within the matched input.
+     *
+     * @param index
+     *            index of the variable in the template
+     * @return end offset, exclusive, or -1 if the variable did not participate in the match
+     */
+    public int getEnd(
+            int index
+    ) {
+        checkIndex(index);
+        return bounds[2 * index + 1];
+    }
+
+    /**
+     * Get the matched input the offsets refer to.
+     *
+     * @return the input
+     */
+    public CharSequence getSource() {
+        return source;
+    }
+
+    /**
+     * Get the value of a variable. The string is created on each call.
+     *
+     * @param index
+     *            index of the variable in the template
+     * @return the value or null if the variable did not participate in the match, like in Spring
+     */
+    public String getValue(
+            int index
+    ) {
+        int start = getStart(index);
+        return start < 0 ? null
+                : source.subSequence(start, getEnd(index)).toString();
+    }
+
+    /**
+     * Get the percent decoded value of a variable, e.g. of a navigation state created with
+     * {@link CompiledUriTemplate#expand(Map)}. Malformed escapes are kept as they are.
+     *
+     * @param index
+     *            index of the variable in the template
+     * @return the decoded value or null if the variable did not participate in the match
+     */
+    public String getDecodedValue(
+            int index
+    ) {
+        int start = getStart(index);
+        return start < 0 ? null
+                : UriEncoding.decode(source, start, getEnd(index));
+    }
+
+    /**
+     * Get the index of a variable. If a name is used more than once in a template, the last occurrence wins, like in
+     * the map returned by {@link #toMap()}.
+     *
+     * @param name
+     *            name of the variable
+     * @return the index or -1 if there is no such variable
+     */
+    public int indexOf(
+            String name
+    ) {
+        for (int i = names.length - 1; i >= 0; i--) {
+            if (names[i].equals(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Get the value of a variable by name.
+     *
+     * @param name
+     *            name of the variable
+     * @return the value or null if there is no such variable
+     */
+    public String get(
+            String name
+    ) {
+        int index = indexOf(name);
+        return index < 0 ? null : getValue(index);
+    }
+
+    /**
+     * Get the percent decoded value of a variable by name.
+     *
+     * @param name
+     *            name of the variable
+     * @return the decoded value or null if there is no such variable
+     * @see #getDecodedValue(int)
+     */
+    public String getDecoded(
+            String name
+    ) {
+        int index = indexOf(name);
+        return index < 0 ? null : getDecodedValue(index);
+    }
+
+    /**
+     * Copy the variables into a new map, in template order.
+     *
+     * @return map of variable names to values
+     */
+    public Map<String, String> toMap() {
+        Map<String, String> result = new LinkedHashMap<String, String>(
+                names.length);
+        for (int i = 0; i < names.length; i++) {
+            result.put(names[i], getValue(i));
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return toMap().toString();
+    }
+
+    private void checkIndex(
+            int index
+    ) {
+        if (index < 0 || index >= names.length) {
+            throw new IndexOutOfBoundsException(
+                    "No variable at index " + index);
+        }
+    }
+
+}
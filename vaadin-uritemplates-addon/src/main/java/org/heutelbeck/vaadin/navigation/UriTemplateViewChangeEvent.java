@@ -0,0 +1,111 @@
+package org.heutelbeck.vaadin.navigation;
+
+import com.vaadin.navigator.Navigator;
+import com.vaadin.navigator.View;
+import com.vaadin.navigator.ViewChangeListener.ViewChangeEvent;
+
+/**
+ * A {@link ViewChangeEvent} fired by the {@link UriTemplateNavigator}, carrying the {@link UriTemplateMatch} of the
+ * navigation state. Views read the variables of their template from the event instead of matching the view name
+ * again.
+ */
+@SuppressWarnings("serial")
+public class UriTemplateViewChangeEvent extends ViewChangeEvent {
+
+    private final UriTemplateMatch match;
+
+    /**
+     * Create a new event.
+     *
+     * @param navigator
+     *            Navigator that triggered the event, not null
+     * @param oldView
+     *            View being deactivated
+     * @param newView
+     *            View being activated
+     * @param viewName
+     *            Name of the view being activated
+     * @param parameters
+     *            Parameters passed to the new view
+     * @param match
+     *            the match of the navigation state or null if not known
+     */
+    public UriTemplateViewChangeEvent(
+            Navigator navigator,
+            View oldView,
+            View newView,
+            String viewName,
+            String parameters,
+            UriTemplateMatch match
+    ) {
+        super(navigator, oldView, newView, viewName, parameters);
+        this.match = match;
+    }
+
+    /**
+     * Get the match of the navigation state.
+     *
+     * @return the match or null if not known
+     */
+    public UriTemplateMatch getMatch() {
+        return match;
+    }
+
+    /**
+     * Get the variables extracted from the navigation state.
+     *
+     * @return the variables, empty if the match is not known
+     */
+    public UriTemplateVariables getVariables() {
+        if (match == null) {
+            return new UriTemplateVariables();
+        }
+        return match.getVariables();
+    }
+
+    /**
+     * Get the value of a single variable extracted from the navigation state.
+     *
+     * @param name
+     *            name of the variable
+     * @return the value or null if there is no such variable
+     */
+    public String getVariable(
+            String name
+    ) {
+        return getVariables().get(name);
+    }
+
+    /**
+     * Create a parameter object of the given class, with its fields annotated with {@link UriVariable} set to the
+     * variables of the match.
+     *
+     * @param type
+     *            the class of the parameter object, with a constructor taking no arguments
+     * @param <T>
+     *            the class of the parameter object
+     * @return the parameter object
+     * @throws ParameterBindingException
+     *             if a required variable is missing or a value cannot be converted
+     * @see ParameterBinder
+     */
+    public <T> T bind(
+            Class<T> type
+    ) {
+        return ParameterBinder.of(type).create(getVariables());
+    }
+
+    /**
+     * Get the parameters of the query part of the navigation state, like {@code sort=name} in
+     * {@code apples?sort=name}.
+     *
+     * @return the parameters, empty if the state has no query or the match is not known
+     */
+    public QueryParameters getQueryParameters() {
+        if (match == null) {
+            return QueryParameters.EMPTY;
+        }
+        return match.getQueryParameters();
+    }
+
+}
@@ -1,9 +1,24 @@
 package org.heutelbeck.vaadin.navigation;
 
+import com.vaadin.navigator.View;
 import com.vaadin.navigator.ViewProvider;
 
 public interface UriTemplateViewProvider extends ViewProvider {
 
     int getPathLength();
 
+    /**
+     * Create or return a view for a match of this provider. Providers can use the extracted variables to create views
+     * which are already populated.
+     *
+     * @param match
+     *            a match of this provider
+     * @return the view or null if the view cannot be created
+     */
+    default View getView(
+            UriTemplateMatch match
+    ) {
+        return getView(match.getViewName());
+    }
+
 }
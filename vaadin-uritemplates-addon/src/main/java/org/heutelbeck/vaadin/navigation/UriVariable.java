@@ -0,0 +1,53 @@
+package org.heutelbeck.vaadin.navigation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Binds a field to a variable of the matched template, converted to the type of the field.
+ * <p>
+ * The {@link UriTemplateNavigator} fills the annotated fields of a view before the view is entered, and
+ * {@link UriTemplateViewChangeEvent#bind(Class)} creates and fills a parameter object:
+ *
+ * <pre>
+ * public class Core extends VerticalLayout implements View {
+ *     public static final String NAME = "apples/{appleId}/cores/{coreId}";
+ *
+ *     &#64;UriVariable
+ *     String appleId;
+ *     &#64;UriVariable("coreId")
+ *     int core;
+ *     ...
+ * }
+ * </pre>
+ *
+ * Supported field types are {@code int}, {@code long}, their wrappers, {@link java.util.UUID} and {@link String},
+ * which receives the percent decoded value. A value which cannot be converted fails the navigation, see
+ * {@link ParameterBindingException}.
+ *
+ * @see ParameterBinder
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.FIELD)
+public @interface UriVariable {
+
+    /**
+     * The name of the variable in the template.
+     *
+     * @return the name, empty for the name of the field
+     */
+    String value() default "";
+
+    /**
+     * Whether the template must declare the variable. A field of an optional variable missing in the matched template
+     * is left unchanged.
+     *
+     * @return true if the variable is required
+     */
+    boolean required() default true;
+
+}
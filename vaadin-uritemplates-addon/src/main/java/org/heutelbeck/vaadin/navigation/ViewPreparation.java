@@ -0,0 +1,157 @@
+package org.heutelbeck.vaadin.navigation;
+
+import java.io.Serializable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+
+import com.vaadin.navigator.View;
+import com.vaadin.ui.UI;
+import com.vaadin.ui.UIDetachedException;
+
+/**
+ * Prepares the data of the {@link AsyncView}s a navigator navigates to, see
+ * {@link UriTemplateNavigator#setAsyncNavigation(Executor, View)}. At most one preparation is running, a new one
+ * cancels it. Used while the session is locked.
+ */
+@SuppressWarnings("serial")
+final class ViewPreparation implements Serializable {
+
+    private final UriTemplateNavigator navigator;
+    private final NestedViews nestedViews;
+    private transient Executor executor;
+    private View placeholder;
+    private transient CompletableFuture<?> preparation;
+    private int sequence;
+
+    ViewPreparation(
+            UriTemplateNavigator navigator,
+            NestedViews nestedViews
+    ) {
+        this.navigator = navigator;
+        this.nestedViews = nestedViews;
+    }
+
+    void configure(
+            Executor executor,
+            View placeholder
+    ) {
+        this.executor = executor;
+        this.placeholder = placeholder;
+    }
+
+    Executor getExecutor() {
+        return executor;
+    }
+
+    /**
+     * Check whether the data of a view is being prepared, so that the current view is about to be replaced.
+     */
+    boolean isPreparing() {
+        return preparation != null;
+    }
+
+    /**
+     * Cancel the running preparation, if any, as a later navigation supersedes it.
+     */
+    void cancel() {
+        sequence++;
+        if (preparation != null) {
+            preparation.cancel(true);
+            preparation = null;
+        }
+    }
+
+    /**
+     * Prepare the data of a view and complete the navigation with it. Without an executor the data is prepared on the
+     * navigating thread, else the navigation is completed through {@link UI#access(Runnable)} once the data is
+     * prepared.
+     *
+     * @param previousState
+     *            the navigation state to revert to if the preparation fails
+     * @param complete
+     *            completes the navigation with the given action entering the view
+     */
+    <T> void prepare(
+            AsyncView<T> view,
+            UriTemplateViewChangeEvent event,
+            String previousState,
+            Consumer<Runnable> complete
+    ) {
+        Executor executor = this.executor;
+        if (executor == null) {
+            T data;
+            try {
+                data = view.prepare(event).join();
+            } catch (RuntimeException e) {
+                throw revert(event, previousState, e);
+            }
+            complete.accept(() -> view.enter(event, data));
+            return;
+        }
+        CompletableFuture<T> result = new CompletableFuture<T>();
+        executor.execute(() -> {
+            if (result.isDone()) {
+                return;
+            }
+            try {
+                CompletableFuture<? extends T> data = view.prepare(event);
+                result.whenComplete((value, failure) -> {
+                    if (result.isCancelled()) {
+                        data.cancel(true);
+                    }
+                });
+                data.whenComplete((value, failure) -> {
+                    if (failure == null) {
+                        result.complete(value);
+                    } else {
+                        result.completeExceptionally(failure);
+                    }
+                });
+            } catch (RuntimeException e) {
+                result.completeExceptionally(e);
+            }
+        });
+        preparation = result;
+        final int sequence = this.sequence;
+        if (placeholder != null) {
+            nestedViews.show(placeholder, event.getMatch());
+        }
+        final UI ui = navigator.getUI();
+        result.whenComplete((data, failure) -> {
+            if (result.isCancelled()) {
+                return;
+            }
+            try {
+                ui.access(() -> {
+                    // a later navigation has superseded this one
+                    if (sequence != this.sequence) {
+                        return;
+                    }
+                    preparation = null;
+                    if (failure == null) {
+                        complete.accept(() -> view.enter(event, data));
+                    } else {
+                        throw revert(event, previousState, failure);
+                    }
+                });
+            } catch (UIDetachedException e) {
+                // nothing left to show
+            }
+        });
+    }
+
+    private IllegalStateException revert(
+            UriTemplateViewChangeEvent event,
+            String previousState,
+            Throwable failure
+    ) {
+        navigator.revertPreparedNavigation(previousState, placeholder != null);
+        Throwable cause = failure instanceof CompletionException
+                && failure.getCause() != null ? failure.getCause() : failure;
+        return new IllegalStateException("Preparing the view of '"
+                + event.getViewName() + "' failed", cause);
+    }
+
+}
@@ -0,0 +1,114 @@
+package org.heutelbeck.vaadin.navigation;
+
+import java.io.Serializable;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Describes how many view instances of a route a {@link UriTemplateNavigator} keeps for reuse, and for how long.
+ * <p>
+ * Retained views are kept per navigator, and therefore per UI, in a pool per template. Navigating to a state reuses
+ * the view last used for the state. Another state of the route gets a new view while the pool has room, and reuses the
+ * least recently used view once the pool holds the maximum number of instances. A reused view is entered again with
+ * the new event. Views not used for the idle timeout are evicted.
+ *
+ * @see UriTemplateNavigator#setViewRetention(String, ViewRetentionPolicy)
+ */
+@SuppressWarnings("serial")
+public final class ViewRetentionPolicy implements Serializable {
+
+    private static final long NO_TIMEOUT = Long.MAX_VALUE;
+
+    private final int maxInstances;
+    private final long idleTimeoutMillis;
+
+    private ViewRetentionPolicy(
+            int maxInstances,
+            long idleTimeoutMillis
+    ) {
+        if (maxInstances < 1) {
+            throw new IllegalArgumentException(
+                    "At least one instance must be retained");
+        }
+        if (idleTimeoutMillis <= 0) {
+            throw new IllegalArgumentException(
+                    "The idle timeout must be positive");
+        }
+        this.maxInstances = maxInstances;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+    }
+
+    /**
+     * Retain the last used view instances of a route without timeout. With a single instance, every navigation to the
+     * route reuses the same view.
+     *
+     * @param maxInstances
+     *            maximum number of instances retained, at least one
+     * @return the policy
+     */
+    public static ViewRetentionPolicy lastInstances(
+            int maxInstances
+    ) {
+        return new ViewRetentionPolicy(maxInstances, NO_TIMEOUT);
+    }
+
+    /**
+     * Retain any number of view instances of a route until they have not been used for the given time. As the pool is
+     * never full, a view is only reused for the state it was last used for.
+     *
+     * @param timeout
+     *            the idle timeout
+     * @param unit
+     *            unit of the timeout
+     * @return the policy
+     */
+    public static ViewRetentionPolicy idleTimeout(
+            long timeout,
+            TimeUnit unit
+    ) {
+        return new ViewRetentionPolicy(Integer.MAX_VALUE,
+                unit.toMillis(timeout));
+    }
+
+    /**
+     * Derive a policy which additionally evicts instances not used for the given time.
+     *
+     * @param timeout
+     *            the idle timeout
+     * @param unit
+     *            unit of the timeout
+     * @return the new policy
+     */
+    public ViewRetentionPolicy withIdleTimeout(
+            long timeout,
+            TimeUnit unit
+    ) {
+        return new ViewRetentionPolicy(maxInstances, unit.toMillis(timeout));
+    }
+
+    /**
+     * Get the maximum number of retained instances.
+     *
+     * @return the maximum number of instances
+     */
+    public int getMaxInstances() {
+        return maxInstances;
+    }
+
+    /**
+     * Get the time after which an unused instance is evicted.
+     *
+     * @return the timeout in milliseconds, {@link Long#MAX_VALUE} if instances do not time out
+     */
+    public long getIdleTimeoutMillis() {
+        return idleTimeoutMillis;
+    }
+
+    boolean isExpired(
+            long lastUsed,
+            long now
+    ) {
+        return idleTimeoutMillis != NO_TIMEOUT
+                && now - lastUsed >= idleTimeoutMillis;
+    }
+
+}
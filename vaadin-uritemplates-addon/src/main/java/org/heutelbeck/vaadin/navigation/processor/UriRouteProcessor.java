@@ -0,0 +1,432 @@
+package org.heutelbeck.vaadin.navigation.processor;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.Messager;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic.Kind;
+
+import org.heutelbeck.vaadin.navigation.CompiledUriTemplate;
+import org.heutelbeck.vaadin.navigation.UriRoute;
+
+/**
+ * Generates a route table class for the views annotated with {@link UriRoute}.
+ * <p>
+ * The generated class holds the routes in a {@code public static final RouteTable ROUTES} field. Its name is given
+ * by the processor option {@code uriroute.tableClass}, by default it is {@code UriRoutes} in the common package of the
+ * annotated views. The routes are ordered by specificity of their templates, literal characters before variables
+ * with a regular expression before plain variables, so that routes of equal path length are matched in that order.
+ * <p>
+ * Compilation fails if a template is malformed, if two templates are equal apart from the names of their variables,
+ * if a parent template has a variable its child template has not, or if an annotated class cannot be instantiated by
+ * a {@link org.heutelbeck.vaadin.navigation.RouteTable}. Only templates of the same shape are reported as conflicts:
+ * templates of different shapes matching some of the same states, e.g. {@code apples/{id}} and
+ * {@code apples/{id:\d+}}, compile and are logged as shadowed or ambiguous routes when the table is built, see
+ * {@link org.heutelbeck.vaadin.navigation.RouteConflict}.
+ * <p>
+ * The generated table saves the class path scan for annotated views, not the parsing of the templates: the generated
+ * class registers the templates with {@link org.heutelbeck.vaadin.navigation.RouteTable#builder()}, which compiles
+ * them when the class is initialized, as for a table built by hand.
+ * <p>
+ * The processor aggregates all annotated classes of a compilation into one generated class. An incremental compile,
+ * e.g. by an IDE or a build tool recompiling only the changed sources, only passes the recompiled classes to the
+ * processor, so the generated table may lack the routes of the other classes. Build the table with a full compile,
+ * e.g. a clean build, before packaging.
+ */
+public class UriRouteProcessor extends AbstractProcessor {
+
+    /**
+     * Processor option naming the generated class.
+     */
+    public static final String TABLE_CLASS_OPTION = "uriroute.tableClass";
+
+    private static final String VIEW = "com.vaadin.navigator.View";
+    private static final String VARIABLES = "org.heutelbeck.vaadin.navigation.UriTemplateVariables";
+
+    private final List<Route> routes = new ArrayList<Route>();
+    private final Map<String, Route> shapes = new HashMap<String, Route>();
+    private boolean generated;
+    private boolean failed;
+
+    @Override
+    public Set<String> getSupportedAnnotationTypes() {
+        return Collections.singleton(UriRoute.class.getName());
+    }
+
+    @Override
+    public Set<String> getSupportedOptions() {
+        return Collections.singleton(TABLE_CLASS_OPTION);
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(
+            Set<? extends TypeElement> annotations,
+            RoundEnvironment roundEnv
+    ) {
+        int known = routes.size();
+        for (Element element : roundEnv
+                .getElementsAnnotatedWith(UriRoute.class)) {
+            if (generated) {
+                error(element,
+                        "@UriRoute on a class generated after the route table was generated");
+                continue;
+            }
+            if (checkViewClass(element)) {
+                UriRoute annotation = element.getAnnotation(UriRoute.class);
+                for (String template : annotation.value()) {
+                    addRoute((TypeElement) element, template,
+                            annotation.parent());
+                }
+            }
+        }
+        if (!roundEnv.processingOver() && routes.size() > known
+                && !generated) {
+            generated = true;
+            if (!failed) {
+                generate();
+            }
+        }
+        return true;
+    }
+
+    private boolean checkViewClass(
+            Element element
+    ) {
+        if (element.getKind() != ElementKind.CLASS) {
+            error(element, "@UriRoute is only allowed on classes");
+            return false;
+        }
+        TypeElement type = (TypeElement) element;
+        Set<Modifier> modifiers = type.getModifiers();
+        if (!modifiers.contains(Modifier.PUBLIC)
+                || modifiers.contains(Modifier.ABSTRACT)
+                || (type.getNestingKind() == NestingKind.MEMBER
+                        && !modifiers.contains(Modifier.STATIC))) {
+            error(element,
+                    "A class annotated with @UriRoute must be public, static and not abstract");
+            return false;
+        }
+        TypeElement view = processingEnv.getElementUtils()
+                .getTypeElement(VIEW);
+        if (view != null && !processingEnv.getTypeUtils()
+                .isAssignable(type.asType(), view.asType())) {
+            error(element, "A class annotated with @UriRoute must implement "
+                    + VIEW);
+            return false;
+        }
+        for (ExecutableElement constructor : ElementFilter
+                .constructorsIn(type.getEnclosedElements())) {
+            if (constructor.getModifiers().contains(Modifier.PUBLIC)
+                    && isViewConstructor(constructor.getParameters())) {
+                return true;
+            }
+        }
+        error(element,
+                "A class annotated with @UriRoute needs a public constructor without parameters or taking "
+                        + VARIABLES);
+        return false;
+    }
+
+    private boolean isViewConstructor(
+            List<? extends VariableElement> parameters
+    ) {
+        if (parameters.isEmpty()) {
+            return true;
+        }
+        if (parameters.size() != 1) {
+            return false;
+        }
+        TypeMirror type = processingEnv.getTypeUtils()
+                .erasure(parameters.get(0).asType());
+        return type.toString().equals(VARIABLES);
+    }
+
+    private void addRoute(
+            TypeElement type,
+            String template,
+            String parent
+    ) {
+        String shape;
+        CompiledUriTemplate compiled;
+        try {
+            shape = shapeOf(template);
+            compiled = new CompiledUriTemplate(template);
+        } catch (IllegalArgumentException e) {
+            error(type, "Malformed URI template \"" + template + "\": "
+                    + e.getMessage());
+            return;
+        }
+        if (!parent.isEmpty() && !checkParent(type, compiled, parent)) {
+            return;
+        }
+        Route route = new Route(type, template, shape, parent);
+        Route existing = shapes.get(shape);
+        if (existing != null) {
+            error(type, "URI template \"" + template
+                    + "\" conflicts with \"" + existing.template + "\" of "
+                    + existing.type.getQualifiedName());
+            error(existing.type, "URI template \"" + existing.template
+                    + "\" conflicts with \"" + template + "\" of "
+                    + type.getQualifiedName());
+            return;
+        }
+        shapes.put(shape, route);
+        routes.add(route);
+    }
+
+    private boolean checkParent(
+            TypeElement type,
+            CompiledUriTemplate child,
+            String parent
+    ) {
+        CompiledUriTemplate compiled;
+        try {
+            compiled = new CompiledUriTemplate(parent);
+        } catch (IllegalArgumentException e) {
+            error(type, "Malformed parent URI template \"" + parent + "\": "
+                    + e.getMessage());
+            return false;
+        }
+        Set<String> variables = new HashSet<String>();
+        for (int i = 0; i < child.getVariableCount(); i++) {
+            variables.add(child.getVariableName(i));
+        }
+        for (int i = 0; i < compiled.getVariableCount(); i++) {
+            if (!variables.contains(compiled.getVariableName(i))) {
+                error(type, "Parent URI template \"" + parent
+                        + "\" has the variable '" + compiled.getVariableName(i)
+                        + "' missing in \"" + child.getTemplate() + "\"");
+                return false;
+            }
+        }
+        if (parent.equals(child.getTemplate())) {
+            error(type, "URI template \"" + parent + "\" is its own parent");
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Check the syntax of a template and drop the names of its variables, e.g. {@code apples/{id:\d+}} becomes
+     * {@code apples/{:\d+}}. Templates with the same shape match the same navigation states.
+     */
+    static String shapeOf(
+            String template
+    ) {
+        if (template.isEmpty()) {
+            throw new IllegalArgumentException("template is empty");
+        }
+        StringBuilder shape = new StringBuilder(template.length());
+        Set<String> names = new HashSet<String>();
+        int level = 0;
+        int start = -1;
+        for (int i = 0; i < template.length(); i++) {
+            char c = template.charAt(i);
+            if (c == '{') {
+                if (level++ == 0) {
+                    start = i + 1;
+                }
+            } else if (c == '}') {
+                if (level == 0) {
+                    throw new IllegalArgumentException(
+                            "unbalanced '}' at index " + i);
+                }
+                if (--level == 0) {
+                    String variable = template.substring(start, i);
+                    int colon = variable.indexOf(':');
+                    String name = colon < 0 ? variable
+                            : variable.substring(0, colon);
+                    if (name.isEmpty()) {
+                        throw new IllegalArgumentException(
+                                "variable without name at index " + start);
+                    }
+                    if (!names.add(name)) {
+                        throw new IllegalArgumentException(
+                                "variable '" + name + "' is declared twice");
+                    }
+                    shape.append('{');
+                    if (colon >= 0) {
+                        String regex = variable.substring(colon + 1);
+                        try {
+                            Pattern.compile(regex);
+                        } catch (PatternSyntaxException e) {
+                            throw new IllegalArgumentException(
+                                    "invalid regular expression of variable '"
+                                            + name + "': "
+                                            + e.getDescription());
+                        }
+                        shape.append(':').append(regex);
+                    }
+                    shape.append('}');
+                }
+            } else if (level == 0) {
+                shape.append(c);
+            }
+        }
+        if (level != 0) {
+            throw new IllegalArgumentException("unbalanced '{'");
+        }
+        return shape.toString();
+    }
+
+    private void generate() {
+        // literal characters sort before '{', and "{:" before "{}"
+        Collections.sort(routes, new Comparator<Route>() {
+            @Override
+            public int compare(
+                    Route a,
+                    Route b
+            ) {
+                return a.shape.compareTo(b.shape);
+            }
+        });
+        String tableClass = processingEnv.getOptions()
+                .get(TABLE_CLASS_OPTION);
+        if (tableClass == null) {
+            String pkg = commonPackage();
+            tableClass = pkg.isEmpty() ? "UriRoutes" : pkg + ".UriRoutes";
+        }
+        int dot = tableClass.lastIndexOf('.');
+        String packageName = dot < 0 ? "" : tableClass.substring(0, dot);
+        String simpleName = tableClass.substring(dot + 1);
+
+        List<Element> origins = new ArrayList<Element>();
+        for (Route route : routes) {
+            origins.add(route.type);
+        }
+        try {
+            Writer writer = processingEnv.getFiler()
+                    .createSourceFile(tableClass,
+                            origins.toArray(new Element[origins.size()]))
+                    .openWriter();
+            try {
+                writer.write(source(packageName, simpleName));
+            } finally {
+                writer.close();
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Kind.ERROR,
+                    "Cannot write " + tableClass + ": " + e.getMessage());
+        }
+    }
+
+    private String source(
+            String packageName,
+            String simpleName
+    ) {
+        StringBuilder source = new StringBuilder();
+        if (!packageName.isEmpty()) {
+            source.append("package ").append(packageName).append(";\n\n");
+        }
+        source.append("import org.heutelbeck.vaadin.navigation.RouteTable;\n\n");
+        source.append("/**\n");
+        source.append(" * Routes of the views annotated with {@code @UriRoute}.\n");
+        source.append(" * <p>\n");
+        source.append(" * Generated by ").append(getClass().getName())
+                .append(", do not edit.\n");
+        source.append(" */\n");
+        source.append("public final class ").append(simpleName)
+                .append(" {\n\n");
+        source.append("    public static final RouteTable ROUTES = RouteTable.builder()\n");
+        source.append("            .id(").append(simpleName)
+                .append(".class, \"ROUTES\")\n");
+        for (Route route : routes) {
+            source.append("            .addView(")
+                    .append(processingEnv.getElementUtils()
+                            .getConstantExpression(route.template))
+                    .append(", ").append(route.type.getQualifiedName())
+                    .append(".class)\n");
+        }
+        for (Route route : routes) {
+            if (!route.parent.isEmpty()) {
+                source.append("            .parent(")
+                        .append(processingEnv.getElementUtils()
+                                .getConstantExpression(route.template))
+                        .append(", ")
+                        .append(processingEnv.getElementUtils()
+                                .getConstantExpression(route.parent))
+                        .append(")\n");
+            }
+        }
+        source.append("            .build();\n\n");
+        source.append("    private ").append(simpleName).append("() {\n");
+        source.append("    }\n\n");
+        source.append("}\n");
+        return source.toString();
+    }
+
+    private String commonPackage() {
+        String common = null;
+        for (Route route : routes) {
+            PackageElement pkg = processingEnv.getElementUtils()
+                    .getPackageOf(route.type);
+            String name = pkg.getQualifiedName().toString();
+            if (common == null) {
+                common = name;
+            }
+            while (!common.isEmpty() && !name.equals(common)
+                    && !name.startsWith(common + ".")) {
+                int dot = common.lastIndexOf('.');
+                common = dot < 0 ? "" : common.substring(0, dot);
+            }
+        }
+        return common == null ? "" : common;
+    }
+
+    private void error(
+            Element element,
+            String message
+    ) {
+        failed = true;
+        Messager messager = processingEnv.getMessager();
+        messager.printMessage(Kind.ERROR, message, element);
+    }
+
+    private static final class Route {
+        private final TypeElement type;
+        private final String template;
+        private final String shape;
+        private final String parent;
+
+        private Route(
+                TypeElement type,
+                String template,
+                String shape,
+                String parent
+        ) {
+            this.type = type;
+            this.template = template;
+            this.shape = shape;
+            this.parent = parent;
+        }
+    }
+
+}
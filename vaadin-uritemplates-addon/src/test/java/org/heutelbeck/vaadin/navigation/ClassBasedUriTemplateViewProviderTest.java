@@ -0,0 +1,123 @@
+package org.heutelbeck.vaadin.navigation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+import com.vaadin.navigator.View;
+
+public class ClassBasedUriTemplateViewProviderTest {
+
+    static class HiddenView implements View {
+        private HiddenView() {
+        }
+    }
+
+    static class VariablesView implements View {
+        final UriTemplateVariables variables;
+
+        VariablesView(
+                UriTemplateVariables variables
+        ) {
+            this.variables = variables;
+        }
+    }
+
+    static class FailingView implements View {
+        static final IllegalStateException FAILURE = new IllegalStateException();
+
+        FailingView() {
+            throw FAILURE;
+        }
+    }
+
+    static class ErrorView implements View {
+        ErrorView() {
+            throw new StackOverflowError();
+        }
+    }
+
+    static class CheckedView implements View {
+        CheckedView() throws Exception {
+            throw new Exception("checked");
+        }
+    }
+
+    static class NoConstructorView implements View {
+        NoConstructorView(
+                String name
+        ) {
+        }
+    }
+
+    @Test
+    public void createsViewsOfNonPublicClasses() {
+        assertTrue(new ClassBasedUriTemplateViewProvider("a",
+                HiddenView.class).getView("a") instanceof HiddenView);
+        assertNull(new ClassBasedUriTemplateViewProvider("a", HiddenView.class)
+                .getView("b"));
+    }
+
+    @Test
+    public void passesVariablesOfMatch() {
+        ClassBasedUriTemplateViewProvider provider = new ClassBasedUriTemplateViewProvider(
+                "apples/{appleId}", VariablesView.class);
+        UriTemplateVariables variables = new UriTemplateVariables();
+        new CompiledUriTemplate("apples/{appleId}").match("apples/1", variables);
+        VariablesView view = (VariablesView) provider.getView(
+                new UriTemplateMatch(provider, "apples/{appleId}", "apples/1",
+                        variables));
+        assertSame(variables, view.variables);
+        assertEquals(0, ((VariablesView) provider.getView("apples/{appleId}"))
+                .variables.size());
+    }
+
+    @Test
+    public void rethrowsUncheckedExceptionsOfView() {
+        try {
+            new ClassBasedUriTemplateViewProvider("a", FailingView.class)
+                    .getView("a");
+            fail();
+        } catch (IllegalStateException e) {
+            assertSame(FailingView.FAILURE, e);
+        }
+        try {
+            new ClassBasedUriTemplateViewProvider("a", ErrorView.class)
+                    .getView("a");
+            fail();
+        } catch (StackOverflowError e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void wrapsCheckedExceptionsOfView() {
+        try {
+            new ClassBasedUriTemplateViewProvider("a", CheckedView.class)
+                    .getView("a");
+            fail();
+        } catch (IllegalStateException e) {
+            assertEquals("Cannot create an instance of "
+                    + CheckedView.class.getName(), e.getMessage());
+            assertEquals("checked", e.getCause().getMessage());
+        }
+    }
+
+    @Test
+    public void namesViewWithoutConstructor() {
+        try {
+            new ClassBasedUriTemplateViewProvider("a", NoConstructorView.class)
+                    .getView("a");
+            fail();
+        } catch (IllegalStateException e) {
+            assertEquals("Cannot create an instance of "
+                    + NoConstructorView.class.getName(), e.getMessage());
+            assertTrue(e.getCause() instanceof NoSuchMethodException);
+        }
+    }
+
+}
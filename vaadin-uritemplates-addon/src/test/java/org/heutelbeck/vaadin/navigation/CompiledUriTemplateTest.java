@@ -0,0 +1,153 @@
+package org.heutelbeck.vaadin.navigation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+import org.springframework.web.util.UriTemplate;
+
+public class CompiledUriTemplateTest {
+
+    private static final String[] TEMPLATES = { "apples", "apples/{appleId}",
+            "apples/{appleId}/cores", "apples/{appleId}/cores/{coreId}",
+            "x{a}y/z", "{a}", "b/{n:\\d+}", "b/{n:[a-z]+}/q", "c/{p:.*}",
+            "d/{a}-{b}", "e/{a:[^/]+}/{b:\\w{1,2}}", "f/{a:\\d{2,}}{b}",
+            "g/{a:x|yz}b", "h/{a:[-a-c]*}/{a}", "i/{a:\\d+?}{b}", "{a}/{b}/{c}",
+            "j/{a:\\S+}", "k/{a:[^a-c]?}x", "a/{x:\\d{2}}" };
+
+    private static final String ALPHABET = "abcxyz/-0129_é\n ";
+
+    @Test
+    public void matchesLikeSpringUriTemplate() {
+        Random random = new Random(2);
+        for (String template : TEMPLATES) {
+            UriTemplate spring = new UriTemplate(template);
+            CompiledUriTemplate compiled = new CompiledUriTemplate(template);
+            UriTemplateVariables variables = new UriTemplateVariables();
+            String prefix = template.replaceAll("\\{.*", "");
+            for (int i = 0; i < 5000; i++) {
+                String state = randomState(random, prefix);
+                String message = template + " against '" + state + "'";
+                boolean matches = spring.matches(state);
+                assertEquals(message, matches, compiled.matches(state));
+                assertEquals(message, matches, compiled.match(state, variables));
+                if (matches) {
+                    assertEquals(message, spring.match(state), variables.toMap());
+                }
+                Map<String, String> found = compiled.find(state, variables)
+                        ? variables.toMap()
+                        : new HashMap<String, String>();
+                assertEquals(message, spring.match(state), found);
+            }
+        }
+    }
+
+    @Test
+    public void rejectsUnbalancedBraces() {
+        for (String template : new String[] { "a}b/{x}", "foo/{bar", "{x}}" }) {
+            try {
+                new CompiledUriTemplate(template);
+                fail("Accepted " + template);
+            } catch (IllegalArgumentException e) {
+                assertTrue(e.getMessage(), e.getMessage().contains(template));
+            }
+        }
+    }
+
+    @Test
+    public void variableOfNonParticipatingGroupIsNull() {
+        CompiledUriTemplate template = new CompiledUriTemplate("{a:q)|(?:r}");
+        UriTemplateVariables variables = new UriTemplateVariables();
+        assertTrue(template.match("r", variables));
+        assertEquals(-1, variables.getStart(0));
+        assertNull(variables.get("a"));
+        assertNull(variables.getDecoded("a"));
+        assertEquals(Collections.singletonMap("a", null), variables.toMap());
+    }
+
+    @Test
+    public void groupsOfVariablesDoNotShiftLaterVariables() {
+        CompiledUriTemplate template = new CompiledUriTemplate(
+                "{id:(a|b)\\d+}/{name}/{c:(?<x>[(]y)(?:z)\\(\\Q(\\E(?=q).}");
+        UriTemplateVariables variables = new UriTemplateVariables();
+        assertTrue(template.match("a12/x/(yz((q", variables));
+        assertEquals("a12", variables.get("id"));
+        assertEquals("x", variables.get("name"));
+        assertEquals("(yz((q", variables.get("c"));
+        assertTrue(template.find("-b3/y/(yz((q-", variables));
+        assertEquals("b3", variables.get("id"));
+        assertEquals("y", variables.get("name"));
+    }
+
+    @Test
+    public void expandedValuesMatchAgain() {
+        String[] templates = { "apples/{appleId}/cores/{coreId}", "a/{x}-{y}",
+                "b/{n:\\d+}", "c/{p:.*}", "{a}", "d/{a}/{b:[a-z%0-9A-F]+}/e",
+                "f/{a:(x|y)+}/{b}", "g/{a}{b}" };
+        String[] values = { "1", "x-y", "a/b", "%", "ü", "12", "", "a b?c#d",
+                "x", "-", "😀", "{}" };
+        Random random = new Random(3);
+        int expanded = 0;
+        for (String template : templates) {
+            CompiledUriTemplate compiled = new CompiledUriTemplate(template);
+            UriTemplate spring = new UriTemplate(template);
+            for (int k = 0; k < 1000; k++) {
+                Object[] arguments = new Object[compiled.getVariableCount()];
+                for (int i = 0; i < arguments.length; i++) {
+                    arguments[i] = values[random.nextInt(values.length)];
+                }
+                String state;
+                try {
+                    state = compiled.expand(arguments);
+                } catch (IllegalArgumentException e) {
+                    // the value does not match the pattern of its variable
+                    continue;
+                }
+                expanded++;
+                UriTemplateVariables variables = new UriTemplateVariables();
+                assertTrue(state, compiled.match(state, variables));
+                assertTrue(state, spring.matches(state));
+                for (int i = 0; i < arguments.length; i++) {
+                    assertEquals(state, arguments[i],
+                            variables.getDecodedValue(i));
+                }
+            }
+        }
+        assertTrue(expanded > 0);
+    }
+
+    @Test
+    public void rejectsValueNotMatchingPattern() {
+        try {
+            new CompiledUriTemplate("b/{n:\\d+}").expand("x");
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertEquals(
+                    "Value 'x' does not match variable 'n' of template b/{n:\\d+}",
+                    e.getMessage());
+        }
+        assertFalse(new CompiledUriTemplate("b/{n:\\d+}").matches("b/x"));
+    }
+
+    private static String randomState(
+            Random random,
+            String prefix
+    ) {
+        StringBuilder state = new StringBuilder(
+                random.nextBoolean() ? prefix : "");
+        int length = random.nextInt(8);
+        for (int j = 0; j < length; j++) {
+            state.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+        }
+        return state.toString();
+    }
+
+}
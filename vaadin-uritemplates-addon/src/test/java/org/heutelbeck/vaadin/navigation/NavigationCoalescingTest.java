@@ -0,0 +1,103 @@
+package org.heutelbeck.vaadin.navigation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.vaadin.navigator.View;
+
+public class NavigationCoalescingTest {
+
+    private final TestNavigator navigator = new TestNavigator();
+    private final ScheduledExecutorService executor = Executors
+            .newSingleThreadScheduledExecutor();
+
+    @Before
+    public void setUp() {
+        navigator.addView("apples/{appleId}",
+                TestNavigator.RecordingView.class);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void burstEntersOnlyItsLastState() {
+        navigator.setNavigationCoalescing(1, TimeUnit.HOURS, executor);
+        navigator.navigateTo("apples/0");
+        View first = navigator.getCurrentView();
+        for (int i = 1; i < 20; i++) {
+            navigator.navigateTo("apples/" + i);
+        }
+        // the states are recorded, the views are not changed yet
+        assertEquals("apples/19", navigator.getState());
+        assertSame(first, navigator.getCurrentView());
+        assertEquals(1, navigator.shown.size());
+
+        // disabling coalescing performs the deferred navigation
+        navigator.setNavigationCoalescing(0, TimeUnit.MILLISECONDS, null);
+        assertEquals(2, navigator.shown.size());
+        assertEquals("19", lastEvent().getVariable("appleId"));
+        assertEquals(0, navigator.getNavigationCoalescingWindowMillis());
+
+        navigator.navigateTo("apples/20");
+        navigator.navigateTo("apples/21");
+        assertEquals(4, navigator.shown.size());
+    }
+
+    @Test
+    public void burstReturningToEnteredStateKeepsPreviousState() {
+        navigator.setNavigationCoalescing(1, TimeUnit.HOURS, executor);
+        navigator.navigateTo("apples/0");
+        navigator.navigateTo("apples/1");
+        navigator.navigateTo("apples/0");
+        navigator.setNavigationCoalescing(0, TimeUnit.MILLISECONDS, null);
+        assertEquals("apples/0", navigator.getState());
+        assertEquals("0", lastEvent().getVariable("appleId"));
+        for (View view : navigator.shown) {
+            assertEquals("0", ((TestNavigator.RecordingView) view).lastEvent()
+                    .getVariable("appleId"));
+        }
+    }
+
+    @Test
+    public void deferredNavigationIsPerformedOnceWindowHasPassed()
+            throws InterruptedException {
+        synchronized (navigator.ui) {
+            navigator.setNavigationCoalescing(50, TimeUnit.MILLISECONDS,
+                    executor);
+            navigator.navigateTo("apples/0");
+            navigator.navigateTo("apples/1");
+            navigator.navigateTo("apples/2");
+        }
+        long deadline = System.currentTimeMillis() + 5000;
+        while (System.currentTimeMillis() < deadline) {
+            synchronized (navigator.ui) {
+                if (navigator.shown.size() == 2) {
+                    break;
+                }
+            }
+            Thread.sleep(10);
+        }
+        synchronized (navigator.ui) {
+            assertEquals(2, navigator.shown.size());
+            assertEquals("2", lastEvent().getVariable("appleId"));
+            assertEquals(50, navigator.getNavigationCoalescingWindowMillis());
+        }
+    }
+
+    private UriTemplateViewChangeEvent lastEvent() {
+        return ((TestNavigator.RecordingView) navigator.getCurrentView())
+                .lastEvent();
+    }
+
+}
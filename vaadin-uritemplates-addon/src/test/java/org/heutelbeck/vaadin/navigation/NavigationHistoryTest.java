@@ -0,0 +1,117 @@
+package org.heutelbeck.vaadin.navigation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import com.vaadin.navigator.View;
+
+public class NavigationHistoryTest {
+
+    private final StaticUriTemplateViewProvider provider = new StaticUriTemplateViewProvider(
+            "apples/{appleId}", new View() {
+            });
+    private final StaticUriTemplateViewProvider errorProvider = new StaticUriTemplateViewProvider(
+            "", new View() {
+            });
+
+    @Test
+    public void dropsOldestAndForwardEntries() {
+        NavigationHistory history = new NavigationHistory(3, 1);
+        navigate(history, "apples/1");
+        navigate(history, "apples/2");
+        navigate(history, "apples/3");
+        navigate(history, "apples/4");
+        assertEquals(Arrays.asList("apples/2", "apples/3", "apples/4"),
+                history.getStates());
+        assertEquals("apples/3", history.getPreviousState());
+        assertNull(history.getNextState());
+
+        restore(history, "apples/3");
+        restore(history, "apples/2");
+        assertNull(history.getPreviousState());
+        assertEquals("apples/3", history.getNextState());
+
+        navigate(history, "apples/5");
+        assertEquals(Arrays.asList("apples/2", "apples/5"), history.getStates());
+    }
+
+    @Test
+    public void restoresAdjacentEntriesOnly() {
+        NavigationHistory history = new NavigationHistory(5, 5);
+        View first = navigate(history, "apples/1");
+        navigate(history, "apples/2");
+        navigate(history, "apples/3");
+        assertNull(history.restore("apples/1", null));
+        assertSame(history.restore("apples/2", null),
+                history.restore("apples/2/", null));
+
+        NavigationHistory.Entry entry = restore(history, "apples/2");
+        assertEquals("apples/2", entry.state);
+        entry = restore(history, "apples/1");
+        assertSame(first, entry.view);
+        assertEquals(3, history.size());
+    }
+
+    @Test
+    public void keepsViewsNearCurrentEntry() {
+        NavigationHistory history = new NavigationHistory(5, 1);
+        navigate(history, "apples/1");
+        View second = navigate(history, "apples/2");
+        navigate(history, "apples/3");
+        assertSame(second, restore(history, "apples/2").view);
+        assertNull(history.restore("apples/1", null).view);
+        assertEquals(Arrays.asList("apples/1", "apples/2", "apples/3"),
+                history.getStates());
+    }
+
+    @Test
+    public void doesNotRestoreErrorView() {
+        NavigationHistory history = new NavigationHistory(5, 5);
+        navigate(history, "apples/1");
+        history.record(null, "x/y", new UriTemplateMatch(errorProvider, "",
+                "x/y", new UriTemplateVariables()), new View() {
+                });
+        navigate(history, "apples/2");
+        assertNull(history.restore("x/y", errorProvider));
+        history.clear();
+        assertEquals(0, history.size());
+        assertNull(history.getPreviousState());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsEmptyHistory() {
+        new NavigationHistory(0, 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsNegativeViews() {
+        new NavigationHistory(1, -1);
+    }
+
+    private View navigate(
+            NavigationHistory history,
+            String state
+    ) {
+        View view = new View() {
+        };
+        history.record(null, state, new UriTemplateMatch(provider,
+                provider.getViewName(), state, new UriTemplateVariables()),
+                view);
+        return view;
+    }
+
+    private NavigationHistory.Entry restore(
+            NavigationHistory history,
+            String state
+    ) {
+        NavigationHistory.Entry entry = history.restore(state, null);
+        history.record(entry, state, entry.match, entry.view);
+        return entry;
+    }
+
+}
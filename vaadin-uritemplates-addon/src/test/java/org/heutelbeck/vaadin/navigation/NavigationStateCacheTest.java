@@ -0,0 +1,145 @@
+package org.heutelbeck.vaadin.navigation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import com.vaadin.navigator.View;
+
+public class NavigationStateCacheTest {
+
+    private final StaticUriTemplateViewProvider provider = new StaticUriTemplateViewProvider(
+            "apples/{appleId}", new View() {
+            });
+
+    @Test
+    public void countsHitsAndMisses() {
+        NavigationStateCache cache = new NavigationStateCache(4);
+        UriTemplateMatch match = match("apples/1");
+        assertNull(cache.get("apples/1"));
+        cache.put("apples/1", match);
+        assertSame(match, cache.get("apples/1"));
+        assertSame(match, cache.get("apples/1"));
+        assertEquals(2, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+        assertEquals(2.0 / 3, cache.getHitRate(), 1e-9);
+        cache.resetStatistics();
+        assertEquals(0.0, cache.getHitRate(), 0.0);
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsedOfFullCache() throws InterruptedException {
+        NavigationStateCache cache = new NavigationStateCache(2);
+        cache.put("apples/1", match("apples/1"));
+        cache.put("apples/2", match("apples/2"));
+        // the access stamps must differ
+        Thread.sleep(1);
+        cache.get("apples/1");
+        Thread.sleep(1);
+        cache.put("apples/3", match("apples/3"));
+        assertEquals(2, cache.size());
+        assertNull(cache.get("apples/2"));
+    }
+
+    @Test
+    public void staysBoundedUnderConcurrentUse() throws Exception {
+        NavigationStateCache cache = new NavigationStateCache(64);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> tasks = new ArrayList<Future<?>>();
+            for (int t = 0; t < 8; t++) {
+                final int offset = t;
+                tasks.add(executor.submit(() -> {
+                    for (int i = 0; i < 20000; i++) {
+                        String state = "apples/" + (i * 7 + offset) % 500;
+                        UriTemplateMatch match = cache.get(state);
+                        if (match == null) {
+                            cache.put(state, match(state));
+                        } else {
+                            assertEquals(state, match.getNavigationState());
+                        }
+                    }
+                }));
+            }
+            for (Future<?> task : tasks) {
+                task.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertTrue(cache.size() <= 64);
+        assertEquals(8 * 20000, cache.getHitCount() + cache.getMissCount());
+    }
+
+    @Test
+    public void invalidationDropsMatchesOfOlderGeneration() {
+        NavigationStateCache cache = new NavigationStateCache(4);
+        long generation = cache.getGeneration();
+        cache.put("apples/1", match("apples/1"), generation);
+        cache.invalidateAll();
+        assertEquals(0, cache.size());
+        // matched before the invalidation
+        cache.put("apples/2", match("apples/2"), generation);
+        assertNull(cache.get("apples/2"));
+        cache.put("apples/2", match("apples/2"), cache.getGeneration());
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void navigatorCacheIsInvalidatedWhenViewsChange() {
+        TestNavigator navigator = new TestNavigator();
+        navigator.setNavigationStateCacheSize(8);
+        navigator.addView("apples/{appleId}",
+                TestNavigator.RecordingView.class);
+        navigator.navigateTo("apples/1");
+        navigator.navigateTo("apples/2");
+        navigator.navigateTo("apples/1?sort=name");
+        NavigationStateCache cache = navigator.getNavigationStateCache();
+        assertEquals(1, cache.getHitCount());
+        assertEquals(2, cache.size());
+        navigator.addView("apples/{appleId}/cores",
+                TestNavigator.RecordingView.class);
+        assertEquals(0, cache.size());
+        navigator.navigateTo("apples/1/cores");
+        assertEquals("apples/{appleId}/cores",
+                ((TestNavigator.RecordingView) navigator.getCurrentView())
+                        .lastEvent().getMatch().getViewName());
+    }
+
+    @Test
+    public void routeTableCacheIsSharedByNavigators() {
+        RouteTable routeTable = RouteTable.builder()
+                .addView("apples/{appleId}", TestNavigator.RecordingView.class)
+                .matchCache(8).build();
+        TestNavigator first = new TestNavigator();
+        TestNavigator second = new TestNavigator();
+        first.setRouteTable(routeTable);
+        second.setRouteTable(routeTable);
+        first.navigateTo("apples/1");
+        second.navigateTo("apples/1");
+        assertEquals(1, routeTable.getMatchCache().getHitCount());
+        assertNotSame(first.getCurrentView(), second.getCurrentView());
+    }
+
+    private UriTemplateMatch match(
+            String state
+    ) {
+        UriTemplateVariables variables = new UriTemplateVariables();
+        new CompiledUriTemplate("apples/{appleId}").match(state, variables);
+        return new UriTemplateMatch(provider, "apples/{appleId}", state,
+                variables);
+    }
+
+}
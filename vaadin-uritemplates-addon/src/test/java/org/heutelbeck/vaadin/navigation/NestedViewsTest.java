@@ -0,0 +1,131 @@
+package org.heutelbeck.vaadin.navigation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.vaadin.navigator.View;
+
+public class NestedViewsTest {
+
+    public static class AppleView extends TestNavigator.RecordingView
+            implements ParentView {
+
+        final List<View> children = new ArrayList<View>();
+
+        @Override
+        public void showChildView(
+                View child
+        ) {
+            children.add(child);
+        }
+    }
+
+    public static class CoreView extends TestNavigator.RecordingView {
+    }
+
+    private static final String CORE = "apples/{appleId}/cores/{coreId}";
+
+    private final TestNavigator navigator = new TestNavigator();
+
+    @Before
+    public void setUp() {
+        navigator.addView("apples/{appleId}", AppleView.class);
+        navigator.addView(CORE, CoreView.class);
+        navigator.setParentRoute(CORE, "apples/{appleId}");
+    }
+
+    @Test
+    public void childIsShownInOutletOfParent() {
+        navigator.navigateTo("apples/1/cores/2");
+        AppleView apple = (AppleView) navigator.shown.get(0);
+        View core = navigator.getCurrentView();
+        assertTrue(core instanceof CoreView);
+        assertEquals(1, navigator.shown.size());
+        assertEquals(1, apple.events.size());
+        assertEquals("1", apple.lastEvent().getVariable("appleId"));
+        assertEquals("apples/1", apple.lastEvent().getViewName());
+        assertSame(core, last(apple.children));
+        assertEquals("2", ((CoreView) core).lastEvent().getVariable("coreId"));
+    }
+
+    @Test
+    public void parentIsKeptWhileOnlyChildChanges() {
+        navigator.navigateTo("apples/1/cores/2");
+        AppleView apple = (AppleView) navigator.shown.get(0);
+        navigator.navigateTo("apples/1/cores/3");
+        assertEquals(1, navigator.shown.size());
+        assertEquals(1, apple.events.size());
+        assertEquals(2, apple.children.size());
+        assertSame(navigator.getCurrentView(), last(apple.children));
+
+        navigator.navigateTo("apples/2/cores/3");
+        assertEquals(2, navigator.shown.size());
+        assertNotSame(apple, navigator.shown.get(1));
+    }
+
+    @Test
+    public void parentShownOnItsOwnEmptiesItsOutlet() {
+        navigator.navigateTo("apples/1/cores/2");
+        AppleView apple = (AppleView) navigator.shown.get(0);
+        navigator.navigateTo("apples/1");
+        assertSame(apple, navigator.getCurrentView());
+        assertNull(last(apple.children));
+        assertEquals(1, navigator.shown.size());
+    }
+
+    @Test
+    public void cyclicParentsFail() {
+        navigator.addView("a", AppleView.class);
+        navigator.addView("b", AppleView.class);
+        navigator.setParentRoute("a", "b");
+        navigator.setParentRoute("b", "a");
+        try {
+            navigator.navigateTo("a");
+            fail();
+        } catch (IllegalStateException e) {
+            assertEquals("The parent routes of a are cyclic", e.getMessage());
+        }
+    }
+
+    @Test
+    public void parentMustBeParentView() {
+        navigator.addView("pears/{appleId}", CoreView.class);
+        navigator.setParentRoute(CORE, "pears/{appleId}");
+        try {
+            navigator.navigateTo("apples/1/cores/2");
+            fail();
+        } catch (IllegalStateException e) {
+            assertEquals("The view of the route pears/{appleId} is not a "
+                    + "ParentView", e.getMessage());
+        }
+    }
+
+    @Test
+    public void parentStateMustMatchRoute() {
+        navigator.setParentRoute(CORE, "trees/{appleId}");
+        try {
+            navigator.navigateTo("apples/1/cores/2");
+            fail();
+        } catch (IllegalStateException e) {
+            assertEquals("No route matches 'trees/1', the parent state of "
+                    + "'apples/1/cores/2'", e.getMessage());
+        }
+    }
+
+    private static <T> T last(
+            List<T> list
+    ) {
+        return list.get(list.size() - 1);
+    }
+
+}
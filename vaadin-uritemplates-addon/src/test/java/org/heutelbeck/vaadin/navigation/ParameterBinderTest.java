@@ -0,0 +1,131 @@
+package org.heutelbeck.vaadin.navigation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Date;
+import java.util.UUID;
+
+import org.junit.Test;
+
+public class ParameterBinderTest {
+
+    static class Core {
+        @UriVariable
+        int appleId;
+        @UriVariable("coreId")
+        long core;
+        @UriVariable(required = false)
+        Integer size;
+        @UriVariable(required = false)
+        UUID token;
+        @UriVariable(required = false)
+        String name;
+        int unbound = -1;
+    }
+
+    static class Unsupported {
+        @UriVariable
+        Date since;
+    }
+
+    private static final CompiledUriTemplate TEMPLATE = new CompiledUriTemplate(
+            "apples/{appleId}/cores/{coreId}");
+
+    @Test
+    public void bindsConvertedValues() {
+        CompiledUriTemplate template = new CompiledUriTemplate(
+                "{appleId}/{coreId}/{size}/{token}/{name}");
+        Core core = ParameterBinder.of(Core.class).create(variables(template,
+                "-12/9000000000/7/123e4567-e89b-12d3-a456-426614174000/a%20b"));
+        assertEquals(-12, core.appleId);
+        assertEquals(9000000000L, core.core);
+        assertEquals(Integer.valueOf(7), core.size);
+        assertEquals(UUID.fromString("123e4567-e89b-12d3-a456-426614174000"),
+                core.token);
+        assertEquals("a b", core.name);
+        assertEquals(-1, core.unbound);
+    }
+
+    @Test
+    public void leavesOptionalFieldsWithoutVariables() {
+        Core core = new Core();
+        core.size = 3;
+        ParameterBinder.of(Core.class).bind(
+                variables(TEMPLATE, "apples/1/cores/2"), core);
+        assertEquals(1, core.appleId);
+        assertEquals(2L, core.core);
+        assertEquals(Integer.valueOf(3), core.size);
+        assertNull(core.name);
+    }
+
+    @Test
+    public void rejectsMissingRequiredVariable() {
+        try {
+            ParameterBinder.of(Core.class).create(
+                    variables(new CompiledUriTemplate("apples/{appleId}"),
+                            "apples/1"));
+            fail();
+        } catch (ParameterBindingException e) {
+            assertEquals("coreId", e.getVariable());
+            assertEquals("The match has no value for the variable 'coreId'",
+                    e.getMessage());
+        }
+    }
+
+    @Test
+    public void rejectsValueOutOfRange() {
+        try {
+            ParameterBinder.of(Core.class).create(
+                    variables(TEMPLATE, "apples/2147483648/cores/1"));
+            fail();
+        } catch (ParameterBindingException e) {
+            assertEquals("appleId", e.getVariable());
+            assertEquals(
+                    "Value '2147483648' of variable 'appleId' is not a valid int",
+                    e.getMessage());
+        }
+    }
+
+    @Test
+    public void rejectsInvalidValues() {
+        for (String state : new String[] { "apples/x/cores/1",
+                "apples/1/cores/", "apples/+/cores/1",
+                "apples/1/cores/99999999999999999999" }) {
+            try {
+                ParameterBinder.of(Core.class).create(variables(TEMPLATE, state));
+                fail(state);
+            } catch (ParameterBindingException e) {
+                assertTrue(state, e.getMessage().startsWith("Value '"));
+            }
+        }
+    }
+
+    @Test
+    public void rejectsUnsupportedFieldType() {
+        try {
+            ParameterBinder.of(Unsupported.class);
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage(),
+                    e.getMessage().endsWith("has an unsupported type"));
+        }
+    }
+
+    @Test
+    public void classWithoutAnnotationsIsEmpty() {
+        assertTrue(ParameterBinder.of(Object.class).isEmpty());
+    }
+
+    private static UriTemplateVariables variables(
+            CompiledUriTemplate template,
+            String state
+    ) {
+        UriTemplateVariables variables = new UriTemplateVariables();
+        assertTrue(state, template.match(state, variables));
+        return variables;
+    }
+
+}
@@ -0,0 +1,125 @@
+package org.heutelbeck.vaadin.navigation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.vaadin.navigator.View;
+
+public class ParameterUpdatesTest {
+
+    public static class AppleView extends TestNavigator.RecordingView
+            implements ParameterAwareView {
+
+        @UriVariable
+        int appleId;
+        boolean accept = true;
+        final List<Set<String>> changes = new ArrayList<Set<String>>();
+
+        @Override
+        public boolean parametersChanged(
+                UriTemplateMatch oldMatch,
+                UriTemplateMatch newMatch,
+                Set<String> changedVariables
+        ) {
+            changes.add(changedVariables);
+            return accept;
+        }
+    }
+
+    private final TestNavigator navigator = new TestNavigator();
+    private final List<String> metrics = new ArrayList<String>();
+    private final List<String> listened = new ArrayList<String>();
+    private boolean veto;
+
+    @Before
+    public void setUp() {
+        navigator.addView("apples/{appleId}", AppleView.class);
+        navigator.setNavigationMetrics(new NavigationMetrics() {
+            @Override
+            public void resolved(
+                    String template,
+                    NavigationOutcome outcome,
+                    long resolveNanos,
+                    long createNanos
+            ) {
+                metrics.add(outcome.name());
+            }
+
+            @Override
+            public void entered(
+                    String template,
+                    long enterNanos
+            ) {
+                metrics.add("entered");
+            }
+        });
+        navigator.addViewChangeListener(event -> {
+            listened.add(event.getViewName());
+            return !veto;
+        });
+        navigator.navigateTo("apples/1");
+    }
+
+    @Test
+    public void viewUpdatesItselfInPlace() {
+        AppleView apple = (AppleView) navigator.getCurrentView();
+        navigator.navigateTo("apples/2");
+        assertSame(apple, navigator.getCurrentView());
+        assertEquals(1, navigator.shown.size());
+        assertEquals(1, apple.events.size());
+        assertEquals(Collections.singletonList(
+                Collections.singleton("appleId")), apple.changes);
+        assertEquals(2, apple.appleId);
+        assertEquals("apples/2", navigator.getState());
+        assertEquals("2", navigator.getCurrentMatch().getVariables()
+                .get("appleId"));
+        assertEquals(Arrays.asList("apples/1", "apples/2"), listened);
+        assertEquals(Arrays.asList("HIT", "entered", "HIT", "entered"),
+                metrics);
+    }
+
+    @Test
+    public void declinedUpdateReplacesView() {
+        AppleView apple = (AppleView) navigator.getCurrentView();
+        apple.accept = false;
+        navigator.navigateTo("apples/2");
+        View replacement = navigator.getCurrentView();
+        assertNotSame(apple, replacement);
+        assertEquals(1, apple.appleId);
+        assertEquals(2, ((AppleView) replacement).appleId);
+        assertEquals(2, navigator.shown.size());
+        // asked for the update and again for the full view change
+        assertEquals(Arrays.asList("apples/1", "apples/2", "apples/2"),
+                listened);
+    }
+
+    @Test
+    public void vetoedUpdateIsRevertedAndNotRecorded() {
+        AppleView apple = (AppleView) navigator.getCurrentView();
+        veto = true;
+        navigator.navigateTo("apples/2");
+        assertSame(apple, navigator.getCurrentView());
+        assertEquals(Collections.emptyList(), apple.changes);
+        assertEquals(1, apple.appleId);
+        assertEquals("apples/1", navigator.getState());
+        assertEquals(Arrays.asList("HIT", "entered"), metrics);
+    }
+
+    @Test
+    public void unchangedStateIsNoUpdate() {
+        AppleView apple = (AppleView) navigator.getCurrentView();
+        navigator.navigateTo("apples/1");
+        assertEquals(Collections.emptyList(), apple.changes);
+    }
+
+}
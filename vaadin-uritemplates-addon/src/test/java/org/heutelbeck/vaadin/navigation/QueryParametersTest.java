@@ -0,0 +1,54 @@
+package org.heutelbeck.vaadin.navigation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Test;
+
+public class QueryParametersTest {
+
+    @Test
+    public void decodesParameters() {
+        QueryParameters parameters = QueryParameters
+                .of("apples/1?sort=name&tag=a&tag=b%2Bc&q=x+y&flag");
+        assertEquals("sort=name&tag=a&tag=b%2Bc&q=x+y&flag",
+                parameters.getQueryString());
+        assertEquals(5, parameters.size());
+        assertEquals("name", parameters.get("sort"));
+        assertEquals(Arrays.asList("a", "b+c"), parameters.getAll("tag"));
+        assertEquals("a", parameters.get("tag"));
+        assertEquals("x y", parameters.get("q"));
+        assertEquals("", parameters.get("flag"));
+        assertNull(parameters.get("page"));
+        assertEquals(Collections.emptyList(), parameters.getAll("page"));
+        assertEquals(Arrays.asList("sort", "tag", "q", "flag"),
+                Arrays.asList(parameters.getNames().toArray()));
+        assertEquals("{sort=[name], tag=[a, b+c], q=[x y], flag=[]}",
+                parameters.toMap().toString());
+    }
+
+    @Test
+    public void skipsEmptyParameters() {
+        assertTrue(QueryParameters.of("apples?").isEmpty());
+        assertEquals(1, QueryParameters.of("apples?&&b=").size());
+        assertEquals("", QueryParameters.of("apples?&&b=").get("b"));
+    }
+
+    @Test
+    public void stateWithoutQueryHasNoParameters() {
+        assertSame(QueryParameters.EMPTY, QueryParameters.of("apples/1"));
+        assertTrue(QueryParameters.EMPTY.isEmpty());
+    }
+
+    @Test
+    public void pathOfStripsQuery() {
+        assertEquals("apples/1", QueryParameters.pathOf("apples/1?x=1"));
+        assertEquals("apples/1", QueryParameters.pathOf("apples/1"));
+    }
+
+}
@@ -0,0 +1,122 @@
+package org.heutelbeck.vaadin.navigation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.vaadin.server.VaadinSession;
+
+public class RouteGuardTest {
+
+    public static class AdminView extends TestNavigator.RecordingView {
+    }
+
+    private static final AtomicInteger asked = new AtomicInteger();
+    private static final AtomicBoolean admin = new AtomicBoolean();
+
+    private final VaadinSession session = new TestNavigator.TestSession();
+    private final TestNavigator first = new TestNavigator(
+            new TestNavigator.TestUI(session));
+    private final TestNavigator second = new TestNavigator(
+            new TestNavigator.TestUI(session));
+    private final TestNavigator.RecordingView errorView = new TestNavigator.RecordingView();
+    private final ExecutorService background = Executors
+            .newSingleThreadExecutor();
+
+    @Before
+    public void setUp() {
+        asked.set(0);
+        admin.set(true);
+        RouteGuard guard = RouteGuard.perTemplate(() -> {
+            asked.incrementAndGet();
+            return admin.get();
+        });
+        // registering forgets the decisions of the session, right away while holding its lock
+        for (TestNavigator navigator : new TestNavigator[] { first, second }) {
+            navigator.locked(() -> {
+                navigator.addView("admin", AdminView.class);
+                navigator.setErrorView(errorView);
+                navigator.setRouteGuard("admin", guard);
+            });
+        }
+    }
+
+    @After
+    public void tearDown() {
+        background.shutdownNow();
+    }
+
+    @Test
+    public void cacheableDecisionIsSharedByUisOfSession() {
+        first.locked(() -> first.navigateTo("admin"));
+        second.locked(() -> second.navigateTo("admin"));
+        assertTrue(first.getCurrentView() instanceof AdminView);
+        assertTrue(second.getCurrentView() instanceof AdminView);
+        assertEquals(1, asked.get());
+    }
+
+    @Test
+    public void invalidatedDecisionIsAskedAgain() throws Exception {
+        first.locked(() -> first.navigateTo("admin"));
+        admin.set(false);
+        second.locked(() -> second.navigateTo("admin"));
+        assertTrue(second.getCurrentView() instanceof AdminView);
+
+        // e.g. a logout handler without the lock of the session
+        background.submit(
+                () -> UriTemplateNavigator.invalidateRouteGuardDecisions(session))
+                .get();
+        second.locked(() -> second.navigateTo("admin"));
+        assertSame(errorView, second.getCurrentView());
+        assertEquals(2, asked.get());
+
+        admin.set(true);
+        background.submit(() -> first.invalidateRouteGuardDecisions()).get();
+        first.locked(() -> first.navigateTo("admin"));
+        assertTrue(first.getCurrentView() instanceof AdminView);
+        assertEquals(3, asked.get());
+    }
+
+    @Test
+    public void guardAskedPerMatchUnlessCacheable() {
+        first.addView("apples/{appleId}", TestNavigator.RecordingView.class);
+        first.setRouteGuard("apples/{appleId}", match -> {
+            asked.incrementAndGet();
+            return !"2".equals(match.getVariables().get("appleId"));
+        });
+        first.locked(() -> {
+            first.navigateTo("apples/1");
+            first.navigateTo("apples/2");
+            assertSame(errorView, first.getCurrentView());
+            first.navigateTo("apples/1");
+        });
+        assertEquals("1", ((TestNavigator.RecordingView) first
+                .getCurrentView()).lastEvent().getVariable("appleId"));
+        assertEquals(3, asked.get());
+    }
+
+    @Test
+    public void guardWithoutSessionKeepsDecisionsOfNavigator() {
+        TestNavigator navigator = new TestNavigator();
+        navigator.addView("admin", AdminView.class);
+        navigator.setErrorView(errorView);
+        navigator.setRouteGuard("admin", RouteGuard.perTemplate(admin::get));
+        navigator.navigateTo("admin");
+        admin.set(false);
+        navigator.navigateTo("admin");
+        assertTrue(navigator.getCurrentView() instanceof AdminView);
+        navigator.invalidateRouteGuardDecisions();
+        navigator.navigateTo("admin");
+        assertSame(errorView, navigator.getCurrentView());
+    }
+
+}
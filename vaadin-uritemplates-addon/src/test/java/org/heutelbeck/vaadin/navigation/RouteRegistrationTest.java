@@ -0,0 +1,126 @@
+package org.heutelbeck.vaadin.navigation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collections;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.vaadin.navigator.View;
+
+public class RouteRegistrationTest {
+
+    public static class AppleView extends TestNavigator.RecordingView {
+    }
+
+    public static class PearView extends TestNavigator.RecordingView {
+    }
+
+    private final TestNavigator navigator = new TestNavigator(
+            new TestNavigator.TestUI(new TestNavigator.TestSession()));
+    private final ExecutorService background = Executors
+            .newSingleThreadExecutor();
+
+    @Before
+    public void setUp() {
+        navigator.addView("apples/{appleId}", AppleView.class);
+        navigator.setNavigationHistory(10, 10);
+        navigator.setNavigationStateCacheSize(10);
+    }
+
+    @After
+    public void tearDown() {
+        background.shutdownNow();
+    }
+
+    @Test
+    public void backgroundRegistrationDefersResetOfUiState() throws Exception {
+        navigator.locked(() -> {
+            navigator.navigateTo("apples/1");
+            navigator.navigateTo("apples/2");
+        });
+        inBackground(() -> navigator.addViews(
+                Collections.singletonMap("pears", PearView.class)));
+        // the providers and the cache change right away
+        assertEquals(0, navigator.getNavigationStateCache().size());
+        assertEquals(2, navigator.getNavigationHistory().size());
+        navigator.locked(() -> navigator.navigateTo("pears"));
+        assertTrue(navigator.getCurrentView() instanceof PearView);
+        assertEquals(Collections.singletonList("pears"),
+                navigator.getNavigationHistory().getStates());
+    }
+
+    @Test
+    public void registrationHoldingSessionLockResetsUiStateRightAway() {
+        navigator.locked(() -> {
+            navigator.navigateTo("apples/1");
+            navigator.addView("pears", PearView.class);
+            assertEquals(0, navigator.getNavigationHistory().size());
+        });
+    }
+
+    @Test
+    public void retainedViewsOfReplacedViewAreDropped() throws Exception {
+        navigator.setViewRetention("apples/{appleId}",
+                ViewRetentionPolicy.lastInstances(1));
+        navigator.locked(() -> navigator.navigateTo("apples/1"));
+        View retained = navigator.getCurrentView();
+        navigator.locked(() -> navigator.navigateTo("apples/2"));
+        assertSame(retained, navigator.getCurrentView());
+        inBackground(() -> navigator.addView("apples/{appleId}",
+                AppleView.class));
+        navigator.locked(() -> navigator.navigateTo("apples/3"));
+        assertNotSame(retained, navigator.getCurrentView());
+    }
+
+    @Test
+    public void cacheableGuardIsAskedAgainAfterBackgroundRegistration()
+            throws Exception {
+        AtomicInteger asked = new AtomicInteger();
+        navigator.setRouteGuard("apples/{appleId}", RouteGuard.perTemplate(
+                () -> asked.incrementAndGet() > 0));
+        navigator.locked(() -> {
+            navigator.navigateTo("apples/1");
+            navigator.navigateTo("apples/2");
+        });
+        assertEquals(1, asked.get());
+        inBackground(() -> navigator.addView("pears", PearView.class));
+        navigator.locked(() -> navigator.navigateTo("apples/3"));
+        assertEquals(2, asked.get());
+    }
+
+    @Test
+    public void navigationsSeeCompleteRegistrations() throws Exception {
+        Future<?> registrations = background.submit(() -> {
+            for (int i = 0; i < 200; i++) {
+                navigator.addViews(Collections.singletonMap("pears/" + i,
+                        PearView.class));
+            }
+        });
+        for (int i = 0; !registrations.isDone() || i < 200; i++) {
+            String state = "apples/" + i;
+            navigator.locked(() -> navigator.navigateTo(state));
+            assertEquals(state, navigator.getState());
+        }
+        registrations.get(10, TimeUnit.SECONDS);
+        navigator.locked(() -> navigator.navigateTo("pears/199"));
+        assertTrue(navigator.getCurrentView() instanceof PearView);
+    }
+
+    private void inBackground(
+            Runnable task
+    ) throws Exception {
+        background.submit(task).get(10, TimeUnit.SECONDS);
+    }
+
+}
@@ -0,0 +1,81 @@
+package org.heutelbeck.vaadin.navigation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.vaadin.navigator.View;
+
+public class RouteTableTest {
+
+    public static class AppleView implements View {
+    }
+
+    public static class CoreView implements View {
+    }
+
+    public static class PearView implements View {
+    }
+
+    private final RouteTable routeTable = RouteTable.builder()
+            .addView("apples/new", AppleView.class)
+            .addView("apples/{appleId}", AppleView.class)
+            .addView("apples/{appleId}/cores/{coreId}", CoreView.class)
+            .build();
+
+    @Test
+    public void uriForMatchesItsRoute() {
+        String[] values = { "1", "a/b", "a b", "100%", "why?", "ä€😀", "x#y",
+                "{}", "%2F", "-" };
+        for (String appleId : values) {
+            for (String coreId : values) {
+                Map<String, Object> variables = new HashMap<String, Object>();
+                variables.put("appleId", appleId);
+                variables.put("coreId", coreId);
+                String state = routeTable.uriFor(CoreView.class, variables);
+                UriTemplateMatch match = routeTable.match(state);
+                assertEquals(state, "apples/{appleId}/cores/{coreId}",
+                        match.getViewName());
+                assertEquals(state, appleId,
+                        match.getVariables().getDecoded("appleId"));
+                assertEquals(state, coreId,
+                        match.getVariables().getDecoded("coreId"));
+            }
+        }
+    }
+
+    @Test
+    public void uriForPrefersTemplateWithAllValues() {
+        Map<String, Object> variables = new HashMap<String, Object>();
+        assertEquals("apples/new", routeTable.uriFor(AppleView.class, variables));
+        variables.put("appleId", "a/1");
+        assertEquals("apples/a%2F1",
+                routeTable.uriFor(AppleView.class, variables));
+        variables.put("coreId", 7);
+        assertEquals("apples/a%2F1/cores/7",
+                routeTable.uriFor(CoreView.class, variables));
+        assertNull(routeTable.uriFor(PearView.class, variables));
+    }
+
+    @Test
+    public void matchCacheSharesMatches() {
+        RouteTable cached = RouteTable.builder()
+                .addView("apples/{appleId}", AppleView.class).matchCache(4)
+                .build();
+        UriTemplateMatch match = cached.match("apples/1");
+        assertSame(match, cached.match("apples/1"));
+        assertEquals(1, cached.getMatchCache().getHitCount());
+        assertNull(RouteTable.builder().build().getMatchCache());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsNegativeMatchCache() {
+        RouteTable.builder().matchCache(-1);
+    }
+
+}
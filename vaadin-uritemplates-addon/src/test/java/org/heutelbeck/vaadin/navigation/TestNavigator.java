@@ -0,0 +1,191 @@
+package org.heutelbeck.vaadin.navigation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.vaadin.navigator.NavigationStateManager;
+import com.vaadin.navigator.Navigator;
+import com.vaadin.navigator.View;
+import com.vaadin.navigator.ViewChangeListener.ViewChangeEvent;
+import com.vaadin.server.VaadinRequest;
+import com.vaadin.server.VaadinSession;
+import com.vaadin.ui.UI;
+
+/**
+ * A navigator of a UI without page, which keeps its state in memory and records the views it shows.
+ */
+@SuppressWarnings("serial")
+class TestNavigator extends UriTemplateNavigator {
+
+    final TestUI ui;
+    final MemoryStateManager stateManager;
+    final List<View> shown;
+
+    TestNavigator() {
+        this(new TestUI(null));
+    }
+
+    TestNavigator(
+            TestUI ui
+    ) {
+        this(ui, new MemoryStateManager(), new ArrayList<View>());
+    }
+
+    private TestNavigator(
+            TestUI ui,
+            MemoryStateManager stateManager,
+            List<View> shown
+    ) {
+        super(ui, stateManager, shown::add);
+        this.ui = ui;
+        this.stateManager = stateManager;
+        this.shown = shown;
+    }
+
+    /**
+     * Navigate like the browser does, e.g. back or forward: the state manager reports the state before the navigator
+     * is asked to navigate to it.
+     */
+    void browse(
+            String navigationState
+    ) {
+        stateManager.setState(navigationState);
+        navigateTo(navigationState);
+    }
+
+    /**
+     * Run a task while holding the lock of the session of the UI.
+     */
+    void locked(
+            Runnable task
+    ) {
+        VaadinSession session = ui.getSession();
+        session.lock();
+        try {
+            task.run();
+        } finally {
+            session.unlock();
+        }
+    }
+
+    /**
+     * A UI of the given session, running the tasks passed to {@link #access(Runnable)} right away, on the calling
+     * thread, while holding the lock of the session or, without session, the monitor of the UI.
+     */
+    static class TestUI extends UI {
+
+        private final VaadinSession session;
+
+        TestUI(
+                VaadinSession session
+        ) {
+            this.session = session;
+        }
+
+        @Override
+        protected void init(
+                VaadinRequest request
+        ) {
+        }
+
+        @Override
+        public VaadinSession getSession() {
+            return session;
+        }
+
+        @Override
+        public Future<Void> access(
+                Runnable runnable
+        ) {
+            if (session != null) {
+                session.lock();
+                try {
+                    runnable.run();
+                } finally {
+                    session.unlock();
+                }
+            } else {
+                synchronized (this) {
+                    runnable.run();
+                }
+            }
+            return CompletableFuture.completedFuture(null);
+        }
+    }
+
+    /**
+     * A session without service, locked with a lock of its own.
+     */
+    static class TestSession extends VaadinSession {
+
+        private final ReentrantLock lock = new ReentrantLock();
+
+        TestSession() {
+            super(null);
+        }
+
+        @Override
+        public Lock getLockInstance() {
+            return lock;
+        }
+
+        @Override
+        public void lock() {
+            lock.lock();
+        }
+
+        @Override
+        public void unlock() {
+            lock.unlock();
+        }
+    }
+
+    static class MemoryStateManager implements NavigationStateManager {
+
+        final List<String> states = new ArrayList<String>();
+        private String state = "";
+
+        @Override
+        public String getState() {
+            return state;
+        }
+
+        @Override
+        public void setState(
+                String state
+        ) {
+            this.state = state;
+            states.add(state);
+        }
+
+        @Override
+        public void setNavigator(
+                Navigator navigator
+        ) {
+        }
+    }
+
+    /**
+     * A view recording the events it is entered with.
+     */
+    public static class RecordingView implements View {
+
+        final List<ViewChangeEvent> events = new ArrayList<ViewChangeEvent>();
+
+        @Override
+        public void enter(
+                ViewChangeEvent event
+        ) {
+            events.add(event);
+        }
+
+        UriTemplateViewChangeEvent lastEvent() {
+            return (UriTemplateViewChangeEvent) events.get(events.size() - 1);
+        }
+    }
+
+}
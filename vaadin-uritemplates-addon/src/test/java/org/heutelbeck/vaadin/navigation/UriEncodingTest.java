@@ -0,0 +1,38 @@
+package org.heutelbeck.vaadin.navigation;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class UriEncodingTest {
+
+    @Test
+    public void decodesEscapedUtf8() {
+        assertEquals("a/ä€😀", decode("a%2F%C3%A4%e2%82%ac%F0%9F%98%80"));
+    }
+
+    @Test
+    public void keepsMalformedEscapes() {
+        assertEquals("%zz?%", decode("%zz%3F%"));
+        // digits of other scripts are no hex digits of an escape
+        assertEquals("%\u0663\u0663", decode("%\u0663\u0663"));
+        assertEquals("%\uFF11\uFF11", decode("%\uFF11\uFF11"));
+    }
+
+    @Test
+    public void encodedValueDecodesToItself() {
+        String value = "a b/c?d#e%f{g}ä😀";
+        StringBuilder encoded = new StringBuilder();
+        UriEncoding.encode(value, encoded);
+        assertEquals("a%20b%2Fc%3Fd%23e%25f%7Bg%7D%C3%A4%F0%9F%98%80",
+                encoded.toString());
+        assertEquals(value, decode(encoded.toString()));
+    }
+
+    private static String decode(
+            String input
+    ) {
+        return UriEncoding.decode(input, 0, input.length());
+    }
+
+}
@@ -0,0 +1,201 @@
+package org.heutelbeck.vaadin.navigation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+import org.springframework.web.util.UriTemplate;
+
+import com.vaadin.navigator.View;
+
+public class UriTemplateRouterTest {
+
+    private static final String[] TEMPLATES = { "", "apples", "apples/{appleId}",
+            "apples/{appleId}/cores", "apples/{appleId}/cores/{coreId}",
+            "apples/new", "apples/{n:\\d+}", "{k}/new", "x{a}y/z", "{a}",
+            "b/{n:\\d+}", "b/{n:[a-z]+}/q", "c/{p:.*}", "apples/", "d/{a}-{b}" };
+
+    private static final String[] SEGMENTS = { "apples", "1", "cores", "2",
+            "new", "", "x", "y", "xy", "z", "b", "12", "ab", "q", "c", "d",
+            "a-b", "{appleId}" };
+
+    @Test
+    public void matchesLikeLinearScan() {
+        List<UriTemplateViewProvider> providers = new ArrayList<UriTemplateViewProvider>();
+        for (String template : TEMPLATES) {
+            providers.add(new StaticUriTemplateViewProvider(template, new View() {
+            }));
+        }
+        UriTemplateRouter router = new UriTemplateRouter(providers);
+        Random random = new Random(1);
+        for (int i = 0; i < 20000; i++) {
+            String state = randomState(random);
+            UriTemplateMatch match = router.match(state);
+            UriTemplateViewProvider expected = scan(providers, state);
+            if (expected == null) {
+                assertNull(state, match);
+                continue;
+            }
+            assertSame(state, expected, match.getProvider());
+            String template = viewName(expected);
+            Map<String, String> values = new HashMap<String, String>();
+            if (!template.isEmpty() && new UriTemplate(template).matches(state)) {
+                values = new UriTemplate(template).match(state);
+            }
+            assertEquals(state, values, match.getVariables().toMap());
+        }
+    }
+
+    @Test
+    public void prefersMoreSpecificRoute() {
+        List<UriTemplateViewProvider> providers = new ArrayList<UriTemplateViewProvider>();
+        for (String template : TEMPLATES) {
+            providers.add(new StaticUriTemplateViewProvider(template, new View() {
+            }));
+        }
+        UriTemplateRouter router = new UriTemplateRouter(providers);
+        assertEquals("apples/new", router.match("apples/new").getViewName());
+        assertEquals("apples/{n:\\d+}", router.match("apples/12").getViewName());
+        assertEquals("apples/{appleId}",
+                router.match("apples/ab").getViewName());
+        assertEquals("apples/{appleId}/cores/{coreId}",
+                router.match("apples/1/cores/2").getViewName());
+    }
+
+    /**
+     * The route the navigator chose before the router: the longest template matching the whole state, a segment
+     * without variables ranking before one with a regular expression, which ranks before one with a plain variable,
+     * else the longest template the state starts with followed by a slash. The first of equal routes wins.
+     */
+    private static UriTemplateViewProvider scan(
+            List<UriTemplateViewProvider> providers,
+            String state
+    ) {
+        UriTemplateViewProvider best = null;
+        long[] bestKey = null;
+        for (UriTemplateViewProvider provider : providers) {
+            String template = viewName(provider);
+            int length = provider.getPathLength();
+            List<long[]> keys = new ArrayList<long[]>();
+            if (state.equals(template)) {
+                int segments = state.split("/", -1).length;
+                long[] key = new long[2 + segments];
+                key[0] = length;
+                key[1] = 2;
+                for (int i = 0; i < segments; i++) {
+                    key[2 + i] = 3;
+                }
+                keys.add(key);
+            }
+            if (!template.isEmpty() && new UriTemplate(template).matches(state)) {
+                int[] ranks = ranks(template);
+                long[] key = new long[2 + ranks.length];
+                key[0] = length;
+                key[1] = 2;
+                for (int i = 0; i < ranks.length; i++) {
+                    key[2 + i] = ranks[i];
+                }
+                keys.add(key);
+            }
+            if (state.startsWith(template + "/")) {
+                keys.add(new long[] { length, 0 });
+            }
+            for (long[] key : keys) {
+                if (bestKey == null || compare(key, bestKey) > 0) {
+                    bestKey = key;
+                    best = provider;
+                }
+            }
+        }
+        return best;
+    }
+
+    private static int[] ranks(
+            String template
+    ) {
+        List<String> segments = new ArrayList<String>();
+        int level = 0;
+        int start = 0;
+        for (int i = 0; i < template.length(); i++) {
+            char c = template.charAt(i);
+            if (c == '{') {
+                level++;
+            } else if (c == '}') {
+                level--;
+            } else if (c == '/' && level == 0) {
+                segments.add(template.substring(start, i));
+                start = i + 1;
+            }
+        }
+        segments.add(template.substring(start));
+        int[] ranks = new int[segments.size()];
+        for (int i = 0; i < ranks.length; i++) {
+            String segment = segments.get(i);
+            if (segment.indexOf('{') < 0) {
+                ranks[i] = 3;
+                continue;
+            }
+            boolean allRegex = true;
+            boolean regex = false;
+            level = 0;
+            for (char c : segment.toCharArray()) {
+                if (c == '{') {
+                    if (level++ == 0) {
+                        regex = false;
+                    }
+                } else if (c == ':' && level == 1) {
+                    regex = true;
+                } else if (c == '}' && --level == 0 && !regex) {
+                    allRegex = false;
+                }
+            }
+            ranks[i] = allRegex ? 2 : 1;
+        }
+        return ranks;
+    }
+
+    private static int compare(
+            long[] a,
+            long[] b
+    ) {
+        for (int i = 0; i < Math.max(a.length, b.length); i++) {
+            long x = i < a.length ? a[i] : 0;
+            long y = i < b.length ? b[i] : 0;
+            if (x != y) {
+                return x > y ? 1 : -1;
+            }
+        }
+        return 0;
+    }
+
+    private static String randomState(
+            Random random
+    ) {
+        StringBuilder state = new StringBuilder();
+        int length = random.nextInt(6);
+        for (int j = 0; j < length; j++) {
+            if (j > 0) {
+                state.append('/');
+            }
+            state.append(SEGMENTS[random.nextInt(SEGMENTS.length)]);
+        }
+        if (random.nextInt(10) == 0) {
+            state.append('/');
+        }
+        return state.toString();
+    }
+
+    private static String viewName(
+            UriTemplateViewProvider provider
+    ) {
+        return ((AbstractUriTemplateViewProvider) provider).getViewName();
+    }
+
+}
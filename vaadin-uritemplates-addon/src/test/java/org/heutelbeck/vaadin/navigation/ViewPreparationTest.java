@@ -0,0 +1,158 @@
+package org.heutelbeck.vaadin.navigation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.vaadin.navigator.ViewChangeListener.ViewChangeEvent;
+
+public class ViewPreparationTest {
+
+    private final TestNavigator navigator = new TestNavigator();
+    private final List<Runnable> tasks = new ArrayList<Runnable>();
+    private final TestNavigator.RecordingView home = new TestNavigator.RecordingView();
+    private final TestNavigator.RecordingView placeholder = new TestNavigator.RecordingView();
+    private final PreparedView apple = new PreparedView();
+
+    @Before
+    public void setUp() {
+        navigator.addView("home", home);
+        navigator.addView("apples/{appleId}", apple);
+        navigator.navigateTo("home");
+    }
+
+    @Test
+    public void placeholderIsShownUntilDataIsPrepared() {
+        navigator.setAsyncNavigation(tasks::add, placeholder);
+        navigator.navigateTo("apples/1");
+        assertEquals("apples/1", navigator.getState());
+        assertSame(placeholder, last(navigator.shown));
+        assertTrue(apple.entered.isEmpty());
+
+        runTasks();
+        apple.data("1").complete("one");
+        assertEquals("one", last(apple.entered));
+        assertSame(apple, navigator.getCurrentView());
+        assertSame(apple, last(navigator.shown));
+    }
+
+    @Test
+    public void laterNavigationCancelsPreparation() {
+        navigator.setAsyncNavigation(tasks::add, null);
+        navigator.navigateTo("apples/1");
+        runTasks();
+        navigator.navigateTo("apples/2");
+        runTasks();
+        assertTrue(apple.data("1").isCancelled());
+
+        apple.data("2").complete("two");
+        assertEquals(1, apple.entered.size());
+        assertEquals("two", last(apple.entered));
+        assertEquals("apples/2", navigator.getState());
+    }
+
+    @Test
+    public void navigationBeforeThePreparationStartsSkipsIt() {
+        navigator.setAsyncNavigation(tasks::add, null);
+        navigator.navigateTo("apples/1");
+        navigator.navigateTo("home");
+        runTasks();
+        assertTrue(apple.prepared.isEmpty());
+        assertSame(home, navigator.getCurrentView());
+    }
+
+    @Test
+    public void failedPreparationRevertsToPreviousView() {
+        navigator.setAsyncNavigation(tasks::add, placeholder);
+        navigator.navigateTo("apples/1");
+        runTasks();
+        apple.data("1").completeExceptionally(new RuntimeException("down"));
+        assertEquals("home", navigator.getState());
+        assertSame(home, navigator.getCurrentView());
+        assertSame(home, last(navigator.shown));
+        assertTrue(apple.entered.isEmpty());
+    }
+
+    @Test
+    public void withoutExecutorDataIsPreparedOnNavigatingThread() {
+        apple.data("1").complete("one");
+        navigator.navigateTo("apples/1");
+        assertEquals("one", last(apple.entered));
+        assertSame(apple, navigator.getCurrentView());
+
+        apple.data("2").completeExceptionally(new RuntimeException("down"));
+        try {
+            navigator.navigateTo("apples/2");
+            fail();
+        } catch (IllegalStateException e) {
+            assertEquals("Preparing the view of 'apples/2' failed",
+                    e.getMessage());
+            assertEquals("down", e.getCause().getMessage());
+        }
+        assertEquals("apples/1", navigator.getState());
+        assertSame(apple, navigator.getCurrentView());
+    }
+
+    private void runTasks() {
+        List<Runnable> pending = new ArrayList<Runnable>(tasks);
+        tasks.clear();
+        for (Runnable task : pending) {
+            task.run();
+        }
+    }
+
+    private static <T> T last(
+            List<T> list
+    ) {
+        return list.get(list.size() - 1);
+    }
+
+    private static class PreparedView implements AsyncView<String> {
+
+        final Map<String, CompletableFuture<String>> data = new HashMap<String, CompletableFuture<String>>();
+        final List<String> prepared = new ArrayList<String>();
+        final List<String> entered = new ArrayList<String>();
+
+        CompletableFuture<String> data(
+                String appleId
+        ) {
+            return data.computeIfAbsent(appleId,
+                    id -> new CompletableFuture<String>());
+        }
+
+        @Override
+        public CompletableFuture<String> prepare(
+                UriTemplateViewChangeEvent event
+        ) {
+            String appleId = event.getVariable("appleId");
+            prepared.add(appleId);
+            return data(appleId);
+        }
+
+        @Override
+        public void enter(
+                UriTemplateViewChangeEvent event,
+                String data
+        ) {
+            entered.add(data);
+        }
+
+        @Override
+        public void enter(
+                ViewChangeEvent event
+        ) {
+            fail("entered without data");
+        }
+    }
+
+}
@@ -0,0 +1,102 @@
+package org.heutelbeck.vaadin.navigation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.vaadin.navigator.View;
+
+public class ViewRetentionTest {
+
+    public static class AppleView extends TestNavigator.RecordingView {
+        @UriVariable
+        int appleId;
+    }
+
+    private final TestNavigator navigator = new TestNavigator();
+    private boolean veto;
+
+    @Before
+    public void setUp() {
+        navigator.addView("apples/{appleId}", AppleView.class);
+        navigator.addView("pears", TestNavigator.RecordingView.class);
+        navigator.addViewChangeListener(event -> !veto);
+    }
+
+    @Test
+    public void singleInstanceIsReusedForEveryState() {
+        navigator.setViewRetention("apples/{appleId}",
+                ViewRetentionPolicy.lastInstances(1));
+        navigator.navigateTo("apples/1");
+        AppleView view = (AppleView) navigator.getCurrentView();
+        navigator.navigateTo("pears");
+        navigator.navigateTo("apples/2");
+        assertSame(view, navigator.getCurrentView());
+        assertEquals(2, view.appleId);
+        assertEquals(2, view.events.size());
+        assertEquals("apples/2", view.lastEvent().getViewName());
+    }
+
+    @Test
+    public void fullPoolReusesLeastRecentlyUsedView() {
+        navigator.setViewRetention("apples/{appleId}",
+                ViewRetentionPolicy.lastInstances(2));
+        navigator.navigateTo("apples/1");
+        View first = navigator.getCurrentView();
+        navigator.navigateTo("apples/2");
+        View second = navigator.getCurrentView();
+        assertNotSame(first, second);
+        navigator.navigateTo("apples/1?sort=name");
+        assertSame(first, navigator.getCurrentView());
+        navigator.navigateTo("apples/3");
+        assertSame(second, navigator.getCurrentView());
+    }
+
+    @Test
+    public void vetoedNavigationDoesNotClaimView() {
+        navigator.setViewRetention("apples/{appleId}",
+                ViewRetentionPolicy.lastInstances(2));
+        navigator.navigateTo("apples/1");
+        View first = navigator.getCurrentView();
+        navigator.navigateTo("apples/2");
+        View second = navigator.getCurrentView();
+        veto = true;
+        // would reuse the least recently used view for another state
+        navigator.navigateTo("apples/3");
+        veto = false;
+        assertSame(second, navigator.getCurrentView());
+        navigator.navigateTo("apples/1");
+        assertSame(first, navigator.getCurrentView());
+        assertEquals(1, ((AppleView) first).appleId);
+    }
+
+    @Test
+    public void vetoedNavigationDoesNotEvictViews() {
+        navigator.setViewRetention("apples/{appleId}",
+                ViewRetentionPolicy.lastInstances(2));
+        navigator.navigateTo("apples/1");
+        View first = navigator.getCurrentView();
+        navigator.navigateTo("pears");
+        veto = true;
+        navigator.navigateTo("apples/2");
+        veto = false;
+        // the pool still has room, so the view of apples/1 is kept
+        navigator.navigateTo("apples/3");
+        assertNotSame(first, navigator.getCurrentView());
+        navigator.navigateTo("apples/1");
+        assertSame(first, navigator.getCurrentView());
+    }
+
+    @Test
+    public void routesWithoutPolicyCreateNewViews() {
+        navigator.navigateTo("apples/1");
+        View first = navigator.getCurrentView();
+        navigator.navigateTo("pears");
+        navigator.navigateTo("apples/1");
+        assertNotSame(first, navigator.getCurrentView());
+    }
+
+}
@@ -0,0 +1,64 @@
+package org.heutelbeck.vaadin.navigation.benchmarks;
+
+import org.heutelbeck.vaadin.navigation.UriTemplateNavigator;
+
+import com.vaadin.navigator.NavigationStateManager;
+import com.vaadin.navigator.Navigator;
+import com.vaadin.navigator.View;
+import com.vaadin.navigator.ViewProvider;
+import com.vaadin.server.VaadinRequest;
+import com.vaadin.ui.UI;
+
+/**
+ * A navigator attached to a detached UI with an in-memory state manager and a display which does nothing, exposing
+ * the provider lookup to the benchmarks.
+ */
+@SuppressWarnings("serial")
+public class BenchmarkNavigator extends UriTemplateNavigator {
+
+    public BenchmarkNavigator() {
+        super(new BenchmarkUI(), new MemoryStateManager(),
+                (View view) -> {
+                    // NOP
+                });
+    }
+
+    public ViewProvider lookup(
+            String state
+    ) {
+        return getViewProvider(state);
+    }
+
+    private static class BenchmarkUI extends UI {
+        @Override
+        protected void init(
+                VaadinRequest request
+        ) {
+            // NOP
+        }
+    }
+
+    private static class MemoryStateManager implements NavigationStateManager {
+        private String state = "";
+
+        @Override
+        public String getState() {
+            return state;
+        }
+
+        @Override
+        public void setState(
+                String state
+        ) {
+            this.state = state;
+        }
+
+        @Override
+        public void setNavigator(
+                Navigator navigator
+        ) {
+            // NOP
+        }
+    }
+
+}
@@ -0,0 +1,10 @@
+package org.heutelbeck.vaadin.navigation.benchmarks;
+
+import com.vaadin.navigator.View;
+
+/**
+ * A view without components, so that benchmarks measure the navigator and not the component tree.
+ */
+@SuppressWarnings("serial")
+public class BenchmarkView implements View {
+}
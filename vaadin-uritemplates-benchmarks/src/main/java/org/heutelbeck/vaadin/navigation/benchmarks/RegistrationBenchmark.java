@@ -0,0 +1,66 @@
+package org.heutelbeck.vaadin.navigation.benchmarks;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of registering all routes of a UI with {@code addView} or {@code addViews}, including the creation of the navigator and the first
+ * lookup which compiles the routes.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RegistrationBenchmark {
+
+    @Param({ "10", "100", "1000" })
+    public int routes;
+
+    private String[] templates;
+    private Map<String, Class<BenchmarkView>> viewClasses;
+
+    @Setup
+    public void setUp() {
+        List<String> list = Routes.templates(routes);
+        templates = list.toArray(new String[list.size()]);
+        viewClasses = new LinkedHashMap<String, Class<BenchmarkView>>();
+        for (String template : templates) {
+            viewClasses.put(template, BenchmarkView.class);
+        }
+    }
+
+    @Benchmark
+    public BenchmarkNavigator addView() {
+        BenchmarkNavigator navigator = new BenchmarkNavigator();
+        for (String template : templates) {
+            navigator.addView(template, BenchmarkView.class);
+        }
+        navigator.lookup(templates[0]);
+        return navigator;
+    }
+
+    @Benchmark
+    public BenchmarkNavigator addViews() {
+        BenchmarkNavigator navigator = new BenchmarkNavigator();
+        navigator.addViews(viewClasses);
+        navigator.lookup(templates[0]);
+        return navigator;
+    }
+
+}
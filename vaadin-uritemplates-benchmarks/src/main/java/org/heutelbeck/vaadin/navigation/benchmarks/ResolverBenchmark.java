@@ -0,0 +1,46 @@
+package org.heutelbeck.vaadin.navigation.benchmarks;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.heutelbeck.vaadin.navigation.UriTemplateResolver;
+import org.heutelbeck.vaadin.navigation.UriTemplateVariables;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of {@code UriTemplateResolver.resolveViewName}, creating a map or reusing a variables accessor.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResolverBenchmark {
+
+    private final UriTemplateResolver resolver = new UriTemplateResolver(
+            "apples/{appleId}/cores/{coreId}");
+    private final UriTemplateVariables variables = new UriTemplateVariables();
+
+    private String state = "apples/1124621Xd5/cores/382";
+
+    @Benchmark
+    public Map<String, String> resolveViewName() {
+        return resolver.resolveViewName(state);
+    }
+
+    @Benchmark
+    public int resolveViewNameReusingVariables() {
+        resolver.resolveViewName(state, variables);
+        return variables.getEnd(1) - variables.getStart(0);
+    }
+
+}
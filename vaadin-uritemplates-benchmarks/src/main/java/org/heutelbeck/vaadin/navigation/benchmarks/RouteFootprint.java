@@ -0,0 +1,80 @@
+package org.heutelbeck.vaadin.navigation.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.heutelbeck.vaadin.navigation.ClassBasedUriTemplateViewProvider;
+import org.heutelbeck.vaadin.navigation.RouteTable;
+import org.heutelbeck.vaadin.navigation.UriTemplateViewProvider;
+
+/**
+ * Measures the retained heap per route: of the providers alone, of a {@link RouteTable} including its lookup trie and
+ * of a navigator with the routes registered locally. The templates themselves are created before measuring, as an
+ * application holds them as constants anyway. Run with
+ *
+ * <pre>
+ * java -cp benchmarks.jar org.heutelbeck.vaadin.navigation.benchmarks.RouteFootprint [routes]
+ * </pre>
+ *
+ * The heap is measured with {@link Runtime} after repeated garbage collections, so a large number of routes gives the
+ * most stable figures.
+ */
+public class RouteFootprint {
+
+    public static void main(
+            String[] args
+    ) {
+        int routes = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+        List<String> templates = Routes.templates(routes);
+        String[] states = Routes.states(templates);
+
+        long before = usedHeap();
+        List<UriTemplateViewProvider> providers = new ArrayList<UriTemplateViewProvider>(
+                routes);
+        for (String template : templates) {
+            providers.add(new ClassBasedUriTemplateViewProvider(template,
+                    BenchmarkView.class));
+        }
+        report("providers", usedHeap() - before, routes);
+        providers = null;
+
+        before = usedHeap();
+        RouteTable.Builder builder = RouteTable.builder();
+        for (String template : templates) {
+            builder.addView(template, BenchmarkView.class);
+        }
+        RouteTable table = builder.build();
+        table.getViewProvider(states[0]);
+        report("route table", usedHeap() - before, routes);
+        table = null;
+
+        before = usedHeap();
+        BenchmarkNavigator navigator = new BenchmarkNavigator();
+        for (String template : templates) {
+            navigator.addView(template, BenchmarkView.class);
+        }
+        navigator.lookup(states[0]);
+        report("navigator", usedHeap() - before, routes);
+        navigator.lookup(states[states.length - 1]);
+    }
+
+    private static void report(
+            String subject,
+            long bytes,
+            int routes
+    ) {
+        System.out.printf("%-12s %8d bytes per route%n", subject,
+                bytes / routes);
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        long used = Long.MAX_VALUE;
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+            used = Math.min(used, runtime.totalMemory() - runtime.freeMemory());
+        }
+        return used;
+    }
+
+}
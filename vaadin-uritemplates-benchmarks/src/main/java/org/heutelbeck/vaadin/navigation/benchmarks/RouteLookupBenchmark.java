@@ -0,0 +1,67 @@
+package org.heutelbeck.vaadin.navigation.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.vaadin.navigator.ViewProvider;
+
+/**
+ * Cost of {@code UriTemplateNavigator.getViewProvider} depending on the number of registered templates, with and
+ * without a navigation state cache.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RouteLookupBenchmark {
+
+    @Param({ "10", "100", "1000" })
+    public int routes;
+
+    @Param({ "0", "1024" })
+    public int cacheSize;
+
+    private BenchmarkNavigator navigator;
+    private String[] states;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        List<String> templates = Routes.templates(routes);
+        navigator = new BenchmarkNavigator();
+        navigator.setNavigationStateCacheSize(cacheSize);
+        for (String template : templates) {
+            navigator.addView(template, BenchmarkView.class);
+        }
+        states = Routes.states(templates);
+        // compile the routes before measuring
+        navigator.lookup(states[0]);
+    }
+
+    @Benchmark
+    public ViewProvider getViewProvider() {
+        String state = states[next];
+        next = next + 1 == states.length ? 0 : next + 1;
+        return navigator.lookup(state);
+    }
+
+    @Benchmark
+    public ViewProvider getViewProviderMiss() {
+        return navigator.lookup("unknown/4711/items/42");
+    }
+
+}
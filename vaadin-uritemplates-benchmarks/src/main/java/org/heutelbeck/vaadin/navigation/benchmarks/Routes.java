@@ -0,0 +1,54 @@
+package org.heutelbeck.vaadin.navigation.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Generates route sets of realistic shape: every resource has a list view, a detail view, a list of children and a
+ * child detail view, e.g. {@code resource7}, {@code resource7/{id}}, {@code resource7/{id}/items} and
+ * {@code resource7/{id}/items/{itemId}}.
+ */
+final class Routes {
+
+    private Routes() {
+    }
+
+    static List<String> templates(
+            int count
+    ) {
+        List<String> templates = new ArrayList<String>(count);
+        for (int i = 0; i < count; i++) {
+            String resource = "resource" + (i / 4);
+            switch (i % 4) {
+            case 0:
+                templates.add(resource);
+                break;
+            case 1:
+                templates.add(resource + "/{id}");
+                break;
+            case 2:
+                templates.add(resource + "/{id}/items");
+                break;
+            default:
+                templates.add(resource + "/{id}/items/{itemId}");
+                break;
+            }
+        }
+        return templates;
+    }
+
+    /**
+     * Create one navigation state hitting each template.
+     */
+    static String[] states(
+            List<String> templates
+    ) {
+        String[] states = new String[templates.size()];
+        for (int i = 0; i < states.length; i++) {
+            states[i] = templates.get(i).replace("{id}", "4711")
+                    .replace("{itemId}", String.valueOf(i));
+        }
+        return states;
+    }
+
+}
@@ -0,0 +1,61 @@
+package org.heutelbeck.vaadin.navigation.benchmarks;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.heutelbeck.vaadin.navigation.CompiledUriTemplate;
+import org.heutelbeck.vaadin.navigation.RouteTable;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of creating a link to {@code apples/{appleId}/cores/{coreId}}, by string concatenation, by expanding the
+ * compiled template and by reverse routing through a route table.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UriForBenchmark {
+
+    private final CompiledUriTemplate template = new CompiledUriTemplate(
+            "apples/{appleId}/cores/{coreId}");
+    private final RouteTable routes = RouteTable.builder()
+            .addView("apples/{appleId}/cores/{coreId}", BenchmarkView.class)
+            .build();
+    private final Map<String, Object> values = new HashMap<String, Object>();
+
+    private String appleId = "1124621Xd5";
+    private int coreId = 382;
+
+    public UriForBenchmark() {
+        values.put("appleId", appleId);
+        values.put("coreId", coreId);
+    }
+
+    @Benchmark
+    public String concatenate() {
+        return "apples/" + appleId + "/cores/" + coreId;
+    }
+
+    @Benchmark
+    public String expand() {
+        return template.expand(appleId, coreId);
+    }
+
+    @Benchmark
+    public String uriFor() {
+        return routes.uriFor(BenchmarkView.class, values);
+    }
+
+}
@@ -0,0 +1,66 @@
+package org.heutelbeck.vaadin.navigation.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.heutelbeck.vaadin.navigation.AbstractUriTemplateViewProvider;
+import org.heutelbeck.vaadin.navigation.ClassBasedUriTemplateViewProvider;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of {@code AbstractUriTemplateViewProvider.getViewName} for each kind of hit and for a miss.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ViewNameBenchmark {
+
+    private final AbstractUriTemplateViewProvider literal = new ClassBasedUriTemplateViewProvider(
+            "apples/all", BenchmarkView.class);
+    private final AbstractUriTemplateViewProvider template = new ClassBasedUriTemplateViewProvider(
+            "apples/{appleId}/cores/{coreId}", BenchmarkView.class);
+    private final AbstractUriTemplateViewProvider regex = new ClassBasedUriTemplateViewProvider(
+            "apples/{appleId:\\d+}/cores/{coreId:[a-z0-9]+}",
+            BenchmarkView.class);
+
+    private String literalState = "apples/all";
+    private String templateState = "apples/1124621/cores/382";
+    private String prefixState = "apples/all/sorted/by/name";
+    private String missState = "pears/1124621/cores/382";
+
+    @Benchmark
+    public String literalHit() {
+        return literal.getViewName(literalState);
+    }
+
+    @Benchmark
+    public String templateHit() {
+        return template.getViewName(templateState);
+    }
+
+    @Benchmark
+    public String regexTemplateHit() {
+        return regex.getViewName(templateState);
+    }
+
+    @Benchmark
+    public String prefixHit() {
+        return literal.getViewName(prefixState);
+    }
+
+    @Benchmark
+    public String miss() {
+        return template.getViewName(missState);
+    }
+
+}
@@ -1,10 +1,8 @@
 package org.apples;
 
-import org.apples.views.Apple;
 import org.apples.views.Apples;
-import org.apples.views.Core;
-import org.apples.views.Cores;
 import org.apples.views.Default;
+import org.apples.views.UriRoutes;
 import org.heutelbeck.vaadin.navigation.UriTemplateNavigator;
 
 import com.vaadin.server.VaadinRequest;
@@ -53,11 +51,8 @@ public class ApplesUI extends UI {
 
         navigator = new UriTemplateNavigator(this, viewDisplay);
 
-        navigator.addView(Default.NAME, new Default());
-        navigator.addView(Apple.NAME, new Apple());
-        navigator.addView(Apples.NAME, new Apples());
-        navigator.addView(Core.NAME, new Core());
-        navigator.addView(Cores.NAME, new Cores());
+        navigator.setRouteTable(UriRoutes.ROUTES);
+        navigator.addView(Default.NAME, Default.class, Default::new);
     }
 
     private Button createNavigationButton(
@@ -1,22 +1,23 @@
 package org.apples.views;
 
-import java.util.Map;
-
-import org.heutelbeck.vaadin.navigation.UriTemplateResolver;
+import org.heutelbeck.vaadin.navigation.ParentView;
+import org.heutelbeck.vaadin.navigation.UriRoute;
+import org.heutelbeck.vaadin.navigation.UriTemplateViewChangeEvent;
 
 import com.vaadin.navigator.View;
 import com.vaadin.navigator.ViewChangeListener.ViewChangeEvent;
 import com.vaadin.ui.Label;
+import com.vaadin.ui.Panel;
 import com.vaadin.ui.UI;
 import com.vaadin.ui.VerticalLayout;
 
+@UriRoute(Apple.NAME)
 @SuppressWarnings("serial")
-public class Apple extends VerticalLayout implements View {
+public class Apple extends VerticalLayout implements ParentView {
 
     public static final String NAME = "apples/{appleId}";
-    private static final UriTemplateResolver RESOLVER = new UriTemplateResolver(
-            NAME);
     Label appleId = new Label();
+    Panel outlet = new Panel();
 
     public Apple() {
         addComponent(new Label(
@@ -24,15 +25,24 @@ public class Apple extends VerticalLayout implements View {
                         + UI.getCurrent().getPage().getUriFragment() + "'"));
         addComponent(appleId);
         appleId.setCaption("Apple ID:");
+        addComponent(outlet);
+        outlet.setVisible(false);
     }
 
     @Override
     public void enter(
             ViewChangeEvent event
     ) {
-        Map<String, String> parameters = RESOLVER
-                .resolveViewName(event.getViewName());
-        appleId.setValue(parameters.get("appleId"));
+        UriTemplateViewChangeEvent uriTemplateEvent = (UriTemplateViewChangeEvent) event;
+        appleId.setValue(uriTemplateEvent.getVariable("appleId"));
+    }
+
+    @Override
+    public void showChildView(
+            View child
+    ) {
+        outlet.setContent(child == null ? null : child.getViewComponent());
+        outlet.setVisible(child != null);
     }
 
 }
@@ -1,11 +1,14 @@
 package org.apples.views;
 
+import org.heutelbeck.vaadin.navigation.UriRoute;
+
 import com.vaadin.navigator.View;
 import com.vaadin.navigator.ViewChangeListener.ViewChangeEvent;
 import com.vaadin.ui.Label;
 import com.vaadin.ui.UI;
 import com.vaadin.ui.VerticalLayout;
 
+@UriRoute(Apples.NAME)
 @SuppressWarnings("serial")
 public class Apples extends VerticalLayout implements View {
 
@@ -1,21 +1,22 @@
 package org.apples.views;
 
-import java.util.Map;
+import java.util.Set;
 
-import org.heutelbeck.vaadin.navigation.UriTemplateResolver;
+import org.heutelbeck.vaadin.navigation.ParameterAwareView;
+import org.heutelbeck.vaadin.navigation.UriRoute;
+import org.heutelbeck.vaadin.navigation.UriTemplateMatch;
+import org.heutelbeck.vaadin.navigation.UriTemplateViewChangeEvent;
 
-import com.vaadin.navigator.View;
 import com.vaadin.navigator.ViewChangeListener.ViewChangeEvent;
 import com.vaadin.ui.Label;
 import com.vaadin.ui.UI;
 import com.vaadin.ui.VerticalLayout;
 
+@UriRoute(value = Core.NAME, parent = Apple.NAME)
 @SuppressWarnings("serial")
-public class Core extends VerticalLayout implements View {
+public class Core extends VerticalLayout implements ParameterAwareView {
 
     public static final String NAME = "apples/{appleId}/cores/{coreId}";
-    private static final UriTemplateResolver RESOLVER = new UriTemplateResolver(
-            NAME);
 
     Label appleId = new Label();
     Label coreId = new Label();
@@ -34,10 +35,20 @@ public class Core extends VerticalLayout implements View {
     public void enter(
             ViewChangeEvent event
     ) {
-        Map<String, String> parameters = RESOLVER
-                .resolveViewName(event.getViewName());
-        appleId.setValue(parameters.get("appleId"));
-        coreId.setValue(parameters.get("coreId"));
+        UriTemplateViewChangeEvent uriTemplateEvent = (UriTemplateViewChangeEvent) event;
+        appleId.setValue(uriTemplateEvent.getVariable("appleId"));
+        coreId.setValue(uriTemplateEvent.getVariable("coreId"));
+    }
+
+    @Override
+    public boolean parametersChanged(
+            UriTemplateMatch oldMatch,
+            UriTemplateMatch newMatch,
+            Set<String> changedVariables
+    ) {
+        appleId.setValue(newMatch.getVariable("appleId"));
+        coreId.setValue(newMatch.getVariable("coreId"));
+        return true;
     }
 
 }
@@ -1,8 +1,7 @@
 package org.apples.views;
 
-import java.util.Map;
-
-import org.heutelbeck.vaadin.navigation.UriTemplateResolver;
+import org.heutelbeck.vaadin.navigation.UriRoute;
+import org.heutelbeck.vaadin.navigation.UriTemplateViewChangeEvent;
 
 import com.vaadin.navigator.View;
 import com.vaadin.navigator.ViewChangeListener.ViewChangeEvent;
@@ -10,12 +9,11 @@ import com.vaadin.ui.Label;
 import com.vaadin.ui.UI;
 import com.vaadin.ui.VerticalLayout;
 
+@UriRoute(value = Cores.NAME, parent = Apple.NAME)
 @SuppressWarnings("serial")
 public class Cores extends VerticalLayout implements View {
 
     public static final String NAME = "apples/{appleId}/cores";
-    private static final UriTemplateResolver RESOLVER = new UriTemplateResolver(
-            NAME);
 
     Label appleId = new Label();
 
@@ -32,9 +30,8 @@ public class Cores extends VerticalLayout implements View {
     public void enter(
             ViewChangeEvent event
     ) {
-        Map<String, String> parameters = RESOLVER
-                .resolveViewName(event.getViewName());
-        appleId.setValue(parameters.get("appleId"));
+        UriTemplateViewChangeEvent uriTemplateEvent = (UriTemplateViewChangeEvent) event;
+        appleId.setValue(uriTemplateEvent.getVariable("appleId"));
     }
 
 }